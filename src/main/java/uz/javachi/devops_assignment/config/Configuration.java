@@ -8,10 +8,12 @@ import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.Random;
 
 @Slf4j
+@EnableScheduling
 @org.springframework.context.annotation.Configuration
 public class Configuration {
 
@@ -39,12 +41,6 @@ public class Configuration {
                     .tag("type", "http")
                     .register(registry);
 
-            // Custom business metric - cache hit ratio
-            Gauge.builder("application.cache.hit.ratio", () -> 0.75 + random.nextDouble() * 0.2)
-                    .description("Cache hit ratio percentage")
-                    .tag("cache", "main")
-                    .register(registry);
-
             log.info("Custom metrics registered successfully");
         };
     }
@@ -19,7 +19,10 @@ public class LoggingFilter extends OncePerRequestFilter {
 
     private static final int MAX_BODY_SIZE = 10000; // 10KB max body size for logging
     private static final Set<String> EXCLUDED_PATHS = Set.of(
-            "/actuator/health", "/actuator/prometheus", "/h2-console", "/swagger-ui", "/v3/api-docs"
+            "/actuator/health", "/actuator/prometheus", "/h2-console", "/swagger-ui", "/v3/api-docs",
+            "/api/dashboard/stream", // long-lived SSE connection, body must not be buffered
+            "/api/orders/export", "/api/products/export", // unbounded NDJSON streams, body must not be buffered
+            "/api/products/catalog" // pre-serialized snapshot, written as-is from a shared buffer
     );
 
     @Override
@@ -0,0 +1,54 @@
+package uz.javachi.devops_assignment.controller;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import uz.javachi.devops_assignment.model.AnalyticsQuery;
+import uz.javachi.devops_assignment.model.AnalyticsResult;
+import uz.javachi.devops_assignment.service.OrderColumnStore;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    private final OrderColumnStore orderColumnStore;
+    private final Counter analyticsRequestCounter;
+    private final Counter analyticsErrorCounter;
+
+    public AnalyticsController(OrderColumnStore orderColumnStore, MeterRegistry meterRegistry) {
+        this.orderColumnStore = orderColumnStore;
+        
+        this.analyticsRequestCounter = Counter.builder("analytics.requests.total")
+                .description("Total number of analytics API requests")
+                .tag("api", "analytics")
+                .register(meterRegistry);
+                
+        this.analyticsErrorCounter = Counter.builder("analytics.errors.total")
+                .description("Total number of analytics API errors")
+                .tag("api", "analytics")
+                .register(meterRegistry);
+    }
+
+    @PostMapping("/query")
+    @Timed(value = "analytics.query", description = "Time taken to run an analytics query")
+    public ResponseEntity<?> query(@RequestBody AnalyticsQuery query) {
+        log.info("Analytics query endpoint called: groupBy={}", query.getGroupBy());
+        analyticsRequestCounter.increment();
+        
+        try {
+            AnalyticsResult result = orderColumnStore.query(query);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            analyticsErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error running analytics query", e);
+            analyticsErrorCounter.increment();
+            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+        }
+    }
+}
@@ -4,11 +4,27 @@ import io.micrometer.core.annotation.Timed;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import uz.javachi.devops_assignment.model.DashboardStats;
+import uz.javachi.devops_assignment.model.OrderPercentiles;
+import uz.javachi.devops_assignment.model.PopularityWindow;
+import uz.javachi.devops_assignment.model.TimeGranularity;
+import uz.javachi.devops_assignment.model.TimeSeries;
+import uz.javachi.devops_assignment.model.UniqueBuyersEstimate;
 import uz.javachi.devops_assignment.service.DashboardService;
+import uz.javachi.devops_assignment.service.DashboardSnapshotCache;
+import uz.javachi.devops_assignment.service.DashboardStreamPublisher;
+import uz.javachi.devops_assignment.service.OrderPercentilesTracker;
+import uz.javachi.devops_assignment.service.OrderTimeSeries;
+import uz.javachi.devops_assignment.service.UniqueBuyersTracker;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 
 @Slf4j
@@ -17,11 +33,27 @@ import java.util.List;
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final DashboardSnapshotCache dashboardSnapshotCache;
+    private final DashboardStreamPublisher dashboardStreamPublisher;
+    private final OrderTimeSeries orderTimeSeries;
+    private final UniqueBuyersTracker uniqueBuyersTracker;
+    private final OrderPercentilesTracker orderPercentilesTracker;
     private final Counter dashboardRequestCounter;
     private final Counter dashboardErrorCounter;
 
-    public DashboardController(DashboardService dashboardService, MeterRegistry meterRegistry) {
+    public DashboardController(DashboardService dashboardService,
+                               DashboardSnapshotCache dashboardSnapshotCache,
+                               DashboardStreamPublisher dashboardStreamPublisher,
+                               OrderTimeSeries orderTimeSeries,
+                               UniqueBuyersTracker uniqueBuyersTracker,
+                               OrderPercentilesTracker orderPercentilesTracker,
+                               MeterRegistry meterRegistry) {
         this.dashboardService = dashboardService;
+        this.dashboardSnapshotCache = dashboardSnapshotCache;
+        this.dashboardStreamPublisher = dashboardStreamPublisher;
+        this.orderTimeSeries = orderTimeSeries;
+        this.uniqueBuyersTracker = uniqueBuyersTracker;
+        this.orderPercentilesTracker = orderPercentilesTracker;
         
         this.dashboardRequestCounter = Counter.builder("dashboard.requests.total")
                 .description("Total number of dashboard API requests")
@@ -41,8 +73,10 @@ public class DashboardController {
         dashboardRequestCounter.increment();
         
         try {
-            DashboardStats stats = dashboardService.getDashboardStats();
-            return ResponseEntity.ok(stats);
+            DashboardSnapshotCache.Snapshot snapshot = dashboardSnapshotCache.get();
+            return ResponseEntity.ok()
+                    .header("X-Snapshot-Age-Ms", String.valueOf(snapshot.ageMillis()))
+                    .body(snapshot.stats());
         } catch (Exception e) {
             log.error("Error getting dashboard stats", e);
             dashboardErrorCounter.increment();
@@ -68,12 +102,28 @@ public class DashboardController {
 
     @GetMapping("/products/popular")
     @Timed(value = "dashboard.get.popular", description = "Time taken to get popular products")
-    public ResponseEntity<?> getPopularProducts() {
-        log.info("Get popular products endpoint called");
+    public ResponseEntity<?> getPopularProducts(
+            @RequestParam(defaultValue = "ALL_TIME") String window,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "false") boolean exact) {
+        log.info("Get popular products endpoint called: window={}, limit={}, exact={}", window, limit, exact);
         dashboardRequestCounter.increment();
         
         try {
-            List<DashboardStats.PopularProduct> products = dashboardService.getPopularProducts();
+            PopularityWindow popularityWindow;
+            try {
+                popularityWindow = PopularityWindow.valueOf(window.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                dashboardErrorCounter.increment();
+                return ResponseEntity.badRequest().body("Error: Invalid window. Valid values are: ALL_TIME, LAST_24H, LAST_HOUR");
+            }
+            
+            if (limit <= 0) {
+                dashboardErrorCounter.increment();
+                return ResponseEntity.badRequest().body("Error: Limit must be positive");
+            }
+            
+            List<DashboardStats.PopularProduct> products = dashboardService.getPopularProducts(popularityWindow, limit, exact);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             log.error("Error getting popular products", e);
@@ -82,6 +132,179 @@ public class DashboardController {
         }
     }
 
+    @GetMapping("/timeseries")
+    @Timed(value = "dashboard.get.timeseries", description = "Time taken to get order time series")
+    public ResponseEntity<?> getTimeSeries(
+            @RequestParam(defaultValue = "HOUR") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Get time series endpoint called: {} from {} to {}", granularity, from, to);
+        dashboardRequestCounter.increment();
+        
+        try {
+            TimeGranularity timeGranularity;
+            try {
+                timeGranularity = TimeGranularity.valueOf(granularity.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                dashboardErrorCounter.increment();
+                return ResponseEntity.badRequest().body("Error: Invalid granularity. Valid values are: MINUTE, HOUR, DAY");
+            }
+            
+            // Default window: the last 60 buckets of the requested granularity
+            LocalDateTime end = to != null ? to : LocalDateTime.now();
+            LocalDateTime start = from != null ? from : end.minusSeconds(60 * timeGranularity.getSeconds());
+            
+            TimeSeries series = orderTimeSeries.query(timeGranularity, start, end);
+            return ResponseEntity.ok(series);
+        } catch (IllegalArgumentException e) {
+            dashboardErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error getting time series", e);
+            dashboardErrorCounter.increment();
+            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/percentiles")
+    @Timed(value = "dashboard.get.percentiles", description = "Time taken to get order percentiles")
+    public ResponseEntity<?> getOrderPercentiles() {
+        log.info("Get order percentiles endpoint called");
+        dashboardRequestCounter.increment();
+        
+        try {
+            OrderPercentiles percentiles = orderPercentilesTracker.overall();
+            return ResponseEntity.ok(percentiles);
+        } catch (Exception e) {
+            log.error("Error getting order percentiles", e);
+            dashboardErrorCounter.increment();
+            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/percentiles/products/{productId}")
+    @Timed(value = "dashboard.get.percentiles", description = "Time taken to get order percentiles")
+    public ResponseEntity<?> getProductOrderPercentiles(@PathVariable Long productId) {
+        log.info("Get product order percentiles endpoint called: {}", productId);
+        dashboardRequestCounter.increment();
+        
+        try {
+            OrderPercentiles percentiles = orderPercentilesTracker.product(productId);
+            return ResponseEntity.ok(percentiles);
+        } catch (Exception e) {
+            log.error("Error getting product order percentiles", e);
+            dashboardErrorCounter.increment();
+            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/unique-buyers/daily")
+    @Timed(value = "dashboard.get.unique.buyers", description = "Time taken to get unique buyer estimates")
+    public ResponseEntity<?> getDailyUniqueBuyers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        log.info("Get daily unique buyers endpoint called: {}", date);
+        dashboardRequestCounter.increment();
+        
+        try {
+            UniqueBuyersEstimate estimate = uniqueBuyersTracker.daily(date != null ? date : LocalDate.now());
+            return ResponseEntity.ok(estimate);
+        } catch (IllegalArgumentException e) {
+            dashboardErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error getting daily unique buyers", e);
+            dashboardErrorCounter.increment();
+            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/unique-buyers/monthly")
+    @Timed(value = "dashboard.get.unique.buyers", description = "Time taken to get unique buyer estimates")
+    public ResponseEntity<?> getMonthlyUniqueBuyers(@RequestParam(required = false) String month) {
+        log.info("Get monthly unique buyers endpoint called: {}", month);
+        dashboardRequestCounter.increment();
+        
+        try {
+            YearMonth yearMonth;
+            try {
+                yearMonth = month != null ? YearMonth.parse(month) : YearMonth.now();
+            } catch (Exception e) {
+                dashboardErrorCounter.increment();
+                return ResponseEntity.badRequest().body("Error: Invalid month. Expected format: yyyy-MM");
+            }
+            
+            UniqueBuyersEstimate estimate = uniqueBuyersTracker.monthly(yearMonth);
+            return ResponseEntity.ok(estimate);
+        } catch (IllegalArgumentException e) {
+            dashboardErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error getting monthly unique buyers", e);
+            dashboardErrorCounter.increment();
+            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/unique-buyers/range")
+    @Timed(value = "dashboard.get.unique.buyers", description = "Time taken to get unique buyer estimates")
+    public ResponseEntity<?> getUniqueBuyersInRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Get unique buyers in range endpoint called: {} to {}", from, to);
+        dashboardRequestCounter.increment();
+        
+        try {
+            UniqueBuyersEstimate estimate = uniqueBuyersTracker.range(from, to);
+            return ResponseEntity.ok(estimate);
+        } catch (IllegalArgumentException e) {
+            dashboardErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error getting unique buyers in range", e);
+            dashboardErrorCounter.increment();
+            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/unique-buyers/products/{productId}")
+    @Timed(value = "dashboard.get.unique.buyers", description = "Time taken to get unique buyer estimates")
+    public ResponseEntity<?> getProductUniqueBuyers(@PathVariable Long productId) {
+        log.info("Get product unique buyers endpoint called: {}", productId);
+        dashboardRequestCounter.increment();
+        
+        try {
+            UniqueBuyersEstimate estimate = uniqueBuyersTracker.product(productId);
+            return ResponseEntity.ok(estimate);
+        } catch (Exception e) {
+            log.error("Error getting product unique buyers", e);
+            dashboardErrorCounter.increment();
+            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/unique-buyers/farmers/{farmerId}")
+    @Timed(value = "dashboard.get.unique.buyers", description = "Time taken to get unique buyer estimates")
+    public ResponseEntity<?> getFarmerUniqueBuyers(@PathVariable String farmerId) {
+        log.info("Get farmer unique buyers endpoint called: {}", farmerId);
+        dashboardRequestCounter.increment();
+        
+        try {
+            UniqueBuyersEstimate estimate = uniqueBuyersTracker.farmer(farmerId);
+            return ResponseEntity.ok(estimate);
+        } catch (Exception e) {
+            log.error("Error getting farmer unique buyers", e);
+            dashboardErrorCounter.increment();
+            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDashboard() {
+        log.info("Dashboard stream subscription opened");
+        dashboardRequestCounter.increment();
+        return dashboardStreamPublisher.subscribe();
+    }
+
     // DTO for revenue response
     public static class RevenueResponse {
         private Double totalRevenue;
@@ -6,11 +6,10 @@ import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import uz.javachi.devops_assignment.model.CursorPage;
 import uz.javachi.devops_assignment.model.Notification;
 import uz.javachi.devops_assignment.service.NotificationService;
 
-import java.util.List;
-
 @Slf4j
 @RestController
 @RequestMapping("/api/notifications")
@@ -36,13 +35,18 @@ public class NotificationController {
 
     @GetMapping("/user/{userId}")
     @Timed(value = "notifications.get.byuser", description = "Time taken to get notifications by user")
-    public ResponseEntity<?> getNotificationsByUser(@PathVariable String userId) {
+    public ResponseEntity<?> getNotificationsByUser(@PathVariable String userId,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "50") int limit) {
         log.info("Get notifications by user endpoint called: {}", userId);
         notificationRequestCounter.increment();
         
         try {
-            List<Notification> notifications = notificationService.getNotificationsByUser(userId);
+            CursorPage<Notification> notifications = notificationService.getNotificationsByUser(userId, cursor, limit);
             return ResponseEntity.ok(notifications);
+        } catch (IllegalArgumentException e) {
+            notificationErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         } catch (Exception e) {
             log.error("Error getting notifications", e);
             notificationErrorCounter.increment();
@@ -5,12 +5,22 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uz.javachi.devops_assignment.model.BatchOrderResult;
+import uz.javachi.devops_assignment.model.BulkStatusResult;
+import uz.javachi.devops_assignment.model.CursorPage;
 import uz.javachi.devops_assignment.model.Order;
 import uz.javachi.devops_assignment.model.OrderStatus;
+import uz.javachi.devops_assignment.service.NdjsonExporter;
+import uz.javachi.devops_assignment.service.OrderIdempotency;
 import uz.javachi.devops_assignment.service.OrderService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
@@ -19,11 +29,16 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final NdjsonExporter ndjsonExporter;
+    private final OrderIdempotency orderIdempotency;
     private final Counter orderRequestCounter;
     private final Counter orderErrorCounter;
 
-    public OrderController(OrderService orderService, MeterRegistry meterRegistry) {
+    public OrderController(OrderService orderService, NdjsonExporter ndjsonExporter,
+                           OrderIdempotency orderIdempotency, MeterRegistry meterRegistry) {
         this.orderService = orderService;
+        this.ndjsonExporter = ndjsonExporter;
+        this.orderIdempotency = orderIdempotency;
         
         this.orderRequestCounter = Counter.builder("orders.requests.total")
                 .description("Total number of order API requests")
@@ -38,13 +53,17 @@ public class OrderController {
 
     @GetMapping
     @Timed(value = "orders.get.all", description = "Time taken to get all orders")
-    public ResponseEntity<?> getAllOrders() {
+    public ResponseEntity<?> getAllOrders(@RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "50") int limit) {
         log.info("Get all orders endpoint called");
         orderRequestCounter.increment();
         
         try {
-            List<Order> orders = orderService.getAllOrders();
+            CursorPage<Order> orders = orderService.getOrdersPage(cursor, limit);
             return ResponseEntity.ok(orders);
+        } catch (IllegalArgumentException e) {
+            orderErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         } catch (Exception e) {
             log.error("Error getting orders", e);
             orderErrorCounter.increment();
@@ -52,6 +71,19 @@ public class OrderController {
         }
     }
 
+    // Every order as NDJSON, streamed from a database cursor without buffering the response
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @Timed(value = "orders.export", description = "Time taken to start the order export")
+    public ResponseEntity<StreamingResponseBody> exportOrders() {
+        log.info("Export orders endpoint called");
+        orderRequestCounter.increment();
+        
+        StreamingResponseBody body = ndjsonExporter::exportOrders;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     @Timed(value = "orders.get.byid", description = "Time taken to get order by ID")
     public ResponseEntity<?> getOrderById(@PathVariable Long id) {
@@ -71,15 +103,55 @@ public class OrderController {
         }
     }
 
+    // One buyer's orders created in [from, to), newest first; from defaults to a month before to
+    @GetMapping("/buyer/{buyerId}")
+    @Timed(value = "orders.get.bybuyer", description = "Time taken to get orders by buyer")
+    public ResponseEntity<?> getOrdersByBuyer(
+            @PathVariable String buyerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.info("Get orders by buyer endpoint called: {}", buyerId);
+        orderRequestCounter.increment();
+        
+        try {
+            CursorPage<Order> orders = orderService.getOrdersByBuyer(buyerId, from, to, cursor, limit);
+            return ResponseEntity.ok(orders);
+        } catch (IllegalArgumentException e) {
+            orderErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error getting orders by buyer", e);
+            orderErrorCounter.increment();
+            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+        }
+    }
+
     @PostMapping
     @Timed(value = "orders.create", description = "Time taken to create order")
-    public ResponseEntity<?> createOrder(@Valid @RequestBody Order order) {
+    public ResponseEntity<?> createOrder(@Valid @RequestBody Order order,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         log.info("Create order endpoint called");
         orderRequestCounter.increment();
         
         try {
-            Order created = orderService.createOrder(order);
-            return ResponseEntity.ok(created);
+            if (idempotencyKey == null) {
+                Order created = orderService.createOrder(order);
+                return ResponseEntity.ok(created);
+            }
+            
+            // A retry with the same key gets the first response back instead of a second order
+            OrderIdempotency.Result result = orderIdempotency.createOrder(idempotencyKey, order);
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", String.valueOf(result.replayed()))
+                    .body(result.order());
+        } catch (IllegalArgumentException e) {
+            orderErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            orderErrorCounter.increment();
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error: " + e.getMessage());
         } catch (Exception e) {
             log.error("Error creating order", e);
             orderErrorCounter.increment();
@@ -87,6 +159,25 @@ public class OrderController {
         }
     }
 
+    @PostMapping("/batch")
+    @Timed(value = "orders.create.batch", description = "Time taken to create a batch of orders")
+    public ResponseEntity<?> createOrders(@RequestBody BatchOrderRequest request) {
+        log.info("Create order batch endpoint called");
+        orderRequestCounter.increment();
+        
+        try {
+            BatchOrderResult result = orderService.createOrders(request.getOrders());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            orderErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error creating order batch", e);
+            orderErrorCounter.increment();
+            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}/status")
     @Timed(value = "orders.update.status", description = "Time taken to update order status")
     public ResponseEntity<?> updateOrderStatus(@PathVariable Long id, @RequestBody StatusUpdateRequest request) {
@@ -109,6 +200,9 @@ public class OrderController {
             
             Order updated = orderService.updateOrderStatus(id, status);
             return ResponseEntity.ok(updated);
+        } catch (IllegalArgumentException e) {
+            orderErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         } catch (Exception e) {
             log.error("Error updating order status", e);
             orderErrorCounter.increment();
@@ -116,6 +210,51 @@ public class OrderController {
         }
     }
 
+    @PutMapping("/status")
+    @Timed(value = "orders.update.status.bulk", description = "Time taken to update order statuses in bulk")
+    public ResponseEntity<?> updateOrderStatuses(@RequestBody BulkStatusUpdateRequest request) {
+        log.info("Bulk update order status endpoint called");
+        orderRequestCounter.increment();
+        
+        try {
+            OrderStatus status = parseStatus(request.getStatus());
+            if (status == null) {
+                orderErrorCounter.increment();
+                return ResponseEntity.badRequest().body("Error: Invalid status. Valid values are: PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED");
+            }
+            OrderStatus fromStatus = null;
+            if (request.getFromStatus() != null) {
+                fromStatus = parseStatus(request.getFromStatus());
+                if (fromStatus == null) {
+                    orderErrorCounter.increment();
+                    return ResponseEntity.badRequest().body("Error: Invalid fromStatus. Valid values are: PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED");
+                }
+            }
+            
+            BulkStatusResult result = orderService.updateOrderStatuses(request.getIds(), fromStatus,
+                    request.getProductId(), request.getBuyerId(), status);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            orderErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error updating order statuses", e);
+            orderErrorCounter.increment();
+            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+        }
+    }
+
+    private static OrderStatus parseStatus(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return OrderStatus.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     // DTO for status update request
     public static class StatusUpdateRequest {
         private String status;
@@ -128,4 +267,66 @@ public class OrderController {
             this.status = status;
         }
     }
+
+    // DTO for batch order request
+    public static class BatchOrderRequest {
+        private List<Order> orders;
+
+        public List<Order> getOrders() {
+            return orders;
+        }
+
+        public void setOrders(List<Order> orders) {
+            this.orders = orders;
+        }
+    }
+
+    // DTO for bulk status update: either ids, or a filter of fromStatus, productId and buyerId
+    public static class BulkStatusUpdateRequest {
+        private List<Long> ids;
+        private String fromStatus;
+        private Long productId;
+        private String buyerId;
+        private String status;
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public void setIds(List<Long> ids) {
+            this.ids = ids;
+        }
+
+        public String getFromStatus() {
+            return fromStatus;
+        }
+
+        public void setFromStatus(String fromStatus) {
+            this.fromStatus = fromStatus;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public void setProductId(Long productId) {
+            this.productId = productId;
+        }
+
+        public String getBuyerId() {
+            return buyerId;
+        }
+
+        public void setBuyerId(String buyerId) {
+            this.buyerId = buyerId;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+    }
 }
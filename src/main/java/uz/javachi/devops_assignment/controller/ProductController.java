@@ -5,11 +5,25 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uz.javachi.devops_assignment.model.CursorPage;
+import uz.javachi.devops_assignment.model.Order;
 import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.model.ProductSearchResult;
+import uz.javachi.devops_assignment.service.NdjsonExporter;
+import uz.javachi.devops_assignment.service.OrderService;
+import uz.javachi.devops_assignment.service.ProductCatalogSnapshot;
+import uz.javachi.devops_assignment.service.ProductSearchIndex;
 import uz.javachi.devops_assignment.service.ProductService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
@@ -18,11 +32,22 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final NdjsonExporter ndjsonExporter;
+    private final OrderService orderService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCatalogSnapshot productCatalogSnapshot;
     private final Counter productRequestCounter;
     private final Counter productErrorCounter;
+    private final Counter catalogNotModifiedCounter;
 
-    public ProductController(ProductService productService, MeterRegistry meterRegistry) {
+    public ProductController(ProductService productService, NdjsonExporter ndjsonExporter,
+                             OrderService orderService, ProductSearchIndex productSearchIndex,
+                             ProductCatalogSnapshot productCatalogSnapshot, MeterRegistry meterRegistry) {
         this.productService = productService;
+        this.ndjsonExporter = ndjsonExporter;
+        this.orderService = orderService;
+        this.productSearchIndex = productSearchIndex;
+        this.productCatalogSnapshot = productCatalogSnapshot;
         
         this.productRequestCounter = Counter.builder("products.requests.total")
                 .description("Total number of product API requests")
@@ -33,17 +58,26 @@ public class ProductController {
                 .description("Total number of product API errors")
                 .tag("api", "products")
                 .register(meterRegistry);
+
+        this.catalogNotModifiedCounter = Counter.builder("products.catalog.not.modified")
+                .description("Catalog requests answered 304 because the client's copy is current")
+                .tag("api", "products")
+                .register(meterRegistry);
     }
 
     @GetMapping
     @Timed(value = "products.get.all", description = "Time taken to get all products")
-    public ResponseEntity<?> getAllProducts() {
+    public ResponseEntity<?> getAllProducts(@RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "50") int limit) {
         log.info("Get all products endpoint called");
         productRequestCounter.increment();
         
         try {
-            List<Product> products = productService.getAllProducts();
+            CursorPage<Product> products = productService.getProductsPage(cursor, limit);
             return ResponseEntity.ok(products);
+        } catch (IllegalArgumentException e) {
+            productErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         } catch (Exception e) {
             log.error("Error getting products", e);
             productErrorCounter.increment();
@@ -51,6 +85,74 @@ public class ProductController {
         }
     }
 
+    // Every product as NDJSON, streamed from a database cursor without buffering the response
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @Timed(value = "products.export", description = "Time taken to start the product export")
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        log.info("Export products endpoint called");
+        productRequestCounter.increment();
+        
+        StreamingResponseBody body = ndjsonExporter::exportProducts;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    // Every product as one JSON array, served from a pre-serialized snapshot; clients revalidate with If-None-Match
+    @GetMapping("/catalog")
+    @Timed(value = "products.catalog", description = "Time taken to serve the product catalog")
+    public ResponseEntity<?> getCatalog(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.debug("Get product catalog endpoint called");
+        productRequestCounter.increment();
+        
+        try {
+            ProductCatalogSnapshot.Snapshot snapshot = productCatalogSnapshot.current();
+            boolean gzip = snapshot.gzip() != null && acceptsGzip(acceptEncoding);
+            String etag = gzip ? snapshot.gzipEtag() : snapshot.etag();
+            // no-cache: clients may keep the body but must revalidate, which is the cheap 304 below
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING);
+            
+            if (ProductCatalogSnapshot.Snapshot.matches(ifNoneMatch, etag)) {
+                catalogNotModifiedCounter.increment();
+                return response.status(HttpStatus.NOT_MODIFIED).build();
+            }
+            if (gzip) {
+                response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            return response.contentType(MediaType.APPLICATION_JSON)
+                    .body(gzip ? snapshot.gzip() : snapshot.json());
+        } catch (Exception e) {
+            log.error("Error getting product catalog", e);
+            productErrorCounter.increment();
+            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+        }
+    }
+
+    // Full-text search over name, category and description, answered from the in-memory index
+    @GetMapping("/search")
+    @Timed(value = "products.search", description = "Time taken to search products")
+    public ResponseEntity<?> searchProducts(@RequestParam String q,
+                                            @RequestParam(defaultValue = "20") int limit) {
+        log.info("Search products endpoint called");
+        productRequestCounter.increment();
+        
+        try {
+            ProductSearchResult result = productSearchIndex.search(q, limit);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            productErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error searching products", e);
+            productErrorCounter.increment();
+            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     @Timed(value = "products.get.byid", description = "Time taken to get product by ID")
     public ResponseEntity<?> getProductById(@PathVariable Long id) {
@@ -70,6 +172,31 @@ public class ProductController {
         }
     }
 
+    // Orders for the product created in [from, to), newest first; from defaults to a month before to
+    @GetMapping("/{id}/orders")
+    @Timed(value = "products.get.orders", description = "Time taken to get orders for a product")
+    public ResponseEntity<?> getProductOrders(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.info("Get orders for product endpoint called: {}", id);
+        productRequestCounter.increment();
+        
+        try {
+            CursorPage<Order> orders = orderService.getOrdersByProduct(id, from, to, cursor, limit);
+            return ResponseEntity.ok(orders);
+        } catch (IllegalArgumentException e) {
+            productErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error getting orders for product", e);
+            productErrorCounter.increment();
+            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
+        }
+    }
+
     @PostMapping
     @Timed(value = "products.create", description = "Time taken to create product")
     public ResponseEntity<?> createProduct(@Valid @RequestBody Product product) {
@@ -150,6 +277,26 @@ public class ProductController {
         }
     }
 
+    // gzip is acceptable unless the header is missing or gives it q=0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].trim().replace(" ", "");
+                    if (param.matches("q=0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
     // DTO for price update request
     public static class PriceUpdateRequest {
         @jakarta.validation.constraints.NotNull(message = "Price is required")
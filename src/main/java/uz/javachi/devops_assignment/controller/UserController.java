@@ -7,11 +7,10 @@ import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import uz.javachi.devops_assignment.model.CursorPage;
 import uz.javachi.devops_assignment.model.User;
 import uz.javachi.devops_assignment.service.UserService;
 
-import java.util.List;
-
 @Slf4j
 @RestController
 @RequestMapping("/api/users")
@@ -45,13 +44,17 @@ public class UserController {
 
     @GetMapping
     @Timed(value = "users.get.all", description = "Time taken to get all users")
-    public ResponseEntity<?> getAllUsers() {
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "50") int limit) {
         log.info("Get all users endpoint called");
         userRequestCounter.increment();
         
         try {
-            List<User> users = userService.getAllUsers();
+            CursorPage<User> users = userService.getUsersPage(cursor, limit);
             return ResponseEntity.ok(users);
+        } catch (IllegalArgumentException e) {
+            userErrorCounter.increment();
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         } catch (Exception e) {
             log.error("Error getting users", e);
             userErrorCounter.increment();
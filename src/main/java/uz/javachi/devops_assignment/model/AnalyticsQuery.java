@@ -0,0 +1,34 @@
+package uz.javachi.devops_assignment.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class AnalyticsQuery {
+    // Dimensions: productId, buyerId, farmerId, category, status, day; measures: quantity, revenue
+    private List<Filter> filters = new ArrayList<>();
+    private List<String> groupBy = new ArrayList<>();
+    private List<Metric> metrics = new ArrayList<>();
+    private Integer limit;
+
+    @Getter
+    @Setter
+    public static class Filter {
+        private String field;
+        // eq, ne, in, gte, lte
+        private String op;
+        private List<String> values = new ArrayList<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Metric {
+        // count, sum, avg, min, max
+        private String op;
+        private String field;
+    }
+}
@@ -0,0 +1,23 @@
+package uz.javachi.devops_assignment.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+public class AnalyticsResult {
+    private List<String> groupBy;
+    private List<Row> rows;
+    private Long scannedRows;
+    private Long elapsedMicros;
+
+    @Getter
+    @Setter
+    public static class Row {
+        private Map<String, Object> group;
+        private Map<String, Double> values;
+    }
+}
@@ -0,0 +1,26 @@
+package uz.javachi.devops_assignment.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BatchOrderResult {
+    private Integer requested;
+    private Integer created;
+    private Integer rejected;
+    // One entry per submitted line, in submission order
+    private List<Line> lines;
+
+    @Getter
+    @Setter
+    public static class Line {
+        private Integer index;
+        private Long productId;
+        private boolean success;
+        private Order order;
+        private String error;
+    }
+}
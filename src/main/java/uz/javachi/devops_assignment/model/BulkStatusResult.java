@@ -0,0 +1,15 @@
+package uz.javachi.devops_assignment.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BulkStatusResult {
+    private OrderStatus status;
+    // Orders named by the ids, or matched by the filter
+    private Long matched;
+    private Long applied;
+    // Missing orders and orders whose current status cannot move to the target
+    private Long rejected;
+}
@@ -0,0 +1,41 @@
+package uz.javachi.devops_assignment.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "buyer_sketches",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"sketch_scope", "sketch_key"}))
+public class BuyerSketch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "sketch_scope", nullable = false)
+    private UniqueBuyersScope scope;
+
+    @Column(name = "sketch_key", nullable = false)
+    private String sketchKey;
+
+    @Column(name = "hll_precision", nullable = false)
+    private Integer precision;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] registers;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
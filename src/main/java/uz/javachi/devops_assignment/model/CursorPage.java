@@ -0,0 +1,50 @@
+package uz.javachi.devops_assignment.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Getter
+@Setter
+public class CursorPage<T> {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private List<T> items;
+    private Integer limit;
+    // Opaque cursor for the following page; null on the last page
+    private String next;
+
+    /**
+     * Builds a page from a query that fetched up to {@code limit + 1} rows; the extra row is
+     * not returned, it only shows that another page exists.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, PageCursor> cursorOf) {
+        return of(rows, limit, cursorOf, PageCursor::encode);
+    }
+
+    /**
+     * As {@link #of(List, int, Function)}, with the cursor turned into a string by {@code encoder}.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, PageCursor> cursorOf,
+                                       Function<PageCursor, String> encoder) {
+        CursorPage<T> page = new CursorPage<>();
+        page.setLimit(limit);
+        if (rows.size() > limit) {
+            List<T> items = rows.subList(0, limit);
+            page.setItems(items);
+            page.setNext(encoder.apply(cursorOf.apply(items.get(limit - 1))));
+        } else {
+            page.setItems(rows);
+        }
+        return page;
+    }
+
+    public static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package uz.javachi.devops_assignment.model;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Getter
@@ -14,6 +15,9 @@ public class DashboardStats {
     private Long dailyOrders;
     private Double totalRevenue;
     private List<PopularProduct> popularProducts;
+    private LocalDateTime generatedAt;
+    // Fields left empty because their sub-query failed or missed its deadline
+    private List<String> partialFields;
     
     @Getter
     @Setter
@@ -21,6 +25,8 @@ public class DashboardStats {
         private Long productId;
         private String productName;
         private Long orderCount;
+        // Upper bound on how much orderCount may be overestimated; absent for exact results
+        private Long orderCountError;
         private Double totalRevenue;
     }
 }
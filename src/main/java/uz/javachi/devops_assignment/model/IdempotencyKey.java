@@ -0,0 +1,30 @@
+package uz.javachi.devops_assignment.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+public class IdempotencyKey {
+    @Id
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+    
+    // Identifies the request the key was first used with, so it cannot be replayed for a different one
+    private String fingerprint;
+    
+    // NULL only while the creating transaction is still open
+    @Column(name = "order_id")
+    private Long orderId;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+}
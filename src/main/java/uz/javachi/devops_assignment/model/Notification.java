@@ -9,7 +9,11 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_user_sent_at_id", columnList = "user_id, sent_at, id"),
+        @Index(name = "idx_notifications_user_read", columnList = "user_id, read"),
+        @Index(name = "idx_notifications_order_id", columnList = "order_id")
+})
 public class Notification {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,5 +1,6 @@
 package uz.javachi.devops_assignment.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
@@ -13,7 +14,13 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_stock_pending", columnList = "stock_pending"),
+        @Index(name = "idx_orders_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_orders_status_created_at", columnList = "status, created_at"),
+        @Index(name = "idx_orders_buyer_created_at", columnList = "buyer_id, created_at, id"),
+        @Index(name = "idx_orders_product_created_at", columnList = "product_id, created_at, id")
+})
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -44,6 +51,11 @@ public class Order {
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private LocalDateTime createdAt;
     
+    // TRUE until the order's quantity has been written back to products.quantity, NULL afterwards
+    @JsonIgnore
+    @Column(name = "stock_pending")
+    private Boolean stockPending;
+    
     @PrePersist
     protected void onCreate() {
         // Always set createdAt to current time (ignore any value from POST request)
@@ -0,0 +1,24 @@
+package uz.javachi.devops_assignment.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class OrderPercentiles {
+    // Absent for the all-products summary
+    private Long productId;
+    private Long orderCount;
+    private Distribution orderValue;
+    private Distribution quantity;
+
+    @Getter
+    @Setter
+    public static class Distribution {
+        private Double min;
+        private Double p50;
+        private Double p90;
+        private Double p99;
+        private Double max;
+    }
+}
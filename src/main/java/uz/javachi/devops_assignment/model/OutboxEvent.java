@@ -0,0 +1,59 @@
+package uz.javachi.devops_assignment.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A side effect recorded in the same transaction as the change that caused it, and carried
+ * out later by the outbox relay.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_events_pending", columnList = "processed_at, available_at"))
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxEventType type;
+    
+    // Order id for ORDER_CREATED, product id for PRICE_CHANGED
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+    
+    // JSON for the data the aggregate id alone does not give back
+    @Column(length = 16384)
+    private String payload;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    // Earliest time the relay may pick the event up; NULL once it has given up retrying
+    @Column(name = "available_at")
+    private LocalDateTime availableAt;
+    
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+    
+    private Integer attempts = 0;
+    
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (availableAt == null) {
+            availableAt = createdAt;
+        }
+        if (attempts == null) {
+            attempts = 0;
+        }
+    }
+}
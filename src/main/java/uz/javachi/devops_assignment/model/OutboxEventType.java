@@ -0,0 +1,7 @@
+package uz.javachi.devops_assignment.model;
+
+public enum OutboxEventType {
+    ORDER_CREATED,
+    ORDER_BATCH_CREATED,
+    PRICE_CHANGED
+}
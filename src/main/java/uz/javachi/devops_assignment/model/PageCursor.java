@@ -0,0 +1,128 @@
+package uz.javachi.devops_assignment.model;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a page in (created_at, id) descending order. Clients get it as
+ * an opaque base64url string and send it back unchanged to fetch the next page.
+ *
+ * <p>{@link #encode()} only encodes. Where the id must not be readable by clients, as with user
+ * uuids, {@link #encrypt} seals the cursor with AES-GCM instead, which also rejects tampering.
+ *
+ * <p>{@code windowStart}, when set, is the lower bound of the time window the pages are drawn
+ * from, so a default window computed for the first page stays fixed for the pages after it.
+ */
+public record PageCursor(LocalDateTime createdAt, String id, LocalDateTime windowStart) {
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public PageCursor(LocalDateTime createdAt, String id) {
+        this(createdAt, id, null);
+    }
+
+    public static PageCursor of(LocalDateTime createdAt, Object id) {
+        return new PageCursor(createdAt, String.valueOf(id));
+    }
+
+    public static PageCursor of(LocalDateTime createdAt, Object id, LocalDateTime windowStart) {
+        return new PageCursor(createdAt, String.valueOf(id), windowStart);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value was not produced by {@link #encode()}
+     */
+    public static PageCursor decode(String value) {
+        try {
+            return parse(Base64.getUrlDecoder().decode(value));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+    }
+
+    public String encrypt(SecretKey key) {
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            RANDOM.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            byte[] sealed = cipher.doFinal(raw());
+            byte[] value = ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot encrypt cursor", e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value was not produced by {@link #encrypt} with this key
+     */
+    public static PageCursor decrypt(String value, SecretKey key) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(value);
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_BYTES));
+            return parse(cipher.doFinal(bytes, IV_BYTES, bytes.length - IV_BYTES));
+        } catch (GeneralSecurityException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+    }
+
+    /**
+     * An AES key derived from {@code secret}, or a random one if it is blank. Cursors sealed
+     * with a random key are only valid on the instance that issued them, until it restarts.
+     */
+    public static SecretKey keyFrom(String secret) {
+        try {
+            if (secret == null || secret.isBlank()) {
+                KeyGenerator generator = KeyGenerator.getInstance("AES");
+                generator.init(256, RANDOM);
+                return generator.generateKey();
+            }
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            return new SecretKeySpec(digest, "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Long longId() {
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor id: " + id);
+        }
+    }
+
+    // Ids are numbers or uuids, so they never contain the separator
+    private byte[] raw() {
+        String raw = createdAt + "|" + id + (windowStart != null ? "|" + windowStart : "");
+        return raw.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static PageCursor parse(byte[] bytes) {
+        String[] parts = new String(bytes, StandardCharsets.UTF_8).split("\\|", -1);
+        if (parts.length < 2 || parts.length > 3) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new PageCursor(LocalDateTime.parse(parts[0]), parts[1],
+                parts.length == 3 ? LocalDateTime.parse(parts[2]) : null);
+    }
+}
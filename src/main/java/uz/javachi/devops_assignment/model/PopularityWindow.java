@@ -0,0 +1,7 @@
+package uz.javachi.devops_assignment.model;
+
+public enum PopularityWindow {
+    ALL_TIME,
+    LAST_24H,
+    LAST_HOUR
+}
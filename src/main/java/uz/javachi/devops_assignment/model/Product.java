@@ -14,7 +14,11 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_products_farmer_id", columnList = "farmer_id"),
+        @Index(name = "idx_products_category", columnList = "category")
+})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -47,6 +51,12 @@ public class Product {
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private LocalDateTime updatedAt;
     
+    // Optimistic lock; stock write-backs bump it too so a concurrent edit cannot overwrite them
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+    
     @PrePersist
     protected void onCreate() {
         // Always set createdAt to current time (ignore any value from POST request)
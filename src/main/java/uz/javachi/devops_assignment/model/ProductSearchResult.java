@@ -0,0 +1,23 @@
+package uz.javachi.devops_assignment.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class ProductSearchResult {
+    private String query;
+    // Products matching every term, of which the best-ranked are in hits
+    private Integer totalMatches;
+    private Long tookMicros;
+    private List<Hit> hits;
+
+    @Getter
+    @Setter
+    public static class Hit {
+        private Product product;
+        private Double score;
+    }
+}
@@ -0,0 +1,17 @@
+package uz.javachi.devops_assignment.model;
+
+public enum TimeGranularity {
+    MINUTE(60),
+    HOUR(3600),
+    DAY(86400);
+
+    private final long seconds;
+
+    TimeGranularity(long seconds) {
+        this.seconds = seconds;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+}
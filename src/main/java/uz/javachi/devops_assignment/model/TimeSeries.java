@@ -0,0 +1,24 @@
+package uz.javachi.devops_assignment.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+public class TimeSeries {
+    private TimeGranularity granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<Point> points;
+
+    @Getter
+    @Setter
+    public static class Point {
+        private LocalDateTime bucketStart;
+        private Long orderCount;
+        private Double revenue;
+    }
+}
@@ -0,0 +1,14 @@
+package uz.javachi.devops_assignment.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class UniqueBuyersEstimate {
+    private UniqueBuyersScope scope;
+    private String key;
+    private Long uniqueBuyers;
+    private Integer precision;
+    private Double relativeStandardError;
+}
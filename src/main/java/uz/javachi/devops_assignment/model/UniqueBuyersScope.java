@@ -0,0 +1,9 @@
+package uz.javachi.devops_assignment.model;
+
+public enum UniqueBuyersScope {
+    DAY,
+    MONTH,
+    RANGE,
+    PRODUCT,
+    FARMER
+}
@@ -13,7 +13,7 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_created_at_uuid", columnList = "created_at, uuid"))
 @JsonIgnoreProperties(value = {"uuid"}, allowSetters = false)
 public class User {
     @Id
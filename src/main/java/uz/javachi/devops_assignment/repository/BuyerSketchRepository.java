@@ -0,0 +1,18 @@
+package uz.javachi.devops_assignment.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import uz.javachi.devops_assignment.model.BuyerSketch;
+import uz.javachi.devops_assignment.model.UniqueBuyersScope;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface BuyerSketchRepository extends JpaRepository<BuyerSketch, Long> {
+    Optional<BuyerSketch> findByScopeAndSketchKey(UniqueBuyersScope scope, String sketchKey);
+
+    @Query("SELECT MAX(b.updatedAt) FROM BuyerSketch b")
+    LocalDateTime findLastUpdatedAt();
+}
@@ -0,0 +1,34 @@
+package uz.javachi.devops_assignment.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import uz.javachi.devops_assignment.model.IdempotencyKey;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    // A plain INSERT, not save(): with an assigned id save() merges, and a concurrent
+    // duplicate has to fail on the primary key instead
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, fingerprint, created_at, expires_at) " +
+                   "VALUES (:key, :fingerprint, :createdAt, :expiresAt)", nativeQuery = true)
+    int insert(@Param("key") String key, @Param("fingerprint") String fingerprint,
+               @Param("createdAt") LocalDateTime createdAt, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.orderId = :orderId WHERE k.idempotencyKey = :key")
+    int attachOrder(@Param("key") String key, @Param("orderId") Long orderId);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.idempotencyKey = :key AND k.expiresAt < :now")
+    int deleteIfExpired(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,9 +1,13 @@
 package uz.javachi.devops_assignment.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import uz.javachi.devops_assignment.model.Notification;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -11,4 +15,13 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     List<Notification> findByUserId(String userId);
     List<Notification> findByUserIdAndRead(String userId, Boolean read);
     List<Notification> findByOrderId(Long orderId);
+
+    // Keyset pages of one user's notifications, newest first
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId ORDER BY n.sentAt DESC, n.id DESC")
+    List<Notification> findPageByUserId(@Param("userId") String userId, Limit limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.sentAt <= :sentAt " +
+           "AND (n.sentAt < :sentAt OR n.id < :id) ORDER BY n.sentAt DESC, n.id DESC")
+    List<Notification> findPageByUserIdBefore(@Param("userId") String userId, @Param("sentAt") LocalDateTime sentAt,
+                                              @Param("id") Long id, Limit limit);
 }
@@ -0,0 +1,63 @@
+package uz.javachi.devops_assignment.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import uz.javachi.devops_assignment.model.Order;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Multi-row order inserts. Order ids are IDENTITY generated, which stops Hibernate
+ * from batching inserts, so batches go through a single JDBC statement instead and
+ * the generated ids are copied back onto the entities.
+ */
+@Repository
+public class OrderBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO orders (product_id, buyer_id, quantity, total_price, status, created_at, stock_pending) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the orders in one JDBC batch. Must run inside the caller's transaction.
+     */
+    public void insertAll(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, new String[] {"id"})) {
+                for (Order order : orders) {
+                    statement.setLong(1, order.getProductId());
+                    statement.setString(2, order.getBuyerId());
+                    statement.setInt(3, order.getQuantity());
+                    statement.setDouble(4, order.getTotalPrice());
+                    statement.setString(5, order.getStatus().name());
+                    statement.setTimestamp(6, Timestamp.valueOf(order.getCreatedAt()));
+                    statement.setObject(7, order.getStockPending());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Order order : orders) {
+                        if (!keys.next()) {
+                            throw new IllegalStateException("Missing generated id for batched order");
+                        }
+                        order.setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
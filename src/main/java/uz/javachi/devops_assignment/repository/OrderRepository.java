@@ -1,15 +1,190 @@
 package uz.javachi.devops_assignment.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import uz.javachi.devops_assignment.model.Order;
 import uz.javachi.devops_assignment.model.OrderStatus;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByBuyerId(String buyerId);
     List<Order> findByProductId(Long productId);
     List<Order> findByStatus(OrderStatus status);
+
+    // Keyset pages, newest first; the cursor bounds created_at so (created_at, id) is range-scanned
+    @Query("SELECT o FROM Order o ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPage(Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE o.createdAt <= :createdAt " +
+           "AND (o.createdAt < :createdAt OR o.id < :id) ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    // One buyer's or product's history from :from onwards, newest first, as a range scan of
+    // (buyer_id, created_at, id) or (product_id, created_at, id); the cursor form also serves
+    // an exclusive upper time bound
+    @Query("SELECT o FROM Order o WHERE o.buyerId = :buyerId AND o.createdAt >= :from " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findBuyerPage(@Param("buyerId") String buyerId, @Param("from") LocalDateTime from, Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE o.buyerId = :buyerId AND o.createdAt >= :from " +
+           "AND o.createdAt <= :createdAt AND (o.createdAt < :createdAt OR o.id < :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findBuyerPageBefore(@Param("buyerId") String buyerId, @Param("from") LocalDateTime from,
+                                    @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE o.productId = :productId AND o.createdAt >= :from " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findProductPage(@Param("productId") Long productId, @Param("from") LocalDateTime from, Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE o.productId = :productId AND o.createdAt >= :from " +
+           "AND o.createdAt <= :createdAt AND (o.createdAt < :createdAt OR o.id < :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findProductPageBefore(@Param("productId") Long productId, @Param("from") LocalDateTime from,
+                                      @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    // Entity stream for the NDJSON export; rows arrive from the driver in fetch-size chunks
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT o FROM Order o ORDER BY o.id")
+    Stream<Order> streamAll();
+
+    long countByCreatedAtGreaterThanEqual(LocalDateTime since);
+
+    @Query("SELECT COALESCE(SUM(o.totalPrice), 0) FROM Order o")
+    Double sumTotalPrice();
+
+    @Query("SELECT o.productId AS productId, p.name AS productName, " +
+           "COUNT(o) AS orderCount, COALESCE(SUM(o.totalPrice), 0) AS totalRevenue " +
+           "FROM Order o JOIN Product p ON p.id = o.productId " +
+           "GROUP BY o.productId, p.name ORDER BY COUNT(o) DESC")
+    List<ProductOrderSummary> findProductOrderSummaries(Limit limit);
+
+    @Query("SELECT o.productId AS productId, p.name AS productName, " +
+           "COUNT(o) AS orderCount, COALESCE(SUM(o.totalPrice), 0) AS totalRevenue " +
+           "FROM Order o JOIN Product p ON p.id = o.productId WHERE o.createdAt >= :since " +
+           "GROUP BY o.productId, p.name ORDER BY COUNT(o) DESC")
+    List<ProductOrderSummary> findProductOrderSummariesSince(@Param("since") LocalDateTime since, Limit limit);
+
+    @Query("SELECT o.status AS status, COUNT(o) AS orderCount FROM Order o GROUP BY o.status")
+    List<StatusOrderCount> countGroupByStatus();
+
+    @Query("SELECT CAST(o.createdAt AS LocalDate) AS day, COUNT(o) AS orderCount FROM Order o " +
+           "WHERE o.createdAt >= :since GROUP BY CAST(o.createdAt AS LocalDate)")
+    List<DailyOrderCount> countGroupByDaySince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT o.productId AS productId, o.createdAt AS createdAt, o.totalPrice AS totalPrice " +
+           "FROM Order o WHERE o.createdAt >= :since")
+    List<OrderValue> findOrderValuesSince(@Param("since") LocalDateTime since);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT o.productId AS productId, o.createdAt AS createdAt, o.totalPrice AS totalPrice " +
+           "FROM Order o WHERE o.createdAt >= :since")
+    Stream<OrderValue> streamOrderValuesSince(@Param("since") LocalDateTime since);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT o.id AS id, o.productId AS productId, o.buyerId AS buyerId, o.quantity AS quantity, " +
+           "o.totalPrice AS totalPrice, o.status AS status, o.createdAt AS createdAt, " +
+           "p.farmerId AS farmerId, p.category AS category " +
+           "FROM Order o LEFT JOIN Product p ON p.id = o.productId ORDER BY o.id")
+    Stream<OrderFact> streamOrderFacts();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT o.id AS id, o.productId AS productId, o.buyerId AS buyerId, o.quantity AS quantity, " +
+           "o.totalPrice AS totalPrice, o.status AS status, o.createdAt AS createdAt, " +
+           "p.farmerId AS farmerId, p.category AS category " +
+           "FROM Order o LEFT JOIN Product p ON p.id = o.productId WHERE o.createdAt >= :since")
+    Stream<OrderFact> streamOrderFactsSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT o.id AS id, o.productId AS productId, o.quantity AS quantity " +
+           "FROM Order o WHERE o.stockPending = true ORDER BY o.id")
+    List<PendingStock> findPendingStock(Limit limit);
+
+    @Query("SELECT o.id AS id, o.productId AS productId, o.quantity AS quantity " +
+           "FROM Order o WHERE o.productId = :productId AND o.stockPending = true")
+    List<PendingStock> findPendingStockForProduct(@Param("productId") Long productId);
+
+    // Set-based status transitions, one statement per allowed source status
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :target WHERE o.id IN :ids AND o.status = :from")
+    int updateStatusByIds(@Param("ids") Collection<Long> ids, @Param("from") OrderStatus from,
+                          @Param("target") OrderStatus target);
+
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :ids AND o.status = :status")
+    List<Long> findIdsByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") OrderStatus status);
+
+    // Keyset-paged by id, so a filtered bulk transition handles the matching orders a chunk at a time
+    @Query("SELECT o.id FROM Order o WHERE (:status IS NULL OR o.status = :status) AND o.id > :afterId " +
+           "AND (:productId IS NULL OR o.productId = :productId) AND (:buyerId IS NULL OR o.buyerId = :buyerId) " +
+           "ORDER BY o.id")
+    List<Long> findIdsWhere(@Param("status") OrderStatus status, @Param("productId") Long productId,
+                            @Param("buyerId") String buyerId, @Param("afterId") Long afterId, Limit limit);
+
+    // Finished orders old enough for the archive; rows still owing stock writes stay until flushed
+    @Query("SELECT o FROM Order o WHERE o.status IN :statuses AND o.createdAt < :before " +
+           "AND o.stockPending IS NULL ORDER BY o.id")
+    List<Order> findArchivable(@Param("statuses") Collection<OrderStatus> statuses,
+                               @Param("before") LocalDateTime before, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM Order o WHERE o.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    boolean existsByIdIn(Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.stockPending = null WHERE o.id IN :ids")
+    int clearStockPending(@Param("ids") Collection<Long> ids);
+
+    interface ProductOrderSummary {
+        Long getProductId();
+        String getProductName();
+        Long getOrderCount();
+        Double getTotalRevenue();
+    }
+
+    interface StatusOrderCount {
+        OrderStatus getStatus();
+        Long getOrderCount();
+    }
+
+    interface DailyOrderCount {
+        LocalDate getDay();
+        Long getOrderCount();
+    }
+
+    interface OrderValue {
+        Long getProductId();
+        LocalDateTime getCreatedAt();
+        Double getTotalPrice();
+    }
+
+    interface PendingStock {
+        Long getId();
+        Long getProductId();
+        Integer getQuantity();
+    }
+
+    interface OrderFact {
+        Long getId();
+        Long getProductId();
+        String getBuyerId();
+        Integer getQuantity();
+        Double getTotalPrice();
+        OrderStatus getStatus();
+        LocalDateTime getCreatedAt();
+        String getFarmerId();
+        String getCategory();
+    }
 }
@@ -0,0 +1,18 @@
+package uz.javachi.devops_assignment.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import uz.javachi.devops_assignment.model.OrderRollup;
+import uz.javachi.devops_assignment.model.TimeGranularity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderRollupRepository extends JpaRepository<OrderRollup, Long> {
+    Optional<OrderRollup> findByGranularityAndBucketStart(TimeGranularity granularity, LocalDateTime bucketStart);
+    List<OrderRollup> findByGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+            TimeGranularity granularity, LocalDateTime from, LocalDateTime to);
+    Optional<OrderRollup> findFirstByGranularityOrderByBucketStartDesc(TimeGranularity granularity);
+}
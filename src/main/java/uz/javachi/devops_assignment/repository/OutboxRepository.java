@@ -0,0 +1,40 @@
+package uz.javachi.devops_assignment.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import uz.javachi.devops_assignment.model.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Rows stay locked until the claiming transaction ends. A lock timeout of -2 is Hibernate's
+    // SKIP LOCKED, so concurrent relays take disjoint batches; dialects without it fall back to FOR UPDATE
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.processedAt IS NULL AND e.availableAt <= :now ORDER BY e.id")
+    List<OutboxEvent> claimPending(@Param("now") LocalDateTime now, Limit limit);
+
+    // Backlog figures for the relay's gauges, both answered from idx_outbox_events_pending
+    long countByProcessedAtIsNullAndAvailableAtIsNotNull();
+
+    long countByProcessedAtIsNullAndAvailableAtIsNull();
+
+    Optional<OutboxEvent> findFirstByProcessedAtIsNullAndAvailableAtIsNotNullOrderByIdAsc();
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
@@ -1,13 +1,61 @@
 package uz.javachi.devops_assignment.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import uz.javachi.devops_assignment.model.Product;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByFarmerId(String farmerId);
     List<Product> findByCategory(String category);
+
+    // Keyset pages, newest first
+    @Query("SELECT p FROM Product p ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findPage(Limit limit);
+
+    @Query("SELECT p FROM Product p WHERE p.createdAt <= :createdAt " +
+           "AND (p.createdAt < :createdAt OR p.id < :id) ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findPageBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    // Entity stream for the NDJSON export; rows arrive from the driver in fetch-size chunks
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAll();
+
+    // Persisted stock minus orders whose quantity has not been written back yet, read in one statement
+    @Query("SELECT p.id AS productId, p.quantity - COALESCE((SELECT SUM(o.quantity) FROM Order o " +
+           "WHERE o.productId = p.id AND o.stockPending = true), 0) AS available " +
+           "FROM Product p WHERE p.id = :id")
+    Optional<AvailableStock> findAvailableStock(@Param("id") Long id);
+
+    @Query("SELECT p.id AS productId, p.quantity - COALESCE((SELECT SUM(o.quantity) FROM Order o " +
+           "WHERE o.productId = p.id AND o.stockPending = true), 0) AS available FROM Product p")
+    List<AvailableStock> findAllAvailableStock();
+
+    // Single-statement guarded decrement: updates nothing rather than driving stock negative
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = p.quantity - :amount, p.version = p.version + 1 " +
+           "WHERE p.id = :id AND p.quantity >= :amount")
+    int decrementQuantityIfAvailable(@Param("id") Long id, @Param("amount") Integer amount);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = 0, p.version = p.version + 1 WHERE p.id = :id AND p.quantity > 0")
+    int clearQuantity(@Param("id") Long id);
+
+    interface AvailableStock {
+        Long getProductId();
+        Long getAvailable();
+    }
 }
@@ -1,13 +1,26 @@
 package uz.javachi.devops_assignment.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import uz.javachi.devops_assignment.model.User;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    // Keyset pages, newest first
+    @Query("SELECT u FROM User u ORDER BY u.createdAt DESC, u.uuid DESC")
+    List<User> findPage(Limit limit);
+
+    @Query("SELECT u FROM User u WHERE u.createdAt <= :createdAt " +
+           "AND (u.createdAt < :createdAt OR u.uuid < :uuid) ORDER BY u.createdAt DESC, u.uuid DESC")
+    List<User> findPageBefore(@Param("createdAt") LocalDateTime createdAt, @Param("uuid") String uuid, Limit limit);
 }
@@ -0,0 +1,264 @@
+package uz.javachi.devops_assignment.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import uz.javachi.devops_assignment.model.DashboardStats;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OrderStatus;
+import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+import uz.javachi.devops_assignment.repository.ProductRepository;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Running dashboard totals maintained on every order write, so dashboard reads
+ * never have to scan the orders table. Rebuilt from the database and the order
+ * archive's segment summaries on startup.
+ */
+@Slf4j
+@Component
+public class DashboardAggregates {
+
+    private static final int DAILY_RETENTION_DAYS = 31;
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final OrderArchive orderArchive;
+
+    private final LongAdder totalOrders = new LongAdder();
+    private final DoubleAdder totalRevenue = new DoubleAdder();
+    private final Map<Long, ProductAggregate> productAggregates = new ConcurrentHashMap<>();
+    private final Map<LocalDate, LongAdder> dailyOrders = new ConcurrentHashMap<>();
+    private final Map<OrderStatus, LongAdder> ordersByStatus = new EnumMap<>(OrderStatus.class);
+    private volatile boolean ready = false;
+
+    public DashboardAggregates(OrderRepository orderRepository,
+                               ProductRepository productRepository,
+                               OrderArchive orderArchive,
+                               MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.orderArchive = orderArchive;
+        for (OrderStatus status : OrderStatus.values()) {
+            ordersByStatus.put(status, new LongAdder());
+        }
+
+        Gauge.builder("dashboard.aggregates.products", productAggregates, Map::size)
+                .description("Number of products tracked by dashboard aggregates")
+                .register(meterRegistry);
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        reset();
+
+        // Aggregate in the database rather than materializing every order
+        totalOrders.add(orderRepository.count());
+        totalRevenue.add(orderRepository.sumTotalPrice());
+
+        for (OrderRepository.StatusOrderCount row : orderRepository.countGroupByStatus()) {
+            if (row.getStatus() != null) {
+                ordersByStatus.get(row.getStatus()).add(row.getOrderCount());
+            }
+        }
+
+        LocalDate cutoff = LocalDate.now().minusDays(DAILY_RETENTION_DAYS);
+        for (OrderRepository.DailyOrderCount row : orderRepository.countGroupByDaySince(cutoff.atStartOfDay())) {
+            dailyOrders.computeIfAbsent(row.getDay(), d -> new LongAdder()).add(row.getOrderCount());
+        }
+
+        List<OrderRepository.ProductOrderSummary> summaries = orderRepository.findProductOrderSummaries(Limit.unlimited());
+        for (OrderRepository.ProductOrderSummary row : summaries) {
+            ProductAggregate aggregate = new ProductAggregate();
+            aggregate.orderCount.add(row.getOrderCount());
+            aggregate.revenue.add(row.getTotalRevenue());
+            aggregate.productName = row.getProductName();
+            productAggregates.put(row.getProductId(), aggregate);
+        }
+
+        addArchive(cutoff);
+
+        ready = true;
+        log.info("Dashboard aggregates rebuilt for {} orders across {} products in {} ms",
+                totalOrders.sum(), summaries.size(), System.currentTimeMillis() - start);
+    }
+
+    // Archived orders are counted from segment headers, without decoding any rows
+    private void addArchive(LocalDate cutoff) {
+        Map<Long, OrderArchiveSegment.ProductSummary> archived = new HashMap<>();
+        for (OrderArchiveSegment segment : orderArchive.segments()) {
+            totalOrders.add(segment.rowCount());
+            totalRevenue.add(segment.revenue());
+            for (OrderStatus status : OrderStatus.values()) {
+                ordersByStatus.get(status).add(segment.statusCount(status));
+            }
+            segment.dailyCounts().forEach((day, count) -> {
+                if (!day.isBefore(cutoff)) {
+                    dailyOrders.computeIfAbsent(day, d -> new LongAdder()).add(count);
+                }
+            });
+            segment.products().forEach((productId, summary) -> {
+                OrderArchiveSegment.ProductSummary total = archived.computeIfAbsent(productId, id -> new OrderArchiveSegment.ProductSummary());
+                total.orderCount += summary.orderCount;
+                total.revenue += summary.revenue;
+            });
+        }
+        if (archived.isEmpty()) {
+            return;
+        }
+
+        // As with the table summaries, products that no longer exist are left out of the popular list
+        for (Product product : productRepository.findAllById(archived.keySet())) {
+            OrderArchiveSegment.ProductSummary summary = archived.get(product.getId());
+            ProductAggregate aggregate = productAggregates.computeIfAbsent(product.getId(), id -> new ProductAggregate());
+            aggregate.orderCount.add(summary.orderCount);
+            aggregate.revenue.add(summary.revenue);
+            aggregate.productName = product.getName();
+        }
+    }
+
+    public void recordOrderCreated(Order order, Product product) {
+        apply(order, product != null ? product.getName() : null);
+    }
+
+    public void recordStatusChange(OrderStatus oldStatus, OrderStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        if (oldStatus != null) {
+            ordersByStatus.get(oldStatus).decrement();
+        }
+        if (newStatus != null) {
+            ordersByStatus.get(newStatus).increment();
+        }
+    }
+
+    public void recordStatusChanges(OrderStatus oldStatus, OrderStatus newStatus, long count) {
+        if (oldStatus == newStatus || count == 0) {
+            return;
+        }
+        ordersByStatus.get(oldStatus).add(-count);
+        ordersByStatus.get(newStatus).add(count);
+    }
+
+    public void recordProductRenamed(Long productId, String name) {
+        ProductAggregate aggregate = productAggregates.get(productId);
+        if (aggregate != null) {
+            aggregate.productName = name;
+        }
+    }
+
+    public void forgetProduct(Long productId) {
+        // Revenue stays in the totals; the product just drops out of the popular list
+        productAggregates.remove(productId);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long getTotalOrders() {
+        return totalOrders.sum();
+    }
+
+    public double getTotalRevenue() {
+        return totalRevenue.sum();
+    }
+
+    public long getDailyOrders() {
+        LongAdder today = dailyOrders.get(LocalDate.now());
+        return today != null ? today.sum() : 0L;
+    }
+
+    public String getProductName(Long productId) {
+        ProductAggregate aggregate = productAggregates.get(productId);
+        return aggregate != null ? aggregate.productName : null;
+    }
+
+    public long getOrderCount(Long productId) {
+        ProductAggregate aggregate = productAggregates.get(productId);
+        return aggregate != null ? aggregate.orderCount.sum() : 0L;
+    }
+
+    public long getOrdersByStatus(OrderStatus status) {
+        return ordersByStatus.get(status).sum();
+    }
+
+    public List<DashboardStats.PopularProduct> getPopularProducts(int limit) {
+        return productAggregates.entrySet().stream()
+                .filter(entry -> entry.getValue().productName != null)
+                .sorted(Comparator.comparingLong((Map.Entry<Long, ProductAggregate> e) -> e.getValue().orderCount.sum()).reversed())
+                .limit(limit)
+                .map(entry -> {
+                    ProductAggregate aggregate = entry.getValue();
+                    DashboardStats.PopularProduct popularProduct = new DashboardStats.PopularProduct();
+                    popularProduct.setProductId(entry.getKey());
+                    popularProduct.setProductName(aggregate.productName);
+                    popularProduct.setOrderCount(aggregate.orderCount.sum());
+                    popularProduct.setTotalRevenue(aggregate.revenue.sum());
+                    return popularProduct;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private void apply(Order order, String productName) {
+        double price = order.getTotalPrice() != null ? order.getTotalPrice() : 0.0;
+
+        totalOrders.increment();
+        totalRevenue.add(price);
+
+        if (order.getStatus() != null) {
+            ordersByStatus.get(order.getStatus()).increment();
+        }
+
+        if (order.getCreatedAt() != null) {
+            LocalDate day = order.getCreatedAt().toLocalDate();
+            LocalDate cutoff = LocalDate.now().minusDays(DAILY_RETENTION_DAYS);
+            if (!day.isBefore(cutoff)) {
+                LongAdder counter = dailyOrders.get(day);
+                if (counter == null) {
+                    counter = dailyOrders.computeIfAbsent(day, d -> new LongAdder());
+                    dailyOrders.keySet().removeIf(d -> d.isBefore(cutoff));
+                }
+                counter.increment();
+            }
+        }
+
+        if (order.getProductId() != null) {
+            ProductAggregate aggregate = productAggregates.computeIfAbsent(order.getProductId(), id -> new ProductAggregate());
+            aggregate.orderCount.increment();
+            aggregate.revenue.add(price);
+            if (productName != null) {
+                aggregate.productName = productName;
+            }
+        }
+    }
+
+    private void reset() {
+        ready = false;
+        totalOrders.reset();
+        totalRevenue.reset();
+        productAggregates.clear();
+        dailyOrders.clear();
+        ordersByStatus.values().forEach(LongAdder::reset);
+    }
+
+    private static class ProductAggregate {
+        private final LongAdder orderCount = new LongAdder();
+        private final DoubleAdder revenue = new DoubleAdder();
+        private volatile String productName;
+    }
+}
@@ -4,38 +4,63 @@ import io.micrometer.core.annotation.Timed;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import uz.javachi.devops_assignment.model.DashboardStats;
-import uz.javachi.devops_assignment.model.Order;
-import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.model.PopularityWindow;
 import uz.javachi.devops_assignment.repository.OrderRepository;
 import uz.javachi.devops_assignment.repository.ProductRepository;
 import uz.javachi.devops_assignment.repository.UserRepository;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class DashboardService {
 
+    private static final int POPULAR_PRODUCTS_LIMIT = 10;
+
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
+    private final DashboardAggregates dashboardAggregates;
+    private final PopularProductsTracker popularProductsTracker;
     private final Counter dashboardRequestCounter;
     private final Counter dashboardErrorCounter;
     private final Timer dashboardQueryTimer;
+    private final Counter subQueryTimeoutCounter;
+    private final Duration subQueryTimeout;
+    private final ExecutorService subQueryExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     public DashboardService(ProductRepository productRepository,
                            OrderRepository orderRepository,
                            UserRepository userRepository,
+                           DashboardAggregates dashboardAggregates,
+                           PopularProductsTracker popularProductsTracker,
+                           @Value("${dashboard.subquery-timeout-ms:2000}") long subQueryTimeoutMillis,
                            MeterRegistry meterRegistry) {
         this.productRepository = productRepository;
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
+        this.dashboardAggregates = dashboardAggregates;
+        this.popularProductsTracker = popularProductsTracker;
+        this.subQueryTimeout = Duration.ofMillis(subQueryTimeoutMillis);
         
         this.dashboardRequestCounter = Counter.builder("dashboard.requests.total")
                 .description("Total number of dashboard API requests")
@@ -51,6 +76,11 @@ public class DashboardService {
                 .description("Time taken for dashboard database queries")
                 .tag("operation", "query")
                 .register(meterRegistry);
+                
+        this.subQueryTimeoutCounter = Counter.builder("dashboard.subquery.timeouts.total")
+                .description("Dashboard sub-queries that missed their deadline")
+                .tag("api", "dashboard")
+                .register(meterRegistry);
     }
 
     @Timed(value = "dashboard.service.getStats", description = "Time to fetch dashboard statistics")
@@ -59,63 +89,38 @@ public class DashboardService {
             log.info("Getting dashboard statistics");
             
             DashboardStats stats = new DashboardStats();
+            stats.setGeneratedAt(LocalDateTime.now());
             
-            // Total products
-            stats.setTotalProducts(productRepository.count());
-            
-            // Total orders
-            stats.setTotalOrders(orderRepository.count());
-            
-            // Total users
-            stats.setTotalUsers(userRepository.count());
-            
-            // Daily orders (orders created today)
-            LocalDateTime today = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-            List<Order> allOrders = orderRepository.findAll();
-            long dailyOrders = allOrders.stream()
-                    .filter(order -> order.getCreatedAt() != null && order.getCreatedAt().isAfter(today))
-                    .count();
-            stats.setDailyOrders(dailyOrders);
-            
-            // Total revenue
-            double totalRevenue = allOrders.stream()
-                    .filter(order -> order.getTotalPrice() != null)
-                    .mapToDouble(Order::getTotalPrice)
-                    .sum();
-            stats.setTotalRevenue(totalRevenue);
+            // Independent sub-queries run concurrently; each gets its own deadline
+            SubQueries subQueries = new SubQueries();
+            Future<Long> totalProducts = subQueries.submit(productRepository::count);
+            Future<Long> totalUsers = subQueries.submit(userRepository::count);
             
-            // Popular products
-            Map<Long, List<Order>> ordersByProduct = allOrders.stream()
-                    .filter(order -> order.getProductId() != null)
-                    .collect(Collectors.groupingBy(Order::getProductId));
-            
-            List<DashboardStats.PopularProduct> popularProducts = ordersByProduct.entrySet().stream()
-                    .map(entry -> {
-                        Long productId = entry.getKey();
-                        List<Order> orders = entry.getValue();
-                        
-                        Product product = productRepository.findById(productId).orElse(null);
-                        if (product == null) {
-                            return null;
-                        }
-                        
-                        DashboardStats.PopularProduct popularProduct = new DashboardStats.PopularProduct();
-                        popularProduct.setProductId(productId);
-                        popularProduct.setProductName(product.getName());
-                        popularProduct.setOrderCount((long) orders.size());
-                        popularProduct.setTotalRevenue(orders.stream()
-                                .filter(order -> order.getTotalPrice() != null)
-                                .mapToDouble(Order::getTotalPrice)
-                                .sum());
-                        return popularProduct;
-                    })
-                    .filter(product -> product != null)
-                    .sorted((a, b) -> Long.compare(b.getOrderCount(), a.getOrderCount()))
-                    .limit(10)
-                    .collect(Collectors.toList());
+            if (dashboardAggregates.isReady()) {
+                // Order totals come from the incrementally maintained aggregates
+                stats.setTotalOrders(dashboardAggregates.getTotalOrders());
+                stats.setDailyOrders(dashboardAggregates.getDailyOrders());
+                stats.setTotalRevenue(dashboardAggregates.getTotalRevenue());
+                stats.setPopularProducts(dashboardAggregates.getPopularProducts(POPULAR_PRODUCTS_LIMIT));
+            } else {
+                // Aggregates are still being rebuilt, let the database aggregate instead
+                Future<Long> totalOrders = subQueries.submit(orderRepository::count);
+                Future<Long> dailyOrders = subQueries.submit(() ->
+                        orderRepository.countByCreatedAtGreaterThanEqual(LocalDate.now().atStartOfDay()));
+                Future<Double> totalRevenue = subQueries.submit(orderRepository::sumTotalPrice);
+                Future<List<DashboardStats.PopularProduct>> popularProducts = subQueries.submit(this::queryPopularProducts);
+                stats.setTotalOrders(subQueries.await("totalOrders", totalOrders));
+                stats.setDailyOrders(subQueries.await("dailyOrders", dailyOrders));
+                stats.setTotalRevenue(subQueries.await("totalRevenue", totalRevenue));
+                stats.setPopularProducts(subQueries.await("popularProducts", popularProducts));
+            }
             
-            stats.setPopularProducts(popularProducts);
+            stats.setTotalProducts(subQueries.await("totalProducts", totalProducts));
+            stats.setTotalUsers(subQueries.await("totalUsers", totalUsers));
             
+            if (!subQueries.partialFields.isEmpty()) {
+                stats.setPartialFields(subQueries.partialFields);
+            }
             return stats;
         });
     }
@@ -124,11 +129,10 @@ public class DashboardService {
     public Double getTotalRevenue() {
         return dashboardQueryTimer.record(() -> {
             log.info("Getting total revenue");
-            List<Order> allOrders = orderRepository.findAll();
-            return allOrders.stream()
-                    .filter(order -> order.getTotalPrice() != null)
-                    .mapToDouble(Order::getTotalPrice)
-                    .sum();
+            double revenue = dashboardAggregates.isReady()
+                    ? dashboardAggregates.getTotalRevenue()
+                    : orderRepository.sumTotalPrice();
+            return revenue;
         });
     }
 
@@ -136,36 +140,103 @@ public class DashboardService {
     public List<DashboardStats.PopularProduct> getPopularProducts() {
         return dashboardQueryTimer.record(() -> {
             log.info("Getting popular products");
-            List<Order> allOrders = orderRepository.findAll();
+            if (dashboardAggregates.isReady()) {
+                return dashboardAggregates.getPopularProducts(POPULAR_PRODUCTS_LIMIT);
+            }
+            return queryPopularProducts();
+        });
+    }
+
+    @Timed(value = "dashboard.service.getPopularProductsWindowed", description = "Time to fetch popular products for a window")
+    public List<DashboardStats.PopularProduct> getPopularProducts(PopularityWindow window, int limit, boolean exact) {
+        return dashboardQueryTimer.record(() -> {
+            log.info("Getting popular products: window={}, limit={}, exact={}", window, limit, exact);
+            int k = Math.min(limit, popularProductsTracker.getMaxK());
             
-            Map<Long, List<Order>> ordersByProduct = allOrders.stream()
-                    .filter(order -> order.getProductId() != null)
-                    .collect(Collectors.groupingBy(Order::getProductId));
+            if (exact) {
+                if (window == PopularityWindow.ALL_TIME && dashboardAggregates.isReady()) {
+                    return dashboardAggregates.getPopularProducts(k);
+                }
+                LocalDateTime since = switch (window) {
+                    case LAST_24H -> LocalDateTime.now().minusHours(24);
+                    case LAST_HOUR -> LocalDateTime.now().minusHours(1);
+                    default -> LocalDateTime.of(1970, 1, 1, 0, 0);
+                };
+                return toPopularProducts(orderRepository.findProductOrderSummariesSince(since, Limit.of(k)));
+            }
             
-            return ordersByProduct.entrySet().stream()
-                    .map(entry -> {
-                        Long productId = entry.getKey();
-                        List<Order> orders = entry.getValue();
-                        
-                        Product product = productRepository.findById(productId).orElse(null);
-                        if (product == null) {
+            // Over-fetch a little so products deleted since they were counted don't shrink the list
+            return popularProductsTracker.top(window, k + 5).stream()
+                    .map(estimate -> {
+                        String name = dashboardAggregates.getProductName(estimate.productId());
+                        if (name == null) {
                             return null;
                         }
-                        
                         DashboardStats.PopularProduct popularProduct = new DashboardStats.PopularProduct();
-                        popularProduct.setProductId(productId);
-                        popularProduct.setProductName(product.getName());
-                        popularProduct.setOrderCount((long) orders.size());
-                        popularProduct.setTotalRevenue(orders.stream()
-                                .filter(order -> order.getTotalPrice() != null)
-                                .mapToDouble(Order::getTotalPrice)
-                                .sum());
+                        popularProduct.setProductId(estimate.productId());
+                        popularProduct.setProductName(name);
+                        popularProduct.setOrderCount(estimate.count());
+                        popularProduct.setOrderCountError(estimate.error());
+                        popularProduct.setTotalRevenue(estimate.revenue());
                         return popularProduct;
                     })
-                    .filter(product -> product != null)
-                    .sorted((a, b) -> Long.compare(b.getOrderCount(), a.getOrderCount()))
-                    .limit(10)
+                    .filter(Objects::nonNull)
+                    .limit(k)
                     .collect(Collectors.toList());
         });
     }
+
+    private List<DashboardStats.PopularProduct> queryPopularProducts() {
+        return toPopularProducts(orderRepository.findProductOrderSummaries(Limit.of(POPULAR_PRODUCTS_LIMIT)));
+    }
+
+    private List<DashboardStats.PopularProduct> toPopularProducts(List<OrderRepository.ProductOrderSummary> summaries) {
+        return summaries.stream()
+                .map(row -> {
+                    DashboardStats.PopularProduct popularProduct = new DashboardStats.PopularProduct();
+                    popularProduct.setProductId(row.getProductId());
+                    popularProduct.setProductName(row.getProductName());
+                    popularProduct.setOrderCount(row.getOrderCount());
+                    popularProduct.setTotalRevenue(row.getTotalRevenue());
+                    return popularProduct;
+                })
+                .collect(Collectors.toList());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subQueryExecutor.shutdownNow();
+    }
+
+    /**
+     * One dashboard call's worth of concurrent sub-queries. A sub-query that fails or
+     * misses its deadline leaves its field empty and is listed in partialFields.
+     */
+    private class SubQueries {
+        private final long startNanos = System.nanoTime();
+        private final List<String> partialFields = new ArrayList<>();
+
+        <T> Future<T> submit(Callable<T> query) {
+            return subQueryExecutor.submit(query);
+        }
+
+        <T> T await(String field, Future<T> future) {
+            long remaining = subQueryTimeout.toNanos() - (System.nanoTime() - startNanos);
+            try {
+                return future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                log.warn("Dashboard sub-query {} missed its {} ms deadline", field, subQueryTimeout.toMillis());
+                future.cancel(true);
+                subQueryTimeoutCounter.increment();
+            } catch (ExecutionException e) {
+                log.error("Dashboard sub-query {} failed", field, e.getCause());
+                dashboardErrorCounter.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+            }
+            partialFields.add(field);
+            return null;
+        }
+    }
 }
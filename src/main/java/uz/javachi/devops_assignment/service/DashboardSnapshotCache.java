@@ -0,0 +1,134 @@
+package uz.javachi.devops_assignment.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uz.javachi.devops_assignment.model.DashboardStats;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Snapshot of {@link DashboardService#getDashboardStats()} shared by all callers.
+ * Within the TTL the snapshot is served as-is; once stale it is still served while a
+ * single background refresh runs. Only when there is no snapshot, or it is older than
+ * the max staleness, do callers wait - and then all of them wait on the same refresh.
+ */
+@Slf4j
+@Component
+public class DashboardSnapshotCache {
+
+    private final DashboardService dashboardService;
+    private final long ttlMillis;
+    private final long maxStaleMillis;
+    private final ExecutorService refreshExecutor;
+    private final AtomicReference<CompletableFuture<Snapshot>> inFlight = new AtomicReference<>();
+    private volatile Snapshot current;
+
+    private final Counter hitCounter;
+    private final Counter staleCounter;
+    private final Counter missCounter;
+    private final Timer refreshTimer;
+
+    public DashboardSnapshotCache(DashboardService dashboardService,
+                                  @Value("${dashboard.snapshot.ttl-ms:5000}") long ttlMillis,
+                                  @Value("${dashboard.snapshot.max-stale-ms:60000}") long maxStaleMillis,
+                                  MeterRegistry meterRegistry) {
+        this.dashboardService = dashboardService;
+        this.ttlMillis = ttlMillis;
+        this.maxStaleMillis = Math.max(maxStaleMillis, ttlMillis);
+        this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-snapshot-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.hitCounter = Counter.builder("dashboard.snapshot.requests")
+                .description("Dashboard snapshot lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+
+        this.staleCounter = Counter.builder("dashboard.snapshot.requests")
+                .description("Dashboard snapshot lookups")
+                .tag("result", "stale")
+                .register(meterRegistry);
+
+        this.missCounter = Counter.builder("dashboard.snapshot.requests")
+                .description("Dashboard snapshot lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+
+        this.refreshTimer = Timer.builder("dashboard.snapshot.refresh.time")
+                .description("Time taken to recompute the dashboard snapshot")
+                .register(meterRegistry);
+    }
+
+    public Snapshot get() {
+        Snapshot snapshot = current;
+        long now = System.currentTimeMillis();
+
+        if (snapshot != null && now - snapshot.computedAtMillis() < ttlMillis) {
+            hitCounter.increment();
+            return snapshot;
+        }
+
+        if (snapshot != null && now - snapshot.computedAtMillis() < maxStaleMillis) {
+            staleCounter.increment();
+            refresh();
+            return snapshot;
+        }
+
+        missCounter.increment();
+        try {
+            return refresh().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Snapshot> refresh() {
+        CompletableFuture<Snapshot> future = new CompletableFuture<>();
+        while (!inFlight.compareAndSet(null, future)) {
+            CompletableFuture<Snapshot> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+        }
+
+        refreshExecutor.execute(() -> {
+            try {
+                DashboardStats stats = refreshTimer.record(dashboardService::getDashboardStats);
+                Snapshot snapshot = new Snapshot(stats, System.currentTimeMillis());
+                current = snapshot;
+                future.complete(snapshot);
+            } catch (Exception e) {
+                log.error("Error refreshing dashboard snapshot", e);
+                future.completeExceptionally(e);
+            } finally {
+                inFlight.set(null);
+            }
+        });
+        return future;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    public record Snapshot(DashboardStats stats, long computedAtMillis) {
+        public long ageMillis() {
+            return Math.max(0, System.currentTimeMillis() - computedAtMillis);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package uz.javachi.devops_assignment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uz.javachi.devops_assignment.model.DashboardStats;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes dashboard changes to Server-Sent Events subscribers. Writes only mark the
+ * dashboard dirty; a scheduled tick recomputes the stats at most once per interval
+ * and fans the changed fields out. Each subscriber holds at most one pending event;
+ * newer deltas are merged into it, so a slow client skips straight to the latest
+ * state and never blocks the tick or other subscribers.
+ */
+@Slf4j
+@Component
+public class DashboardStreamPublisher {
+
+    private final DashboardService dashboardService;
+    private final DashboardSnapshotCache dashboardSnapshotCache;
+    private final ObjectMapper objectMapper;
+    private final long emitterTimeoutMillis;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private final ExecutorService sendExecutor;
+    private volatile Map<String, Object> lastPublished = Map.of();
+
+    private final Counter eventsSentCounter;
+    private final Counter eventsCoalescedCounter;
+
+    public DashboardStreamPublisher(DashboardService dashboardService,
+                                    DashboardSnapshotCache dashboardSnapshotCache,
+                                    ObjectMapper objectMapper,
+                                    @Value("${dashboard.stream.emitter-timeout-ms:1800000}") long emitterTimeoutMillis,
+                                    MeterRegistry meterRegistry) {
+        this.dashboardService = dashboardService;
+        this.dashboardSnapshotCache = dashboardSnapshotCache;
+        this.objectMapper = objectMapper;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+
+        // A client with a full socket buffer parks its own virtual thread, not a shared pool thread
+        this.sendExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("dashboard-stream-", 0).factory());
+
+        Gauge.builder("dashboard.stream.subscribers", subscribers, Set::size)
+                .description("Number of connected dashboard stream subscribers")
+                .register(meterRegistry);
+
+        this.eventsSentCounter = Counter.builder("dashboard.stream.events.sent")
+                .description("Dashboard stream events written to subscribers")
+                .register(meterRegistry);
+
+        this.eventsCoalescedCounter = Counter.builder("dashboard.stream.events.coalesced")
+                .description("Dashboard stream events replaced by a newer one before being sent")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // New subscribers start from the state later deltas are computed against; joining under
+        // the publish lock means no delta can fall between that state and the subscription
+        synchronized (this) {
+            if (lastPublished.isEmpty()) {
+                // Nothing published yet, so the (possibly cached) snapshot becomes the baseline
+                lastPublished = toMap(dashboardSnapshotCache.get().stats());
+            }
+            subscriber.offer(new PendingEvent("stats", lastPublished));
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    /**
+     * Called on every order or product write. Cheap: the actual recompute happens on the next tick.
+     */
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.stream.min-interval-ms:1000}")
+    public void publishChanges() {
+        if (subscribers.isEmpty() || !dirty.getAndSet(false)) {
+            return;
+        }
+
+        try {
+            Map<String, Object> current = toMap(dashboardService.getDashboardStats());
+            synchronized (this) {
+                Map<String, Object> delta = new LinkedHashMap<>();
+                current.forEach((field, value) -> {
+                    if (!"generatedAt".equals(field) && !Objects.equals(value, lastPublished.get(field))) {
+                        delta.put(field, value);
+                    }
+                });
+                lastPublished = current;
+
+                if (delta.isEmpty()) {
+                    return;
+                }
+                delta.put("generatedAt", current.get("generatedAt"));
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.offer(new PendingEvent("delta", delta));
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error publishing dashboard stream update", e);
+            dirty.set(true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.stream.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(PendingEvent.HEARTBEAT);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        sendExecutor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toMap(DashboardStats stats) {
+        return objectMapper.convertValue(stats, Map.class);
+    }
+
+    private record PendingEvent(String name, Map<String, Object> data) {
+        static final PendingEvent HEARTBEAT = new PendingEvent(null, null);
+
+        PendingEvent mergeWith(PendingEvent newer) {
+            if (newer.data == null) {
+                return this;
+            }
+            if (data == null) {
+                return newer;
+            }
+            // A full snapshot stays a full snapshot; newer fields overwrite older ones
+            Map<String, Object> merged = new LinkedHashMap<>(data);
+            merged.putAll(newer.data);
+            return new PendingEvent("stats".equals(name) ? name : newer.name, merged);
+        }
+
+        SseEmitter.SseEventBuilder toEvent() {
+            return data == null
+                    ? SseEmitter.event().comment("keep-alive")
+                    : SseEmitter.event().name(name).data(data);
+        }
+    }
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicReference<PendingEvent> pending = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(PendingEvent event) {
+            PendingEvent previous = pending.getAndAccumulate(event,
+                    (current, newer) -> current == null ? newer : current.mergeWith(newer));
+            if (previous != null) {
+                eventsCoalescedCounter.increment();
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                PendingEvent event;
+                while ((event = pending.getAndSet(null)) != null) {
+                    emitter.send(event.toEvent());
+                    eventsSentCounter.increment();
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping dashboard stream subscriber: {}", e.getMessage());
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            // An event may have arrived between the last poll and clearing the flag
+            if (pending.get() != null && scheduled.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+    }
+}
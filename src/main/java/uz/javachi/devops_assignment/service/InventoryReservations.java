@@ -0,0 +1,231 @@
+package uz.javachi.devops_assignment.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+import uz.javachi.devops_assignment.repository.ProductRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Available stock per product held in memory, so reserving stock for an order is a
+ * compare-and-set instead of a locked read-modify-write of the product row.
+ *
+ * <p>Durability comes from the orders themselves: every order is inserted with
+ * {@code stock_pending = TRUE} in the same transaction that creates it, and a
+ * scheduled flush subtracts pending quantities from {@code products.quantity} and
+ * clears the flag in one transaction. Available stock is therefore always
+ * {@code products.quantity - SUM(pending order quantities)}, which is how it is
+ * reloaded on startup; whatever was pending at a crash is applied by the first flush.
+ */
+@Slf4j
+@Component
+public class InventoryReservations {
+
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final ProductCache productCache;
+    private final ProductCatalogSnapshot productCatalogSnapshot;
+    private final int flushBatchSize;
+    private final Map<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+
+    private final Counter reservedCounter;
+    private final Counter rejectedCounter;
+    private final Counter shortfallCounter;
+    private final Timer flushTimer;
+
+    public InventoryReservations(ProductRepository productRepository,
+                                 OrderRepository orderRepository,
+                                 ProductCache productCache,
+                                 ProductCatalogSnapshot productCatalogSnapshot,
+                                 @Value("${inventory.flush-batch-size:5000}") int flushBatchSize,
+                                 MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.orderRepository = orderRepository;
+        this.productCache = productCache;
+        this.productCatalogSnapshot = productCatalogSnapshot;
+        this.flushBatchSize = flushBatchSize;
+
+        this.reservedCounter = Counter.builder("inventory.reservations")
+                .description("Stock reservation attempts")
+                .tag("result", "reserved")
+                .register(meterRegistry);
+
+        this.rejectedCounter = Counter.builder("inventory.reservations")
+                .description("Stock reservation attempts")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+
+        this.shortfallCounter = Counter.builder("inventory.flush.shortfall")
+                .description("Stock write-backs that found less stock in the products table than was sold")
+                .register(meterRegistry);
+
+        this.flushTimer = Timer.builder("inventory.flush.time")
+                .description("Time taken to write pending stock changes to the products table")
+                .register(meterRegistry);
+    }
+
+    public void load() {
+        long start = System.currentTimeMillis();
+        List<ProductRepository.AvailableStock> stock = productRepository.findAllAvailableStock();
+        for (ProductRepository.AvailableStock row : stock) {
+            // Products already reserved against since startup keep their live counter
+            available.putIfAbsent(row.getProductId(), new AtomicInteger(toInt(row.getAvailable())));
+        }
+        log.info("Inventory loaded for {} products in {} ms", stock.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Takes {@code quantity} units of the product's stock. If called inside a transaction
+     * the units are handed back when it rolls back.
+     *
+     * @return false if the product does not exist or has too little stock
+     */
+    public boolean reserve(Long productId, int quantity) {
+        AtomicInteger stock = stockOf(productId);
+        if (stock == null) {
+            rejectedCounter.increment();
+            return false;
+        }
+
+        int current;
+        do {
+            current = stock.get();
+            if (current < quantity) {
+                rejectedCounter.increment();
+                return false;
+            }
+        } while (!stock.compareAndSet(current, current - quantity));
+        reservedCounter.increment();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        stock.addAndGet(quantity);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    public int available(Long productId) {
+        AtomicInteger stock = stockOf(productId);
+        // A reset below what is still in flight leaves the counter negative until those commit or roll back
+        return stock != null ? Math.max(0, stock.get()) : 0;
+    }
+
+    /**
+     * Called when a product's stock is set outright. Must run inside the transaction that
+     * writes the new quantity: orders pending against the product are considered part of it.
+     *
+     * <p>Once that commits the counter is rebased by the change rather than reloaded. It already
+     * has every reservation taken off, including ones whose transactions have not committed;
+     * a reload would not see their orders yet and would overstate the stock.
+     */
+    public void resetStock(Long productId, Integer oldQuantity, Integer newQuantity) {
+        List<OrderRepository.PendingStock> pending = orderRepository.findPendingStockForProduct(productId);
+        int absorbed = 0;
+        List<Long> orderIds = new ArrayList<>(pending.size());
+        for (OrderRepository.PendingStock row : pending) {
+            absorbed += row.getQuantity();
+            orderIds.add(row.getId());
+        }
+        if (!orderIds.isEmpty()) {
+            // Exactly the orders summed above; one committing meanwhile stays pending against the new quantity
+            orderRepository.clearStockPending(orderIds);
+        }
+
+        // The counter stood at old quantity - absorbed - in flight; it must become new quantity - in flight
+        int delta = toInt(newQuantity) - toInt(oldQuantity) + absorbed;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                AtomicInteger stock = available.get(productId);
+                if (status == STATUS_COMMITTED && stock != null) {
+                    stock.addAndGet(delta);
+                }
+            }
+        });
+    }
+
+    // Only for deleted products: nothing can be reserved against them any more
+    public void forgetProduct(Long productId) {
+        available.remove(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.flush-interval-ms:500}")
+    @Transactional
+    public void flush() {
+        flushTimer.record(() -> {
+            List<OrderRepository.PendingStock> pending = orderRepository.findPendingStock(Limit.of(flushBatchSize));
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            Map<Long, Integer> byProduct = new HashMap<>();
+            List<Long> orderIds = new ArrayList<>(pending.size());
+            for (OrderRepository.PendingStock row : pending) {
+                byProduct.merge(row.getProductId(), row.getQuantity(), Integer::sum);
+                orderIds.add(row.getId());
+            }
+
+            // One UPDATE per product no matter how many orders hit it since the last flush
+            byProduct.forEach((productId, quantity) -> {
+                if (productRepository.decrementQuantityIfAvailable(productId, quantity) == 0
+                        && productRepository.clearQuantity(productId) > 0) {
+                    // Stock was set below what had already been sold; the orders stand, stock bottoms out
+                    log.warn("Stock of product {} was short of {} sold units, set to 0", productId, quantity);
+                    shortfallCounter.increment();
+                }
+            });
+            orderRepository.clearStockPending(orderIds);
+            // Cached products and the catalog carry the old quantity until this commits
+            productCache.invalidateAll(byProduct.keySet());
+            productCatalogSnapshot.markStale(byProduct.keySet());
+            log.debug("Flushed stock for {} orders across {} products", orderIds.size(), byProduct.size());
+        });
+    }
+
+    private AtomicInteger stockOf(Long productId) {
+        AtomicInteger stock = available.get(productId);
+        if (stock != null) {
+            return stock;
+        }
+        // Queried outside the map so other products' lookups never wait on the database. Nothing
+        // can have reserved against a product without a counter, so the stored figure is complete;
+        // if another thread got there first its counter, possibly already in use, wins
+        AtomicInteger loaded = productRepository.findAvailableStock(productId)
+                .map(row -> new AtomicInteger(toInt(row.getAvailable())))
+                .orElse(null);
+        if (loaded == null) {
+            return null;
+        }
+        AtomicInteger existing = available.putIfAbsent(productId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private static int toInt(Long value) {
+        return value != null ? Math.toIntExact(value) : 0;
+    }
+
+    private static int toInt(Integer value) {
+        return value != null ? value : 0;
+    }
+}
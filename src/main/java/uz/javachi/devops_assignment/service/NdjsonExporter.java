@@ -0,0 +1,103 @@
+package uz.javachi.devops_assignment.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+import uz.javachi.devops_assignment.repository.ProductRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes whole tables as newline-delimited JSON, one entity per line, straight from a
+ * database cursor to the response. Rows are fetched in chunks and the persistence context
+ * is cleared as it goes, so memory stays flat regardless of table size. The orders export
+ * starts with the archived orders, decoded a segment at a time.
+ */
+@Slf4j
+@Service
+public class NdjsonExporter {
+
+    // Matches the repositories' fetch size: one chunk from the driver, then detach it
+    private static final int CLEAR_INTERVAL = 1000;
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final OrderArchive orderArchive;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+    private final MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public NdjsonExporter(OrderRepository orderRepository,
+                          ProductRepository productRepository,
+                          OrderArchive orderArchive,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.orderArchive = orderArchive;
+        this.objectMapper = objectMapper;
+        // Flushing is left to the chunk boundary instead of after every row
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Transactional(readOnly = true)
+    public void exportOrders(OutputStream out) throws IOException {
+        try (Stream<?> rows = Stream.concat(orderArchive.stream(), orderRepository.streamAll())) {
+            export("orders", rows, out);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportProducts(OutputStream out) throws IOException {
+        try (Stream<?> rows = productRepository.streamAll()) {
+            export("products", rows, out);
+        }
+    }
+
+    private void export(String entity, Stream<?> rows, OutputStream out) throws IOException {
+        Counter rowCounter = Counter.builder("export.rows.total")
+                .description("Rows written by NDJSON exports")
+                .tag("entity", entity)
+                .register(meterRegistry);
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // The servlet container owns the response stream
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            Iterator<?> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                rowWriter.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (++count % CLEAR_INTERVAL == 0) {
+                    generator.flush();
+                    entityManager.clear();
+                }
+            }
+        } finally {
+            rowCounter.increment(count);
+            sample.stop(Timer.builder("export.time")
+                    .description("Time taken to stream an NDJSON export")
+                    .tag("entity", entity)
+                    .register(meterRegistry));
+        }
+        log.info("Exported {} {}", count, entity);
+    }
+}
@@ -5,16 +5,22 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import uz.javachi.devops_assignment.model.CursorPage;
 import uz.javachi.devops_assignment.model.Notification;
 import uz.javachi.devops_assignment.model.NotificationType;
 import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.PageCursor;
 import uz.javachi.devops_assignment.model.Product;
 import uz.javachi.devops_assignment.repository.NotificationRepository;
 import uz.javachi.devops_assignment.repository.ProductRepository;
 import uz.javachi.devops_assignment.repository.UserRepository;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -95,14 +101,76 @@ public class NotificationService {
             
             notificationSentCounter.increment();
             log.info("Order notification sent successfully");
-        } catch (Exception e) {
-            log.error("Error sending order notification", e);
+        } catch (RuntimeException e) {
+            // Rethrown so the outbox relay rolls back the notification and retries the event
             notificationErrorCounter.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * One notification per order, as for single orders, but one email per farmer for the
+     * whole batch instead of one per order.
+     */
+    @Timed(value = "notifications.service.sendBatchOrderNotifications", description = "Time to send batch order notifications")
+    public void sendBatchOrderNotifications(List<Order> orders, Map<Long, Product> products) {
+        try {
+            log.info("Sending batch order notifications for {} orders", orders.size());
+            
+            Map<String, List<Order>> ordersByFarmer = new LinkedHashMap<>();
+            for (Order order : orders) {
+                Product product = products.get(order.getProductId());
+                if (product != null) {
+                    ordersByFarmer.computeIfAbsent(product.getFarmerId(), id -> new ArrayList<>()).add(order);
+                }
+            }
+            
+            List<Notification> notifications = new ArrayList<>();
+            for (Map.Entry<String, List<Order>> entry : ordersByFarmer.entrySet()) {
+                String farmerId = entry.getKey();
+                List<Order> farmerOrders = entry.getValue();
+                for (Order order : farmerOrders) {
+                    String message = String.format(
+                        "Yangi buyurtma qabul qilindi! Mahsulot: %s, Miqdor: %d, Jami narx: %.2f",
+                        products.get(order.getProductId()).getName(), order.getQuantity(), order.getTotalPrice()
+                    );
+                    
+                    // Per order, so every order of the batch can be looked up by its notification
+                    Notification notification = new Notification();
+                    notification.setUserId(farmerId);
+                    notification.setOrderId(order.getId());
+                    notification.setMessage(message);
+                    notification.setType(NotificationType.ORDER_CREATED);
+                    notifications.add(notification);
+                }
+                
+                StringBuilder lines = new StringBuilder();
+                for (Order order : farmerOrders) {
+                    lines.append(String.format("Buyurtma ID: %d, Mahsulot: %s, Miqdor: %d, Jami narx: %.2f\n",
+                            order.getId(), products.get(order.getProductId()).getName(),
+                            order.getQuantity(), order.getTotalPrice()));
+                }
+                String emailSubject = "Yangi buyurtmalar qabul qilindi";
+                String emailBody = "Hurmatli fermer,\n\n" +
+                    "Sizning mahsulotlaringizga yangi buyurtmalar qabul qilindi:\n" +
+                    lines + "\n" +
+                    "Iltimos, buyurtmalarni tekshiring va tasdiqlang.";
+                
+                String userEmail = "farmer-" + farmerId + "@example.com";
+                emailService.sendEmail(userEmail, emailSubject, emailBody);
+            }
+            notificationRepository.saveAll(notifications);
+            
+            notificationSentCounter.increment(notifications.size());
+            log.info("Batch order notifications sent for {} orders to {} farmers", notifications.size(), ordersByFarmer.size());
+        } catch (RuntimeException e) {
+            notificationErrorCounter.increment();
+            throw e;
         }
     }
 
     @Timed(value = "notifications.service.sendPriceUpdateNotification", description = "Time to send price update notification")
-    public void sendPriceUpdateNotification(Product product, Double oldPrice) {
+    public void sendPriceUpdateNotification(Product product, Double oldPrice, Double newPrice) {
         try {
             log.info("Sending price update notification for product: {}", product.getId());
             
@@ -112,7 +180,7 @@ public class NotificationService {
             // Create notification message
             String message = String.format(
                 "Mahsulot narxi yangilandi: %s, Eski narx: %.2f, Yangi narx: %.2f",
-                product.getName(), oldPrice, product.getPrice()
+                product.getName(), oldPrice, newPrice
             );
             
             // Save notification
@@ -130,24 +198,35 @@ public class NotificationService {
                 "Mahsulot: %s\n" +
                 "Eski narx: %.2f\n" +
                 "Yangi narx: %.2f\n",
-                product.getName(), oldPrice, product.getPrice()
+                product.getName(), oldPrice, newPrice
             );
             
             String userEmail = "farmer-" + farmerId + "@example.com";
             emailService.sendEmail(userEmail, emailSubject, emailBody);
             
             notificationSentCounter.increment();
-        } catch (Exception e) {
-            log.error("Error sending price update notification", e);
+        } catch (RuntimeException e) {
             notificationErrorCounter.increment();
+            throw e;
         }
     }
 
     @Timed(value = "notifications.service.getByUser", description = "Time to fetch notifications by user")
-    public List<Notification> getNotificationsByUser(String userId) {
+    public CursorPage<Notification> getNotificationsByUser(String userId, String cursor, int limit) {
         return notificationQueryTimer.record(() -> {
-            log.info("Getting notifications for user: {}", userId);
-            return notificationRepository.findByUserId(userId);
+            CursorPage.checkLimit(limit);
+            log.info("Getting notifications for user: {}, limit: {}", userId, limit);
+            
+            List<Notification> rows;
+            if (cursor == null || cursor.isBlank()) {
+                rows = notificationRepository.findPageByUserId(userId, Limit.of(limit + 1));
+            } else {
+                PageCursor after = PageCursor.decode(cursor);
+                rows = notificationRepository.findPageByUserIdBefore(userId, after.createdAt(), after.longId(),
+                        Limit.of(limit + 1));
+            }
+            return CursorPage.of(rows, limit,
+                    notification -> PageCursor.of(notification.getSentAt(), notification.getId()));
         });
     }
 
@@ -0,0 +1,314 @@
+package uz.javachi.devops_assignment.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OrderStatus;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Cold storage for finished orders. DELIVERED and CANCELLED orders older than
+ * {@code archive.min-age-days} are written to append-only compressed segment files and
+ * deleted from the orders table, which keeps the hot table and its indexes small.
+ *
+ * <p>The index is each segment's id range and summary, read from the segment headers at
+ * startup. Lookups by id decode only segments whose range covers the id, with the last few
+ * decoded segments kept in memory. Startup rebuilds of the dashboard aggregates, popular
+ * products, percentiles and the analytics column store add the archive back in.
+ */
+@Slf4j
+@Component
+public class OrderArchive {
+
+    private static final String SEGMENT_PREFIX = "orders-";
+    private static final String SEGMENT_SUFFIX = ".oseg";
+    private static final int DELETE_CHUNK_SIZE = 1000;
+    private static final Set<OrderStatus> FINAL_STATUSES = Set.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+    private final int minAgeDays;
+    private final int segmentSize;
+    private final List<OrderArchiveSegment> segments = new CopyOnWriteArrayList<>();
+    private final List<Path> unpublished = new ArrayList<>();
+    private final Map<Path, List<Order>> decoded;
+    private long nextSequence;
+
+    private final Counter archivedCounter;
+    private final Counter lookupCounter;
+    private final Timer archiveTimer;
+
+    public OrderArchive(OrderRepository orderRepository,
+                        TransactionTemplate transactionTemplate,
+                        @Value("${archive.directory:./data/archive}") String directory,
+                        @Value("${archive.min-age-days:30}") int minAgeDays,
+                        @Value("${archive.segment-size:10000}") int segmentSize,
+                        @Value("${archive.decoded-cache-segments:4}") int decodedCacheSegments,
+                        MeterRegistry meterRegistry) throws IOException {
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.directory = Paths.get(directory);
+        this.minAgeDays = minAgeDays;
+        this.segmentSize = segmentSize;
+        this.decoded = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, List<Order>> eldest) {
+                return size() > decodedCacheSegments;
+            }
+        });
+
+        this.archivedCounter = Counter.builder("archive.orders.archived.total")
+                .description("Orders moved from the orders table into archive segments")
+                .register(meterRegistry);
+
+        this.lookupCounter = Counter.builder("archive.lookups.total")
+                .description("Order lookups answered from archive segments")
+                .register(meterRegistry);
+
+        this.archiveTimer = Timer.builder("archive.run.time")
+                .description("Time taken by one archiver run")
+                .register(meterRegistry);
+
+        Gauge.builder("archive.segments", segments, List::size)
+                .description("Archive segment files")
+                .register(meterRegistry);
+
+        Gauge.builder("archive.orders", this, OrderArchive::orderCount)
+                .description("Orders held in archive segments")
+                .register(meterRegistry);
+
+        // Segments are needed before anything rebuilds from the orders table, so load them eagerly
+        loadIndex();
+    }
+
+    /**
+     * A segment is published only after the transaction deleting its rows has committed, so a
+     * crash in between leaves a temporary file behind. If any of its orders are still in the
+     * table the delete rolled back and the file is dropped; otherwise it is published. Runs
+     * before the startup rebuilds read the table or the segments, and before each archiver
+     * run for segments left by a failed one.
+     */
+    public synchronized void reconcile() {
+        while (!unpublished.isEmpty()) {
+            Path temp = unpublished.get(0);
+            try {
+                String name = temp.getFileName().toString();
+                Path file = temp.resolveSibling(name.substring(0, name.length() - ".tmp".length()));
+                OrderArchiveSegment segment = OrderArchiveSegment.readHeader(temp);
+                List<Long> ids = read(segment).stream().map(Order::getId).toList();
+                if (anyInTable(ids)) {
+                    Files.delete(temp);
+                    log.warn("Dropped unpublished archive segment {}, its orders are still in the table", temp.getFileName());
+                } else {
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+                    segments.add(OrderArchiveSegment.readHeader(file));
+                    log.warn("Published archive segment {}, its orders were already deleted from the table", file.getFileName());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot reconcile archive segment " + temp, e);
+            }
+            unpublished.remove(0);
+        }
+    }
+
+    public Optional<Order> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        // Newest first: recently archived orders are the likeliest to be looked up
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            OrderArchiveSegment segment = segments.get(i);
+            if (!segment.mayContain(id)) {
+                continue;
+            }
+            Order order = search(decode(segment), id);
+            if (order != null) {
+                lookupCounter.increment();
+                return Optional.of(order);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Streams every archived order in id order, one segment in memory at a time.
+     */
+    public Stream<Order> stream() {
+        return segments.stream().flatMap(segment -> read(segment).stream());
+    }
+
+    public void forEachOrder(Consumer<Order> consumer) {
+        stream().forEach(consumer);
+    }
+
+    public long orderCount() {
+        return segments.stream().mapToLong(OrderArchiveSegment::rowCount).sum();
+    }
+
+    List<OrderArchiveSegment> segments() {
+        return segments;
+    }
+
+    @Scheduled(fixedDelayString = "${archive.interval-ms:3600000}", initialDelayString = "${archive.initial-delay-ms:60000}")
+    public void archive() {
+        archiveTimer.record(() -> {
+            // Settled before selecting again, so orders behind a failed run are never written twice
+            reconcile();
+            LocalDateTime before = LocalDateTime.now().minusDays(minAgeDays);
+            int archived = 0;
+            List<Order> batch;
+            do {
+                batch = orderRepository.findArchivable(FINAL_STATUSES, before, Limit.of(segmentSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                OrderArchiveSegment segment = archiveBatch(batch);
+                archived += batch.size();
+                archivedCounter.increment(batch.size());
+                log.info("Archived {} orders ({} to {}) into {}",
+                        batch.size(), segment.minId(), segment.maxId(), segment.file().getFileName());
+            } while (batch.size() >= segmentSize);
+
+            if (archived > 0) {
+                log.info("Archiver moved {} orders older than {} out of the orders table", archived, before);
+            }
+        });
+    }
+
+    // Written, then the rows deleted, then published: an order is never in both the table and
+    // a published segment, and a failed delete leaves nothing behind to archive it twice
+    private synchronized OrderArchiveSegment archiveBatch(List<Order> orders) {
+        Path file = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+        OrderArchiveSegment segment;
+        try {
+            segment = OrderArchiveSegment.write(file, orders);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write archive segment " + file, e);
+        }
+        nextSequence++;
+        try {
+            deleteFromTable(orders.stream().map(Order::getId).toList());
+            segment.publish();
+        } catch (IOException e) {
+            unpublished.add(OrderArchiveSegment.tempFile(file));
+            throw new UncheckedIOException("Cannot publish archive segment " + file, e);
+        } catch (RuntimeException e) {
+            // A failed commit may still have deleted the rows, so reconcile() checks the table
+            unpublished.add(OrderArchiveSegment.tempFile(file));
+            throw e;
+        }
+        segments.add(segment);
+        return segment;
+    }
+
+    private int deleteFromTable(List<Long> ids) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            int count = 0;
+            for (int from = 0; from < ids.size(); from += DELETE_CHUNK_SIZE) {
+                count += orderRepository.deleteByIdIn(ids.subList(from, Math.min(from + DELETE_CHUNK_SIZE, ids.size())));
+            }
+            return count;
+        });
+        return deleted != null ? deleted : 0;
+    }
+
+    private boolean anyInTable(List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += DELETE_CHUNK_SIZE) {
+            if (orderRepository.existsByIdIn(ids.subList(from, Math.min(from + DELETE_CHUNK_SIZE, ids.size())))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Order> decode(OrderArchiveSegment segment) {
+        List<Order> rows = decoded.get(segment.file());
+        if (rows == null) {
+            rows = read(segment);
+            decoded.put(segment.file(), rows);
+        }
+        return rows;
+    }
+
+    // Segment rows are sorted by id
+    private static Order search(List<Order> rows, long id) {
+        int low = 0;
+        int high = rows.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = rows.get(mid).getId();
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return rows.get(mid);
+            }
+        }
+        return null;
+    }
+
+    private static List<Order> read(OrderArchiveSegment segment) {
+        try {
+            return segment.readOrders();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read archive segment " + segment.file(), e);
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) listing::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX + ".tmp")) {
+                    // Left behind by a crash before publishing; reconcile() decides its fate
+                    unpublished.add(file);
+                    nextSequence = Math.max(nextSequence, sequenceOf(name.substring(0, name.length() - ".tmp".length())) + 1);
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    files.add(file);
+                }
+            }
+        }
+        // Zero-padded sequence numbers sort in write order
+        files.sort(null);
+        for (Path file : files) {
+            segments.add(OrderArchiveSegment.readHeader(file));
+            nextSequence = Math.max(nextSequence, sequenceOf(file.getFileName().toString()) + 1);
+        }
+        unpublished.sort(null);
+        log.info("Order archive index loaded: {} segments, {} orders in {}", segments.size(), orderCount(), directory);
+    }
+
+    private static long sequenceOf(String name) {
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,347 @@
+package uz.javachi.devops_assignment.service;
+
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OrderStatus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * One immutable file of archived orders. A small uncompressed header carries the id range
+ * and a summary (revenue, counts by status, product and day) that is read without touching
+ * the rows; the rows follow as gzip-compressed columns: delta-coded ids and timestamps,
+ * dictionary-coded buyers and fixed-width numbers. Written to a temporary file that is only
+ * moved into place by {@link #publish()}, so a segment is either complete or absent and the
+ * caller decides when it becomes visible. Not thread-safe, callers synchronize.
+ */
+class OrderArchiveSegment {
+
+    private static final int MAGIC = 0x4F534547; // "OSEG"
+    // Version 1 stored creation times in milliseconds, version 2 in nanoseconds
+    private static final short VERSION = 2;
+    private static final short MILLIS_VERSION = 1;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final byte NO_STATUS = -1;
+
+    private final Path file;
+    private final short version;
+    private final int rowCount;
+    private final long minId;
+    private final long maxId;
+    private final double revenue;
+    private final long[] statusCounts;
+    private final Map<Long, ProductSummary> products;
+    private final Map<LocalDate, Long> dailyCounts;
+
+    private OrderArchiveSegment(Path file, short version, int rowCount, long minId, long maxId, double revenue,
+                                long[] statusCounts, Map<Long, ProductSummary> products,
+                                Map<LocalDate, Long> dailyCounts) {
+        this.file = file;
+        this.version = version;
+        this.rowCount = rowCount;
+        this.minId = minId;
+        this.maxId = maxId;
+        this.revenue = revenue;
+        this.statusCounts = statusCounts;
+        this.products = products;
+        this.dailyCounts = dailyCounts;
+    }
+
+    /**
+     * Writes the orders, which must all have ids and creation times, to the temporary file of
+     * a new segment. Nothing is at {@code file} until {@link #publish()}.
+     */
+    static OrderArchiveSegment write(Path file, List<Order> orders) throws IOException {
+        List<Order> rows = new ArrayList<>(orders);
+        rows.sort(Comparator.comparing(Order::getId));
+
+        double revenue = 0;
+        long[] statusCounts = new long[OrderStatus.values().length];
+        Map<Long, ProductSummary> products = new LinkedHashMap<>();
+        Map<LocalDate, Long> dailyCounts = new TreeMap<>();
+        for (Order order : rows) {
+            double price = order.getTotalPrice() != null ? order.getTotalPrice() : 0.0;
+            revenue += price;
+            if (order.getStatus() != null) {
+                statusCounts[order.getStatus().ordinal()]++;
+            }
+            if (order.getProductId() != null) {
+                products.computeIfAbsent(order.getProductId(), id -> new ProductSummary()).add(price);
+            }
+            dailyCounts.merge(order.getCreatedAt().toLocalDate(), 1L, Long::sum);
+        }
+        OrderArchiveSegment segment = new OrderArchiveSegment(file, VERSION, rows.size(),
+                rows.get(0).getId(), rows.get(rows.size() - 1).getId(), revenue, statusCounts, products, dailyCounts);
+
+        Path temp = tempFile(file);
+        try (OutputStream raw = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(raw))) {
+            segment.writeHeader(out);
+            out.flush();
+            GZIPOutputStream gzip = new GZIPOutputStream(raw);
+            DataOutputStream columns = new DataOutputStream(new BufferedOutputStream(gzip));
+            writeColumns(columns, rows);
+            columns.flush();
+            gzip.finish();
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        return segment;
+    }
+
+    static Path tempFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    /**
+     * Moves a segment written by {@link #write} into place.
+     */
+    void publish() throws IOException {
+        Files.move(tempFile(file), file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static OrderArchiveSegment readHeader(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an order archive segment: " + file);
+            }
+            short version = in.readShort();
+            if (version != VERSION && version != MILLIS_VERSION) {
+                throw new IOException("Unsupported segment version " + version + ": " + file);
+            }
+            int rowCount = in.readInt();
+            long minId = in.readLong();
+            long maxId = in.readLong();
+            double revenue = in.readDouble();
+
+            long[] statusCounts = new long[OrderStatus.values().length];
+            int statuses = in.readInt();
+            for (int i = 0; i < statuses; i++) {
+                statusCounts[i] = in.readLong();
+            }
+
+            int productCount = in.readInt();
+            Map<Long, ProductSummary> products = new HashMap<>(productCount * 2);
+            for (int i = 0; i < productCount; i++) {
+                ProductSummary summary = new ProductSummary();
+                long productId = in.readLong();
+                summary.orderCount = in.readLong();
+                summary.revenue = in.readDouble();
+                products.put(productId, summary);
+            }
+
+            int dayCount = in.readInt();
+            Map<LocalDate, Long> dailyCounts = new TreeMap<>();
+            for (int i = 0; i < dayCount; i++) {
+                dailyCounts.put(LocalDate.ofEpochDay(in.readLong()), in.readLong());
+            }
+            return new OrderArchiveSegment(file, version, rowCount, minId, maxId, revenue, statusCounts, products, dailyCounts);
+        }
+    }
+
+    /**
+     * Decodes every row of the segment.
+     */
+    List<Order> readOrders() throws IOException {
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file))) {
+            // Re-read the header to find where the compressed columns start
+            DataInputStream header = new DataInputStream(raw);
+            skipHeader(header);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(raw)));
+            return readColumns(in, rowCount, version == MILLIS_VERSION);
+        }
+    }
+
+    boolean mayContain(long id) {
+        return id >= minId && id <= maxId;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    long minId() {
+        return minId;
+    }
+
+    long maxId() {
+        return maxId;
+    }
+
+    double revenue() {
+        return revenue;
+    }
+
+    long statusCount(OrderStatus status) {
+        return statusCounts[status.ordinal()];
+    }
+
+    Map<Long, ProductSummary> products() {
+        return products;
+    }
+
+    Map<LocalDate, Long> dailyCounts() {
+        return dailyCounts;
+    }
+
+    private void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(rowCount);
+        out.writeLong(minId);
+        out.writeLong(maxId);
+        out.writeDouble(revenue);
+        out.writeInt(statusCounts.length);
+        for (long count : statusCounts) {
+            out.writeLong(count);
+        }
+        out.writeInt(products.size());
+        for (Map.Entry<Long, ProductSummary> entry : products.entrySet()) {
+            out.writeLong(entry.getKey());
+            out.writeLong(entry.getValue().orderCount);
+            out.writeDouble(entry.getValue().revenue);
+        }
+        out.writeInt(dailyCounts.size());
+        for (Map.Entry<LocalDate, Long> entry : dailyCounts.entrySet()) {
+            out.writeLong(entry.getKey().toEpochDay());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    private static void skipHeader(DataInputStream in) throws IOException {
+        in.readInt();
+        in.readShort();
+        in.readInt();
+        in.readLong();
+        in.readLong();
+        in.readDouble();
+        in.skipNBytes(8L * in.readInt());
+        in.skipNBytes(24L * in.readInt());
+        in.skipNBytes(16L * in.readInt());
+    }
+
+    private static void writeColumns(DataOutputStream out, List<Order> rows) throws IOException {
+        long previousId = 0;
+        for (Order order : rows) {
+            out.writeLong(order.getId() - previousId);
+            previousId = order.getId();
+        }
+        for (Order order : rows) {
+            out.writeLong(order.getProductId() != null ? order.getProductId() : -1L);
+        }
+
+        Map<String, Integer> buyerCodes = new LinkedHashMap<>();
+        for (Order order : rows) {
+            if (order.getBuyerId() != null) {
+                buyerCodes.putIfAbsent(order.getBuyerId(), buyerCodes.size());
+            }
+        }
+        out.writeInt(buyerCodes.size());
+        for (String buyer : buyerCodes.keySet()) {
+            out.writeUTF(buyer);
+        }
+        for (Order order : rows) {
+            out.writeInt(order.getBuyerId() != null ? buyerCodes.get(order.getBuyerId()) : -1);
+        }
+
+        for (Order order : rows) {
+            out.writeInt(order.getQuantity() != null ? order.getQuantity() : 0);
+        }
+        for (Order order : rows) {
+            out.writeDouble(order.getTotalPrice() != null ? order.getTotalPrice() : 0.0);
+        }
+        for (Order order : rows) {
+            out.writeByte(order.getStatus() != null ? order.getStatus().ordinal() : NO_STATUS);
+        }
+        long previousNanos = 0;
+        for (Order order : rows) {
+            Instant createdAt = order.getCreatedAt().toInstant(ZoneOffset.UTC);
+            long nanos = createdAt.getEpochSecond() * NANOS_PER_SECOND + createdAt.getNano();
+            out.writeLong(nanos - previousNanos);
+            previousNanos = nanos;
+        }
+    }
+
+    private static List<Order> readColumns(DataInputStream in, int rowCount, boolean millis) throws IOException {
+        List<Order> rows = new ArrayList<>(rowCount);
+        long id = 0;
+        for (int i = 0; i < rowCount; i++) {
+            id += in.readLong();
+            Order order = new Order();
+            order.setId(id);
+            rows.add(order);
+        }
+        for (Order order : rows) {
+            long productId = in.readLong();
+            order.setProductId(productId >= 0 ? productId : null);
+        }
+
+        String[] buyers = new String[in.readInt()];
+        for (int i = 0; i < buyers.length; i++) {
+            buyers[i] = in.readUTF();
+        }
+        for (Order order : rows) {
+            int code = in.readInt();
+            order.setBuyerId(code >= 0 ? buyers[code] : null);
+        }
+
+        for (Order order : rows) {
+            order.setQuantity(in.readInt());
+        }
+        for (Order order : rows) {
+            order.setTotalPrice(in.readDouble());
+        }
+        OrderStatus[] statuses = OrderStatus.values();
+        for (Order order : rows) {
+            byte status = in.readByte();
+            order.setStatus(status != NO_STATUS ? statuses[status] : null);
+        }
+        long time = 0;
+        for (Order order : rows) {
+            time += in.readLong();
+            Instant createdAt = millis
+                    ? Instant.ofEpochMilli(time)
+                    : Instant.ofEpochSecond(Math.floorDiv(time, NANOS_PER_SECOND), Math.floorMod(time, NANOS_PER_SECOND));
+            order.setCreatedAt(LocalDateTime.ofInstant(createdAt, ZoneOffset.UTC));
+        }
+        return rows;
+    }
+
+    static class ProductSummary {
+        long orderCount;
+        double revenue;
+
+        void add(double price) {
+            orderCount++;
+            revenue += price;
+        }
+    }
+}
@@ -0,0 +1,668 @@
+package uz.javachi.devops_assignment.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uz.javachi.devops_assignment.model.AnalyticsQuery;
+import uz.javachi.devops_assignment.model.AnalyticsResult;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OrderStatus;
+import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+import uz.javachi.devops_assignment.repository.ProductRepository;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * In-memory, column-oriented copy of the orders table for ad-hoc analytics.
+ * Every order is a row across primitive arrays; strings (buyer, farmer, category)
+ * are dictionary-encoded and product attributes live in a small dense dimension
+ * table. Queries filter, group and aggregate with parallel scans over the arrays;
+ * result rows are ordered by the first metric, descending. Archived orders are
+ * loaded alongside the table on startup.
+ */
+@Slf4j
+@Component
+public class OrderColumnStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_GROUPS = 10_000;
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final OrderArchive orderArchive;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Fact columns, one entry per order
+    private long[] orderIds = new long[INITIAL_CAPACITY];
+    private int[] productIndexes = new int[INITIAL_CAPACITY];
+    private int[] buyerCodes = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private double[] revenues = new double[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    private int[] days = new int[INITIAL_CAPACITY];
+    private int size;
+    private final RowIndex rowByOrderId = new RowIndex(INITIAL_CAPACITY * 2);
+
+    // Product dimension, indexed by dense product index
+    private long[] productIds = new long[INITIAL_CAPACITY];
+    private int[] productFarmerCodes = new int[INITIAL_CAPACITY];
+    private int[] productCategoryCodes = new int[INITIAL_CAPACITY];
+    private int productCount;
+    private final Map<Long, Integer> productIndexById = new HashMap<>();
+
+    private final Dictionary buyers = new Dictionary();
+    private final Dictionary farmers = new Dictionary();
+    private final Dictionary categories = new Dictionary();
+
+    public OrderColumnStore(OrderRepository orderRepository,
+                            ProductRepository productRepository,
+                            OrderArchive orderArchive,
+                            MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.orderArchive = orderArchive;
+
+        Gauge.builder("analytics.columnstore.rows", this, OrderColumnStore::rowCount)
+                .description("Number of orders held by the analytics column store")
+                .register(meterRegistry);
+    }
+
+    @Transactional(readOnly = true)
+    public void load() {
+        long start = System.currentTimeMillis();
+        // Archived rows carry no product attributes, so fetch them for the products they mention
+        Map<Long, Product> archivedProducts = productRepository.findAllById(orderArchive.segments().stream()
+                        .flatMap(segment -> segment.products().keySet().stream())
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        lock.writeLock().lock();
+        try {
+            // Archived orders predate everything in the table, so rows stay in id order
+            orderArchive.forEachOrder(order -> {
+                Product product = archivedProducts.get(order.getProductId());
+                int productIndex = upsertProduct(order.getProductId(),
+                        product != null ? product.getFarmerId() : null,
+                        product != null ? product.getCategory() : null, false);
+                appendRow(order.getId(), productIndex, order.getBuyerId(), order.getQuantity(), order.getTotalPrice(),
+                        order.getStatus(), order.getCreatedAt().toLocalDate());
+            });
+            try (Stream<OrderRepository.OrderFact> facts = orderRepository.streamOrderFacts()) {
+                facts.forEach(fact -> {
+                    int product = upsertProduct(fact.getProductId(), fact.getFarmerId(), fact.getCategory(), false);
+                    appendRow(fact.getId(), product, fact.getBuyerId(), fact.getQuantity(), fact.getTotalPrice(),
+                            fact.getStatus(), fact.getCreatedAt() != null ? fact.getCreatedAt().toLocalDate() : null);
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Analytics column store loaded {} orders over {} products in {} ms",
+                size, productCount, System.currentTimeMillis() - start);
+    }
+
+    public void recordOrderCreated(Order order, Product product) {
+        lock.writeLock().lock();
+        try {
+            int productIndex = upsertProduct(order.getProductId(),
+                    product != null ? product.getFarmerId() : null,
+                    product != null ? product.getCategory() : null, true);
+            appendRow(order.getId(), productIndex, order.getBuyerId(), order.getQuantity(), order.getTotalPrice(),
+                    order.getStatus(), order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void recordStatusChange(Long orderId, OrderStatus status) {
+        lock.writeLock().lock();
+        try {
+            int row = orderId != null ? rowByOrderId.get(orderId) : -1;
+            if (row >= 0) {
+                statuses[row] = (byte) status.ordinal();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void recordStatusChanges(long[] orderIds, OrderStatus status) {
+        lock.writeLock().lock();
+        try {
+            for (long orderId : orderIds) {
+                int row = rowByOrderId.get(orderId);
+                if (row >= 0) {
+                    statuses[row] = (byte) status.ordinal();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void recordProductUpdated(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (productIndexById.containsKey(product.getId())) {
+                upsertProduct(product.getId(), product.getFarmerId(), product.getCategory(), true);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public AnalyticsResult query(AnalyticsQuery query) {
+        long start = System.nanoTime();
+        List<Column> groupColumns = query.getGroupBy().stream().map(Column::dimension).toList();
+        List<MetricSpec> metrics = query.getMetrics().isEmpty()
+                ? List.of(new MetricSpec("count", null))
+                : query.getMetrics().stream().map(MetricSpec::of).toList();
+
+        Snapshot snapshot;
+        IntPredicate filter;
+        lock.readLock().lock();
+        try {
+            snapshot = new Snapshot(this);
+            filter = compileFilters(query.getFilters(), snapshot);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int chunks = (snapshot.size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream chunkStream = IntStream.range(0, chunks);
+        if (chunks > 1) {
+            chunkStream = chunkStream.parallel();
+        }
+        Map<GroupKey, double[]> groups = chunkStream
+                .mapToObj(chunk -> scanChunk(snapshot, chunk * CHUNK_SIZE,
+                        Math.min(snapshot.size, (chunk + 1) * CHUNK_SIZE), filter, groupColumns, metrics))
+                .reduce((left, right) -> merge(left, right, metrics))
+                .orElseGet(HashMap::new);
+
+        int limit = query.getLimit() != null && query.getLimit() > 0 ? query.getLimit() : 100;
+        List<AnalyticsResult.Row> rows = groups.entrySet().stream()
+                .map(entry -> toRow(entry.getKey(), entry.getValue(), groupColumns, metrics, snapshot))
+                .sorted(Comparator.comparingDouble(
+                        (AnalyticsResult.Row row) -> row.getValues().values().iterator().next()).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+
+        AnalyticsResult result = new AnalyticsResult();
+        result.setGroupBy(query.getGroupBy());
+        result.setRows(rows);
+        result.setScannedRows((long) snapshot.size);
+        result.setElapsedMicros((System.nanoTime() - start) / 1000);
+        return result;
+    }
+
+    private long rowCount() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<GroupKey, double[]> scanChunk(Snapshot snapshot, int from, int to, IntPredicate filter,
+                                              List<Column> groupColumns, List<MetricSpec> metrics) {
+        Map<GroupKey, double[]> groups = new HashMap<>();
+        long[] key = new long[groupColumns.size()];
+        for (int row = from; row < to; row++) {
+            if (!filter.test(row)) {
+                continue;
+            }
+            for (int g = 0; g < key.length; g++) {
+                key[g] = groupColumns.get(g).value(snapshot, row);
+            }
+            double[] accumulators = groups.get(new GroupKey(key));
+            if (accumulators == null) {
+                if (groups.size() >= MAX_GROUPS) {
+                    throw new IllegalArgumentException("Query produces more than " + MAX_GROUPS + " groups");
+                }
+                accumulators = newAccumulators(metrics);
+                groups.put(new GroupKey(key.clone()), accumulators);
+            }
+            for (int m = 0; m < metrics.size(); m++) {
+                metrics.get(m).accumulate(accumulators, m, snapshot, row);
+            }
+        }
+        return groups;
+    }
+
+    private static double[] newAccumulators(List<MetricSpec> metrics) {
+        // Two slots per metric: running value and row count (for avg)
+        double[] accumulators = new double[metrics.size() * 2];
+        for (int m = 0; m < metrics.size(); m++) {
+            accumulators[m * 2] = metrics.get(m).initialValue();
+        }
+        return accumulators;
+    }
+
+    private static Map<GroupKey, double[]> merge(Map<GroupKey, double[]> left, Map<GroupKey, double[]> right,
+                                                 List<MetricSpec> metrics) {
+        Map<GroupKey, double[]> target = left.size() >= right.size() ? left : right;
+        Map<GroupKey, double[]> source = target == left ? right : left;
+        source.forEach((key, accumulators) -> target.merge(key, accumulators, (a, b) -> {
+            for (int m = 0; m < metrics.size(); m++) {
+                metrics.get(m).combine(a, b, m);
+            }
+            return a;
+        }));
+        return target;
+    }
+
+    private AnalyticsResult.Row toRow(GroupKey key, double[] accumulators, List<Column> groupColumns,
+                                      List<MetricSpec> metrics, Snapshot snapshot) {
+        Map<String, Object> group = new LinkedHashMap<>();
+        for (int g = 0; g < groupColumns.size(); g++) {
+            group.put(groupColumns.get(g).fieldName, groupColumns.get(g).decode(snapshot, key.values[g]));
+        }
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (int m = 0; m < metrics.size(); m++) {
+            values.put(metrics.get(m).label(), metrics.get(m).result(accumulators, m));
+        }
+        AnalyticsResult.Row row = new AnalyticsResult.Row();
+        row.setGroup(group);
+        row.setValues(values);
+        return row;
+    }
+
+    private IntPredicate compileFilters(List<AnalyticsQuery.Filter> filters, Snapshot snapshot) {
+        IntPredicate combined = row -> true;
+        if (filters == null) {
+            return combined;
+        }
+        for (AnalyticsQuery.Filter filter : filters) {
+            // A null entry filters nothing, like an absent filter list
+            if (filter != null) {
+                combined = combined.and(compileFilter(filter, snapshot));
+            }
+        }
+        return combined;
+    }
+
+    private IntPredicate compileFilter(AnalyticsQuery.Filter filter, Snapshot snapshot) {
+        if (filter.getValues() == null || filter.getValues().isEmpty()) {
+            throw new IllegalArgumentException("Filter on '" + filter.getField() + "' needs at least one value");
+        }
+        if (filter.getValues().contains(null)) {
+            throw new IllegalArgumentException("Filter on '" + filter.getField() + "' has a null value");
+        }
+        String op = filter.getOp() != null ? filter.getOp().toLowerCase(Locale.ROOT) : "eq";
+
+        if ("revenue".equals(filter.getField())) {
+            double bound = Double.parseDouble(filter.getValues().get(0));
+            double[] revenueColumn = snapshot.revenues;
+            return switch (op) {
+                case "gte" -> row -> revenueColumn[row] >= bound;
+                case "lte" -> row -> revenueColumn[row] <= bound;
+                default -> throw new IllegalArgumentException("Revenue supports only gte and lte filters");
+            };
+        }
+
+        Column column = Column.of(filter.getField());
+        long[] encoded = filter.getValues().stream().mapToLong(value -> column.encode(snapshot, value)).toArray();
+        return switch (op) {
+            case "eq", "in" -> {
+                long[] sorted = encoded.clone();
+                Arrays.sort(sorted);
+                yield row -> Arrays.binarySearch(sorted, column.value(snapshot, row)) >= 0;
+            }
+            case "ne" -> row -> column.value(snapshot, row) != encoded[0];
+            case "gte" -> row -> column.value(snapshot, row) >= encoded[0];
+            case "lte" -> row -> column.value(snapshot, row) <= encoded[0];
+            default -> throw new IllegalArgumentException("Unknown filter op: " + filter.getOp());
+        };
+    }
+
+    private int upsertProduct(Long productId, String farmerId, String category, boolean overwrite) {
+        long id = productId != null ? productId : -1L;
+        Integer index = productIndexById.get(id);
+        if (index == null) {
+            if (productCount == productIds.length) {
+                int capacity = productIds.length * 2;
+                productIds = Arrays.copyOf(productIds, capacity);
+                productFarmerCodes = Arrays.copyOf(productFarmerCodes, capacity);
+                productCategoryCodes = Arrays.copyOf(productCategoryCodes, capacity);
+            }
+            index = productCount++;
+            productIndexById.put(id, index);
+            productIds[index] = id;
+        } else if (!overwrite) {
+            return index;
+        }
+        productFarmerCodes[index] = farmers.encode(farmerId);
+        productCategoryCodes[index] = categories.encode(category);
+        return index;
+    }
+
+    private void appendRow(Long orderId, int productIndex, String buyerId, Integer quantity, Double totalPrice,
+                           OrderStatus status, LocalDate day) {
+        if (orderId != null && rowByOrderId.get(orderId) >= 0) {
+            return;
+        }
+        if (size == orderIds.length) {
+            int capacity = orderIds.length * 2;
+            orderIds = Arrays.copyOf(orderIds, capacity);
+            productIndexes = Arrays.copyOf(productIndexes, capacity);
+            buyerCodes = Arrays.copyOf(buyerCodes, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            revenues = Arrays.copyOf(revenues, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            days = Arrays.copyOf(days, capacity);
+        }
+        int row = size;
+        orderIds[row] = orderId != null ? orderId : -1L;
+        productIndexes[row] = productIndex;
+        buyerCodes[row] = buyers.encode(buyerId);
+        quantities[row] = quantity != null ? quantity : 0;
+        revenues[row] = totalPrice != null ? totalPrice : 0.0;
+        statuses[row] = (byte) (status != null ? status.ordinal() : OrderStatus.PENDING.ordinal());
+        days[row] = day != null ? (int) day.toEpochDay() : Integer.MIN_VALUE;
+        if (orderId != null) {
+            rowByOrderId.put(orderId, row);
+        }
+        size++;
+    }
+
+    /**
+     * Array references and sizes captured under the read lock. Arrays only grow by
+     * copy, so rows below {@code size} stay readable after the lock is released.
+     */
+    private static class Snapshot {
+        final int size;
+        final int[] productIndexes;
+        final int[] buyerCodes;
+        final int[] quantities;
+        final double[] revenues;
+        final byte[] statuses;
+        final int[] days;
+        final long[] productIds;
+        final int[] productFarmerCodes;
+        final int[] productCategoryCodes;
+        final Dictionary buyers;
+        final Dictionary farmers;
+        final Dictionary categories;
+
+        Snapshot(OrderColumnStore store) {
+            this.size = store.size;
+            this.productIndexes = store.productIndexes;
+            this.buyerCodes = store.buyerCodes;
+            this.quantities = store.quantities;
+            this.revenues = store.revenues;
+            this.statuses = store.statuses;
+            this.days = store.days;
+            this.productIds = store.productIds;
+            this.productFarmerCodes = store.productFarmerCodes;
+            this.productCategoryCodes = store.productCategoryCodes;
+            this.buyers = store.buyers;
+            this.farmers = store.farmers;
+            this.categories = store.categories;
+        }
+    }
+
+    private enum Column {
+        PRODUCT_ID("productId"),
+        BUYER_ID("buyerId"),
+        FARMER_ID("farmerId"),
+        CATEGORY("category"),
+        STATUS("status"),
+        DAY("day"),
+        QUANTITY("quantity");
+
+        private final String fieldName;
+
+        Column(String fieldName) {
+            this.fieldName = fieldName;
+        }
+
+        static Column of(String field) {
+            for (Column column : values()) {
+                if (column.fieldName.equals(field)) {
+                    return column;
+                }
+            }
+            throw new IllegalArgumentException("Unknown field: " + field);
+        }
+
+        static Column dimension(String field) {
+            Column column = of(field);
+            if (column == QUANTITY) {
+                throw new IllegalArgumentException("Cannot group by measure: " + field);
+            }
+            return column;
+        }
+
+        long value(Snapshot s, int row) {
+            return switch (this) {
+                case PRODUCT_ID -> s.productIds[s.productIndexes[row]];
+                case BUYER_ID -> s.buyerCodes[row];
+                case FARMER_ID -> s.productFarmerCodes[s.productIndexes[row]];
+                case CATEGORY -> s.productCategoryCodes[s.productIndexes[row]];
+                case STATUS -> s.statuses[row];
+                case DAY -> s.days[row];
+                case QUANTITY -> s.quantities[row];
+            };
+        }
+
+        long encode(Snapshot s, String value) {
+            return switch (this) {
+                case PRODUCT_ID, QUANTITY -> Long.parseLong(value);
+                case BUYER_ID -> s.buyers.code(value);
+                case FARMER_ID -> s.farmers.code(value);
+                case CATEGORY -> s.categories.code(value);
+                case STATUS -> OrderStatus.valueOf(value.toUpperCase(Locale.ROOT)).ordinal();
+                case DAY -> LocalDate.parse(value).toEpochDay();
+            };
+        }
+
+        Object decode(Snapshot s, long value) {
+            return switch (this) {
+                case PRODUCT_ID, QUANTITY -> value;
+                case BUYER_ID -> s.buyers.value((int) value);
+                case FARMER_ID -> s.farmers.value((int) value);
+                case CATEGORY -> s.categories.value((int) value);
+                case STATUS -> OrderStatus.values()[(int) value];
+                case DAY -> value == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(value);
+            };
+        }
+    }
+
+    private record MetricSpec(String op, String field) {
+        static MetricSpec of(AnalyticsQuery.Metric metric) {
+            String op = metric.getOp() != null ? metric.getOp().toLowerCase(Locale.ROOT) : "count";
+            if (!List.of("count", "sum", "avg", "min", "max").contains(op)) {
+                throw new IllegalArgumentException("Unknown metric op: " + metric.getOp());
+            }
+            if (!"count".equals(op) && !"quantity".equals(metric.getField()) && !"revenue".equals(metric.getField())) {
+                throw new IllegalArgumentException("Metric '" + op + "' needs field quantity or revenue");
+            }
+            return new MetricSpec(op, "count".equals(op) ? null : metric.getField());
+        }
+
+        String label() {
+            return field == null ? op : op + "_" + field;
+        }
+
+        double initialValue() {
+            return switch (op) {
+                case "min" -> Double.POSITIVE_INFINITY;
+                case "max" -> Double.NEGATIVE_INFINITY;
+                default -> 0.0;
+            };
+        }
+
+        void accumulate(double[] acc, int m, Snapshot s, int row) {
+            double value = field == null ? 1.0 : "quantity".equals(field) ? s.quantities[row] : s.revenues[row];
+            int slot = m * 2;
+            switch (op) {
+                case "min" -> acc[slot] = Math.min(acc[slot], value);
+                case "max" -> acc[slot] = Math.max(acc[slot], value);
+                default -> acc[slot] += value;
+            }
+            acc[slot + 1]++;
+        }
+
+        void combine(double[] into, double[] from, int m) {
+            int slot = m * 2;
+            switch (op) {
+                case "min" -> into[slot] = Math.min(into[slot], from[slot]);
+                case "max" -> into[slot] = Math.max(into[slot], from[slot]);
+                default -> into[slot] += from[slot];
+            }
+            into[slot + 1] += from[slot + 1];
+        }
+
+        double result(double[] acc, int m) {
+            int slot = m * 2;
+            return "avg".equals(op) ? (acc[slot + 1] == 0 ? 0.0 : acc[slot] / acc[slot + 1]) : acc[slot];
+        }
+    }
+
+    private record GroupKey(long[] values) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof GroupKey key && Arrays.equals(values, key.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+    }
+
+    /**
+     * Order id to row, open addressing with linear probing over two primitive arrays, so the
+     * index costs twelve bytes a slot instead of a boxed map entry per order. Rows are only
+     * ever added. Not thread-safe, used under the store's write lock.
+     */
+    private static class RowIndex {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys;
+        private int[] rows;
+        private int size;
+
+        RowIndex(int capacity) {
+            this.keys = new long[Integer.highestOneBit(Math.max(16, capacity) - 1) << 1];
+            this.rows = new int[keys.length];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        // The row holding the order, or -1
+        int get(long orderId) {
+            int mask = keys.length - 1;
+            for (int slot = slot(orderId, mask); ; slot = (slot + 1) & mask) {
+                if (keys[slot] == orderId) {
+                    return rows[slot];
+                }
+                if (keys[slot] == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        void put(long orderId, int row) {
+            // Kept at most three quarters full so probe runs stay short
+            if ((size + 1) * 4L > keys.length * 3L) {
+                grow();
+            }
+            if (insert(keys, rows, orderId, row)) {
+                size++;
+            }
+        }
+
+        private void grow() {
+            long[] grownKeys = new long[keys.length * 2];
+            int[] grownRows = new int[grownKeys.length];
+            Arrays.fill(grownKeys, EMPTY);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY) {
+                    insert(grownKeys, grownRows, keys[slot], rows[slot]);
+                }
+            }
+            keys = grownKeys;
+            rows = grownRows;
+        }
+
+        private static boolean insert(long[] keys, int[] rows, long orderId, int row) {
+            int mask = keys.length - 1;
+            int slot = slot(orderId, mask);
+            while (keys[slot] != EMPTY && keys[slot] != orderId) {
+                slot = (slot + 1) & mask;
+            }
+            boolean added = keys[slot] == EMPTY;
+            keys[slot] = orderId;
+            rows[slot] = row;
+            return added;
+        }
+
+        private static int slot(long orderId, int mask) {
+            // Sequential ids would cluster without mixing
+            long mixed = orderId * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32)) & mask;
+        }
+    }
+
+    /**
+     * Append-only string dictionary; code -1 stands for null. Codes are only assigned
+     * under the store's write lock, lookups are safe from concurrent queries.
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        private volatile String[] values = new String[64];
+        private int count;
+
+        int encode(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            String[] current = values;
+            if (count == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[count] = value;
+            values = current;
+            codes.put(value, count);
+            return count++;
+        }
+
+        int code(String value) {
+            if (value == null) {
+                return -1;
+            }
+            // Unknown values get a code no row carries
+            return codes.getOrDefault(value, -2);
+        }
+
+        String value(int code) {
+            String[] current = values;
+            return code >= 0 && code < current.length ? current[code] : null;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package uz.javachi.devops_assignment.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import uz.javachi.devops_assignment.model.IdempotencyKey;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.repository.IdempotencyKeyRepository;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes order creation safe to retry under an {@code Idempotency-Key}. A repeated key gets
+ * the order created by its first use without running {@link OrderService#createOrder} again.
+ *
+ * <p>Recent keys are answered from a bounded LRU map. Behind it, every key is written to
+ * {@code idempotency_keys} in the same transaction as its order; the row goes in first, so
+ * a second instance racing on the same key blocks on the primary key and then fails before
+ * touching stock. Concurrent requests for one key on this instance share a single attempt.
+ */
+@Slf4j
+@Component
+public class OrderIdempotency {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final OrderArchive orderArchive;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final long inFlightWaitMillis;
+    private final Map<String, CachedOrder> recent;
+    private final Map<String, CompletableFuture<Order>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter cachedCounter;
+    private final Counter storedCounter;
+    private final Counter createdCounter;
+
+    public OrderIdempotency(OrderService orderService,
+                            OrderRepository orderRepository,
+                            OrderArchive orderArchive,
+                            IdempotencyKeyRepository idempotencyKeyRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                            @Value("${idempotency.cache-size:10000}") int cacheSize,
+                            @Value("${idempotency.in-flight-wait-ms:10000}") long inFlightWaitMillis,
+                            MeterRegistry meterRegistry) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.orderArchive = orderArchive;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.inFlightWaitMillis = inFlightWaitMillis;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedOrder> eldest) {
+                return size() > cacheSize;
+            }
+        });
+
+        this.cachedCounter = Counter.builder("idempotency.requests")
+                .description("Order creations carrying an Idempotency-Key")
+                .tag("result", "cached")
+                .register(meterRegistry);
+
+        this.storedCounter = Counter.builder("idempotency.requests")
+                .description("Order creations carrying an Idempotency-Key")
+                .tag("result", "stored")
+                .register(meterRegistry);
+
+        this.createdCounter = Counter.builder("idempotency.requests")
+                .description("Order creations carrying an Idempotency-Key")
+                .tag("result", "created")
+                .register(meterRegistry);
+
+        Gauge.builder("idempotency.cache.size", recent, Map::size)
+                .description("Idempotency keys held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates the order, or returns the one already created under {@code key}.
+     *
+     * @throws IllegalArgumentException if the key is malformed
+     * @throws IllegalStateException if the key was first used for a different request, or its
+     *         order has since been deleted
+     */
+    public Result createOrder(String key, Order order) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String fingerprint = fingerprint(order);
+
+        Order cached = cachedOrder(key, fingerprint);
+        if (cached != null) {
+            return new Result(cached, true);
+        }
+
+        CompletableFuture<Order> attempt = new CompletableFuture<>();
+        CompletableFuture<Order> running = inFlight.putIfAbsent(key, attempt);
+        if (running != null) {
+            Order first = await(key, running);
+            checkFingerprint(key, fingerprint, fingerprint(first));
+            cachedCounter.increment();
+            return new Result(first, true);
+        }
+
+        try {
+            // The previous holder of the key may have finished between the lookup and claiming it
+            cached = cachedOrder(key, fingerprint);
+            if (cached != null) {
+                attempt.complete(cached);
+                return new Result(cached, true);
+            }
+
+            Order stored = storedOrder(key, fingerprint);
+            boolean replayed = stored != null;
+            Order result = replayed ? stored : create(key, fingerprint, order);
+            if (replayed) {
+                storedCounter.increment();
+            }
+            recent.put(key, new CachedOrder(result, fingerprint, LocalDateTime.now().plus(ttl)));
+            attempt.complete(result);
+            return new Result(result, replayed);
+        } catch (RuntimeException e) {
+            attempt.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, attempt);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = idempotencyKeyRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private Order create(String key, String fingerprint, Order order) {
+        try {
+            Order created = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                idempotencyKeyRepository.deleteIfExpired(key, now);
+                idempotencyKeyRepository.insert(key, fingerprint, now, now.plus(ttl));
+                Order saved = orderService.createOrder(order);
+                idempotencyKeyRepository.attachOrder(key, saved.getId());
+                return saved;
+            });
+            createdCounter.increment();
+            return created;
+        } catch (DataIntegrityViolationException e) {
+            // Another instance holds the key and has committed its order by now
+            Order stored = storedOrder(key, fingerprint);
+            if (stored == null) {
+                throw e;
+            }
+            storedCounter.increment();
+            return stored;
+        }
+    }
+
+    private Order cachedOrder(String key, String fingerprint) {
+        CachedOrder entry = recent.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt().isBefore(LocalDateTime.now())) {
+            recent.remove(key);
+            return null;
+        }
+        checkFingerprint(key, fingerprint, entry.fingerprint());
+        cachedCounter.increment();
+        return entry.order();
+    }
+
+    private Order storedOrder(String key, String fingerprint) {
+        IdempotencyKey stored = idempotencyKeyRepository.findById(key).orElse(null);
+        if (stored == null || stored.getOrderId() == null || stored.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return null;
+        }
+        checkFingerprint(key, fingerprint, stored.getFingerprint());
+        // The order may have been archived since, or deleted; a deleted one cannot be replayed
+        Long orderId = stored.getOrderId();
+        return orderRepository.findById(orderId)
+                .or(() -> orderArchive.findById(orderId))
+                .orElseThrow(() -> new IllegalStateException(
+                        "Idempotency-Key " + key + " was used for order " + orderId + ", which no longer exists"));
+    }
+
+    private Order await(String key, CompletableFuture<Order> running) {
+        try {
+            return running.get(inFlightWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // The first attempt failed, so nothing was created; the caller may retry with the same key
+            throw e.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("A request with Idempotency-Key " + key + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for Idempotency-Key " + key, e);
+        }
+    }
+
+    private static void checkFingerprint(String key, String expected, String actual) {
+        if (!Objects.equals(expected, actual)) {
+            throw new IllegalStateException("Idempotency-Key " + key + " was already used for a different order");
+        }
+    }
+
+    private static String fingerprint(Order order) {
+        return order.getProductId() + ":" + order.getBuyerId() + ":" + order.getQuantity();
+    }
+
+    public record Result(Order order, boolean replayed) {
+    }
+
+    private record CachedOrder(Order order, String fingerprint, LocalDateTime expiresAt) {
+    }
+}
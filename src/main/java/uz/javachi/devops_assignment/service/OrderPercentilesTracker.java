@@ -0,0 +1,124 @@
+package uz.javachi.devops_assignment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OrderPercentiles;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Order value and quantity distributions kept as t-digests, one pair for all orders
+ * and one per product. Each order costs a buffered append; percentiles are read
+ * from the digest without touching the orders table. Archived orders are replayed
+ * along with the table on startup.
+ */
+@Slf4j
+@Component
+public class OrderPercentilesTracker {
+
+    private final OrderRepository orderRepository;
+    private final OrderArchive orderArchive;
+    private final double compression;
+    private final Digests overall;
+    private final Map<Long, Digests> byProduct = new ConcurrentHashMap<>();
+
+    public OrderPercentilesTracker(OrderRepository orderRepository,
+                                   OrderArchive orderArchive,
+                                   @Value("${dashboard.percentiles.compression:100}") double compression) {
+        this.orderRepository = orderRepository;
+        this.orderArchive = orderArchive;
+        this.compression = compression;
+        this.overall = new Digests(compression);
+    }
+
+    @Transactional(readOnly = true)
+    public void load() {
+        long start = System.currentTimeMillis();
+
+        AtomicLong loaded = new AtomicLong();
+        try (Stream<OrderRepository.OrderFact> facts = orderRepository.streamOrderFacts()) {
+            facts.forEach(fact -> {
+                record(fact.getProductId(), fact.getTotalPrice(), fact.getQuantity());
+                loaded.incrementAndGet();
+            });
+        }
+        orderArchive.forEachOrder(order -> {
+            record(order.getProductId(), order.getTotalPrice(), order.getQuantity());
+            loaded.incrementAndGet();
+        });
+
+        log.info("Order percentile digests loaded from {} orders in {} ms",
+                loaded.get(), System.currentTimeMillis() - start);
+    }
+
+    public void record(Order order) {
+        record(order.getProductId(), order.getTotalPrice(), order.getQuantity());
+    }
+
+    private void record(Long productId, Double totalPrice, Integer quantity) {
+        overall.add(totalPrice, quantity);
+        if (productId != null) {
+            byProduct.computeIfAbsent(productId, id -> new Digests(compression)).add(totalPrice, quantity);
+        }
+    }
+
+    public OrderPercentiles overall() {
+        return overall.summarize(null);
+    }
+
+    public OrderPercentiles product(Long productId) {
+        if (productId == null) {
+            throw new IllegalArgumentException("Product id is required");
+        }
+        Digests digests = byProduct.get(productId);
+        return (digests != null ? digests : new Digests(compression)).summarize(productId);
+    }
+
+    private static class Digests {
+        private final TDigest orderValue;
+        private final TDigest quantity;
+
+        Digests(double compression) {
+            this.orderValue = new TDigest(compression);
+            this.quantity = new TDigest(compression);
+        }
+
+        synchronized void add(Double totalPrice, Integer orderQuantity) {
+            if (totalPrice != null) {
+                orderValue.add(totalPrice);
+            }
+            if (orderQuantity != null) {
+                quantity.add(orderQuantity);
+            }
+        }
+
+        synchronized OrderPercentiles summarize(Long productId) {
+            OrderPercentiles percentiles = new OrderPercentiles();
+            percentiles.setProductId(productId);
+            percentiles.setOrderCount(orderValue.count());
+            percentiles.setOrderValue(distribution(orderValue));
+            percentiles.setQuantity(distribution(quantity));
+            return percentiles;
+        }
+
+        private static OrderPercentiles.Distribution distribution(TDigest digest) {
+            OrderPercentiles.Distribution distribution = new OrderPercentiles.Distribution();
+            if (digest.count() == 0) {
+                return distribution;
+            }
+            distribution.setMin(digest.min());
+            distribution.setP50(digest.quantile(0.50));
+            distribution.setP90(digest.quantile(0.90));
+            distribution.setP99(digest.quantile(0.99));
+            distribution.setMax(digest.max());
+            return distribution;
+        }
+    }
+}
@@ -5,35 +5,84 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uz.javachi.devops_assignment.model.BatchOrderResult;
+import uz.javachi.devops_assignment.model.BulkStatusResult;
+import uz.javachi.devops_assignment.model.CursorPage;
 import uz.javachi.devops_assignment.model.Order;
 import uz.javachi.devops_assignment.model.OrderStatus;
+import uz.javachi.devops_assignment.model.PageCursor;
 import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.repository.OrderBatchRepository;
 import uz.javachi.devops_assignment.repository.OrderRepository;
-import uz.javachi.devops_assignment.repository.ProductRepository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.LongStream;
 
 @Slf4j
 @Service
 public class OrderService {
 
+    public static final int MAX_BATCH_LINES = 500;
+    public static final int MAX_STATUS_IDS = 10_000;
+    public static final int DEFAULT_HISTORY_DAYS = 30;
+
     private final OrderRepository orderRepository;
-    private final ProductRepository productRepository;
-    private final NotificationService notificationService;
+    private final OrderBatchRepository orderBatchRepository;
+    private final ProductCache productCache;
+    private final Outbox outbox;
+    private final InventoryReservations inventoryReservations;
+    private final DashboardAggregates dashboardAggregates;
+    private final DashboardStreamPublisher dashboardStreamPublisher;
+    private final OrderColumnStore orderColumnStore;
+    private final OrderTimeSeries orderTimeSeries;
+    private final PopularProductsTracker popularProductsTracker;
+    private final UniqueBuyersTracker uniqueBuyersTracker;
+    private final OrderPercentilesTracker orderPercentilesTracker;
+    private final OrderArchive orderArchive;
     private final Counter orderCreateCounter;
     private final Counter orderUpdateCounter;
     private final Counter orderErrorCounter;
     private final Timer orderQueryTimer;
 
     public OrderService(OrderRepository orderRepository, 
-                       ProductRepository productRepository,
-                       NotificationService notificationService,
+                       OrderBatchRepository orderBatchRepository,
+                       ProductCache productCache,
+                       Outbox outbox,
+                       InventoryReservations inventoryReservations,
+                       DashboardAggregates dashboardAggregates,
+                       DashboardStreamPublisher dashboardStreamPublisher,
+                       OrderColumnStore orderColumnStore,
+                       OrderTimeSeries orderTimeSeries,
+                       PopularProductsTracker popularProductsTracker,
+                       UniqueBuyersTracker uniqueBuyersTracker,
+                       OrderPercentilesTracker orderPercentilesTracker,
+                       OrderArchive orderArchive,
                        MeterRegistry meterRegistry) {
         this.orderRepository = orderRepository;
-        this.productRepository = productRepository;
-        this.notificationService = notificationService;
+        this.orderBatchRepository = orderBatchRepository;
+        this.productCache = productCache;
+        this.outbox = outbox;
+        this.inventoryReservations = inventoryReservations;
+        this.dashboardAggregates = dashboardAggregates;
+        this.dashboardStreamPublisher = dashboardStreamPublisher;
+        this.orderColumnStore = orderColumnStore;
+        this.orderTimeSeries = orderTimeSeries;
+        this.popularProductsTracker = popularProductsTracker;
+        this.uniqueBuyersTracker = uniqueBuyersTracker;
+        this.orderPercentilesTracker = orderPercentilesTracker;
+        this.orderArchive = orderArchive;
         
         this.orderCreateCounter = Counter.builder("orders.created.total")
                 .description("Total number of orders created")
@@ -56,11 +105,20 @@ public class OrderService {
                 .register(meterRegistry);
     }
 
-    @Timed(value = "orders.service.getAll", description = "Time to fetch all orders")
-    public List<Order> getAllOrders() {
+    @Timed(value = "orders.service.getPage", description = "Time to fetch a page of orders")
+    public CursorPage<Order> getOrdersPage(String cursor, int limit) {
         return orderQueryTimer.record(() -> {
-            log.info("Getting all orders");
-            return orderRepository.findAll();
+            CursorPage.checkLimit(limit);
+            log.info("Getting orders page, limit: {}", limit);
+            
+            List<Order> rows;
+            if (cursor == null || cursor.isBlank()) {
+                rows = orderRepository.findPage(Limit.of(limit + 1));
+            } else {
+                PageCursor after = PageCursor.decode(cursor);
+                rows = orderRepository.findPageBefore(after.createdAt(), after.longId(), Limit.of(limit + 1));
+            }
+            return CursorPage.of(rows, limit, order -> PageCursor.of(order.getCreatedAt(), order.getId()));
         });
     }
 
@@ -72,7 +130,10 @@ public class OrderService {
             }
             
             log.info("Getting order by id: {}", id);
-            return orderRepository.findById(id).orElse(null);
+            // Finished orders move to the archive once they age out of the table
+            return orderRepository.findById(id)
+                    .or(() -> orderArchive.findById(id))
+                    .orElse(null);
         });
     }
 
@@ -98,36 +159,167 @@ public class OrderService {
             order.setId(null);
             
             // Validate product exists and has enough quantity
-            Product product = productRepository.findById(order.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + order.getProductId()));
+            Product product = productCache.get(order.getProductId());
+            if (product == null) {
+                throw new RuntimeException("Product not found with id: " + order.getProductId());
+            }
             
             if (product.getPrice() == null || product.getPrice() <= 0) {
                 throw new RuntimeException("Product price is invalid");
             }
             
-            if (product.getQuantity() == null || product.getQuantity() < order.getQuantity()) {
+            // Stock is taken in memory; the product row is updated later by the inventory flush
+            if (!inventoryReservations.reserve(product.getId(), order.getQuantity())) {
                 throw new RuntimeException("Insufficient product quantity. Available: " + 
-                    (product.getQuantity() != null ? product.getQuantity() : 0));
+                    inventoryReservations.available(product.getId()));
             }
             
             // Calculate total price
             order.setTotalPrice(product.getPrice() * order.getQuantity());
             order.setStatus(OrderStatus.PENDING);
+            order.setStockPending(true);
             // createdAt will be set automatically by @PrePersist
-            // Update product quantity
-            product.setQuantity(product.getQuantity() - order.getQuantity());
-            productRepository.save(product);
             
             Order saved = orderRepository.save(order);
-            orderCreateCounter.increment();
+            afterCommit(() -> {
+                recordCreated(saved, product);
+                dashboardStreamPublisher.markDirty();
+            });
             
-            // Send notification to farmer
-            notificationService.sendOrderNotification(saved, product);
+            // Farmer notification commits with the order and is sent later by the outbox relay
+            outbox.orderCreated(saved);
             
             return saved;
         });
     }
 
+    /**
+     * Creates many orders in one transaction. Each distinct product is loaded once,
+     * lines are validated, priced and reserved against the in-memory stock, and all
+     * accepted orders are inserted in a single JDBC batch. Lines that fail validation
+     * are reported individually and do not abort the others.
+     */
+    @Timed(value = "orders.service.createBatch", description = "Time to create a batch of orders")
+    @Transactional
+    public BatchOrderResult createOrders(List<Order> lines) {
+        return orderQueryTimer.record(() -> {
+            if (lines == null || lines.isEmpty()) {
+                throw new IllegalArgumentException("At least one order line is required");
+            }
+            if (lines.size() > MAX_BATCH_LINES) {
+                throw new IllegalArgumentException("A batch may contain at most " + MAX_BATCH_LINES + " lines");
+            }
+            
+            log.info("Creating batch of {} orders", lines.size());
+            
+            Set<Long> productIds = new LinkedHashSet<>();
+            for (Order line : lines) {
+                if (line != null && line.getProductId() != null) {
+                    productIds.add(line.getProductId());
+                }
+            }
+            Map<Long, Product> products = productCache.getAll(productIds);
+            
+            LocalDateTime now = LocalDateTime.now();
+            List<BatchOrderResult.Line> results = new ArrayList<>();
+            List<Order> accepted = new ArrayList<>();
+            for (int i = 0; i < lines.size(); i++) {
+                Order line = lines.get(i);
+                BatchOrderResult.Line result = new BatchOrderResult.Line();
+                result.setIndex(i);
+                results.add(result);
+                if (line == null) {
+                    result.setError("Order cannot be null");
+                    continue;
+                }
+                result.setProductId(line.getProductId());
+                
+                String error = validateBatchLine(line, products.get(line.getProductId()));
+                if (error != null) {
+                    result.setError(error);
+                    continue;
+                }
+                
+                Product product = products.get(line.getProductId());
+                if (!inventoryReservations.reserve(product.getId(), line.getQuantity())) {
+                    result.setError("Insufficient product quantity. Available: " +
+                        inventoryReservations.available(product.getId()));
+                    continue;
+                }
+                line.setId(null);
+                line.setTotalPrice(product.getPrice() * line.getQuantity());
+                line.setStatus(OrderStatus.PENDING);
+                line.setStockPending(true);
+                line.setCreatedAt(now);
+                
+                result.setSuccess(true);
+                result.setOrder(line);
+                accepted.add(line);
+            }
+            
+            orderBatchRepository.insertAll(accepted);
+            if (!accepted.isEmpty()) {
+                afterCommit(() -> {
+                    for (Order saved : accepted) {
+                        recordCreated(saved, products.get(saved.getProductId()));
+                    }
+                    dashboardStreamPublisher.markDirty();
+                });
+                outbox.ordersCreated(accepted);
+            }
+            
+            BatchOrderResult batch = new BatchOrderResult();
+            batch.setRequested(lines.size());
+            batch.setCreated(accepted.size());
+            batch.setRejected(lines.size() - accepted.size());
+            batch.setLines(results);
+            return batch;
+        });
+    }
+
+    private String validateBatchLine(Order line, Product product) {
+        if (line.getProductId() == null) {
+            return "Product ID is required";
+        }
+        if (line.getBuyerId() == null || line.getBuyerId().trim().isEmpty()) {
+            return "Buyer ID is required";
+        }
+        if (line.getQuantity() == null || line.getQuantity() <= 0) {
+            return "Quantity must be positive";
+        }
+        if (product == null) {
+            return "Product not found with id: " + line.getProductId();
+        }
+        if (product.getPrice() == null || product.getPrice() <= 0) {
+            return "Product price is invalid";
+        }
+        return null;
+    }
+
+    // The in-memory views only see committed orders, so a rollback leaves nothing behind in them
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void recordCreated(Order saved, Product product) {
+        orderCreateCounter.increment();
+        dashboardAggregates.recordOrderCreated(saved, product);
+        orderTimeSeries.record(saved);
+        popularProductsTracker.record(saved);
+        uniqueBuyersTracker.record(saved, product);
+        orderPercentilesTracker.record(saved);
+        orderColumnStore.recordOrderCreated(saved, product);
+    }
+
     @Timed(value = "orders.service.updateStatus", description = "Time to update order status")
     public Order updateOrderStatus(Long id, OrderStatus status) {
         return orderQueryTimer.record(() -> {
@@ -143,23 +335,187 @@ public class OrderService {
             Order order = orderRepository.findById(id)
                     .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
             
+            OrderStatus oldStatus = order.getStatus();
+            if (oldStatus != null && oldStatus != status && !oldStatus.canTransitionTo(status)) {
+                throw new IllegalArgumentException("Cannot change order status from " + oldStatus + " to " + status);
+            }
             order.setStatus(status);
             Order updated = orderRepository.save(order);
             orderUpdateCounter.increment();
+            dashboardAggregates.recordStatusChange(oldStatus, status);
+            orderColumnStore.recordStatusChange(id, status);
+            dashboardStreamPublisher.markDirty();
             
             return updated;
         });
     }
 
+    /**
+     * Moves every order named by {@code ids}, or else every order matching the filter, to
+     * {@code target}; {@code fromStatus} narrows either. Naming ids together with a productId or
+     * buyerId filter is rejected rather than ignoring one of them. Orders are taken in chunks of
+     * at most {@code MAX_STATUS_IDS}, and each chunk gets one UPDATE per allowed source status, so
+     * {@code matched} counts the orders selected and {@code applied} the rows those UPDATEs changed,
+     * which also gives the exact per-status counts for the dashboard aggregates. The rest, whose
+     * status cannot move to the target, are rejected. The in-memory views are updated once it commits.
+     */
+    @Timed(value = "orders.service.updateStatuses", description = "Time to update order statuses in bulk")
+    @Transactional
+    public BulkStatusResult updateOrderStatuses(List<Long> ids, OrderStatus fromStatus, Long productId,
+                                                String buyerId, OrderStatus target) {
+        return orderQueryTimer.record(() -> {
+            if (target == null) {
+                throw new IllegalArgumentException("Order status cannot be null");
+            }
+            boolean byIds = ids != null && !ids.isEmpty();
+            if (!byIds && fromStatus == null && productId == null && buyerId == null) {
+                throw new IllegalArgumentException("Either ids or a filter (fromStatus, productId, buyerId) is required");
+            }
+            if (byIds && (productId != null || buyerId != null)) {
+                throw new IllegalArgumentException("ids cannot be combined with a productId or buyerId filter");
+            }
+            
+            Set<Long> distinctIds = byIds ? new LinkedHashSet<>(ids) : Set.of();
+            if (distinctIds.size() > MAX_STATUS_IDS) {
+                throw new IllegalArgumentException("At most " + MAX_STATUS_IDS + " ids may be updated at once");
+            }
+            
+            log.info("Updating order statuses to {}: {}", target, byIds
+                    ? distinctIds.size() + " ids, fromStatus=" + fromStatus
+                    : "fromStatus=" + fromStatus + ", productId=" + productId + ", buyerId=" + buyerId);
+            
+            long matched;
+            Map<OrderStatus, Long> appliedBySource = new EnumMap<>(OrderStatus.class);
+            LongStream.Builder changed = LongStream.builder();
+            if (byIds) {
+                // Ids that do not exist, or are not at fromStatus, are matched but rejected
+                matched = distinctIds.size();
+                updateChunk(distinctIds, fromStatus, target, appliedBySource, changed);
+            } else {
+                matched = updateMatchingInChunks(fromStatus, productId, buyerId, target, appliedBySource, changed);
+            }
+            long applied = appliedBySource.values().stream().mapToLong(Long::longValue).sum();
+            
+            if (applied > 0) {
+                long total = applied;
+                long[] changedIds = changed.build().toArray();
+                afterCommit(() -> {
+                    appliedBySource.forEach((source, count) -> dashboardAggregates.recordStatusChanges(source, target, count));
+                    orderColumnStore.recordStatusChanges(changedIds, target);
+                    orderUpdateCounter.increment(total);
+                    dashboardStreamPublisher.markDirty();
+                });
+            }
+            
+            BulkStatusResult result = new BulkStatusResult();
+            result.setStatus(target);
+            result.setMatched(matched);
+            result.setApplied(applied);
+            result.setRejected(matched - applied);
+            return result;
+        });
+    }
+
+    // Selects a chunk of matching ids and updates exactly those, so only ids are ever loaded,
+    // however many orders the filter matches. Returns the number of orders selected
+    private long updateMatchingInChunks(OrderStatus fromStatus, Long productId, String buyerId, OrderStatus target,
+                                        Map<OrderStatus, Long> appliedBySource, LongStream.Builder changed) {
+        long matched = 0;
+        long afterId = Long.MIN_VALUE;
+        List<Long> chunk;
+        do {
+            chunk = orderRepository.findIdsWhere(fromStatus, productId, buyerId, afterId, Limit.of(MAX_STATUS_IDS));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            matched += chunk.size();
+            updateChunk(chunk, fromStatus, target, appliedBySource, changed);
+            afterId = chunk.get(chunk.size() - 1);
+        } while (chunk.size() == MAX_STATUS_IDS);
+        return matched;
+    }
+
+    // One UPDATE per status the chunk may move from; rows in any other status are left as they are
+    private void updateChunk(Collection<Long> chunk, OrderStatus fromStatus, OrderStatus target,
+                             Map<OrderStatus, Long> appliedBySource, LongStream.Builder changed) {
+        int updated = 0;
+        for (OrderStatus source : OrderStatus.sourcesOf(target)) {
+            if (fromStatus != null && fromStatus != source) {
+                continue;
+            }
+            int count = orderRepository.updateStatusByIds(chunk, source, target);
+            appliedBySource.merge(source, (long) count, Long::sum);
+            updated += count;
+        }
+        if (updated > 0) {
+            // Orders that were already at the target are included too; recording them again changes nothing
+            Collection<Long> chunkChanged = updated == chunk.size() ? chunk : orderRepository.findIdsByIdInAndStatus(chunk, target);
+            chunkChanged.forEach(changed::add);
+        }
+    }
+
     @Timed(value = "orders.service.getByBuyer", description = "Time to fetch orders by buyer")
-    public List<Order> getOrdersByBuyer(String buyerId) {
+    public CursorPage<Order> getOrdersByBuyer(String buyerId, LocalDateTime from, LocalDateTime to,
+                                              String cursor, int limit) {
         return orderQueryTimer.record(() -> {
             if (buyerId == null || buyerId.trim().isEmpty()) {
-                throw new RuntimeException("Buyer ID cannot be null or empty");
+                throw new IllegalArgumentException("Buyer ID cannot be null or empty");
             }
+            CursorPage.checkLimit(limit);
+            PageCursor after = cursor != null && !cursor.isBlank() ? PageCursor.decode(cursor) : null;
+            LocalDateTime start = historyStart(from, to, after);
             
-            log.info("Getting orders for buyer: {}", buyerId);
-            return orderRepository.findByBuyerId(buyerId);
+            log.info("Getting orders for buyer: {} from {} to {}", buyerId, start, to);
+            List<Order> rows;
+            if (after != null) {
+                rows = orderRepository.findBuyerPageBefore(buyerId, start, after.createdAt(), after.longId(), Limit.of(limit + 1));
+            } else if (to != null) {
+                rows = orderRepository.findBuyerPageBefore(buyerId, start, to, Long.MIN_VALUE, Limit.of(limit + 1));
+            } else {
+                rows = orderRepository.findBuyerPage(buyerId, start, Limit.of(limit + 1));
+            }
+            return CursorPage.of(rows, limit, order -> PageCursor.of(order.getCreatedAt(), order.getId(), start));
         });
     }
+
+    @Timed(value = "orders.service.getByProduct", description = "Time to fetch orders by product")
+    public CursorPage<Order> getOrdersByProduct(Long productId, LocalDateTime from, LocalDateTime to,
+                                                String cursor, int limit) {
+        return orderQueryTimer.record(() -> {
+            if (productId == null) {
+                throw new IllegalArgumentException("Product ID cannot be null");
+            }
+            CursorPage.checkLimit(limit);
+            PageCursor after = cursor != null && !cursor.isBlank() ? PageCursor.decode(cursor) : null;
+            LocalDateTime start = historyStart(from, to, after);
+            
+            log.info("Getting orders for product: {} from {} to {}", productId, start, to);
+            List<Order> rows;
+            if (after != null) {
+                rows = orderRepository.findProductPageBefore(productId, start, after.createdAt(), after.longId(), Limit.of(limit + 1));
+            } else if (to != null) {
+                rows = orderRepository.findProductPageBefore(productId, start, to, Long.MIN_VALUE, Limit.of(limit + 1));
+            } else {
+                rows = orderRepository.findProductPage(productId, start, Limit.of(limit + 1));
+            }
+            return CursorPage.of(rows, limit, order -> PageCursor.of(order.getCreatedAt(), order.getId(), start));
+        });
+    }
+
+    // History is bounded below so every query is a finite index range: the last month by default.
+    // Later pages keep the window of the first, carried in the cursor, rather than sliding it with the clock
+    private static LocalDateTime historyStart(LocalDateTime from, LocalDateTime to, PageCursor after) {
+        LocalDateTime start;
+        if (from != null) {
+            start = from;
+        } else if (after != null && after.windowStart() != null) {
+            start = after.windowStart();
+        } else {
+            start = (to != null ? to : LocalDateTime.now()).minusDays(DEFAULT_HISTORY_DAYS);
+        }
+        if (to != null && !start.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        return start;
+    }
 }
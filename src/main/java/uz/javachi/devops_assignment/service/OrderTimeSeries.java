@@ -0,0 +1,319 @@
+package uz.javachi.devops_assignment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OrderRollup;
+import uz.javachi.devops_assignment.model.TimeGranularity;
+import uz.javachi.devops_assignment.model.TimeSeries;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+import uz.javachi.devops_assignment.repository.OrderRollupRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Per-minute, per-hour and per-day order/revenue rollups kept in fixed-size ring
+ * buffers. Hour and day buckets are flushed to the order_rollups table so ranges
+ * older than the ring coverage can still be served without touching orders.
+ */
+@Slf4j
+@Component
+public class OrderTimeSeries {
+
+    public static final int MAX_POINTS = 1500;
+
+    private final OrderRepository orderRepository;
+    private final OrderRollupRepository orderRollupRepository;
+    private final Map<TimeGranularity, BucketRing> rings = new EnumMap<>(TimeGranularity.class);
+    private final Map<TimeGranularity, Set<Long>> dirtyBuckets = new EnumMap<>(TimeGranularity.class);
+
+    public OrderTimeSeries(OrderRepository orderRepository, OrderRollupRepository orderRollupRepository) {
+        this.orderRepository = orderRepository;
+        this.orderRollupRepository = orderRollupRepository;
+
+        rings.put(TimeGranularity.MINUTE, new BucketRing(24 * 60));     // last 24 hours
+        rings.put(TimeGranularity.HOUR, new BucketRing(31 * 24));       // last 31 days
+        rings.put(TimeGranularity.DAY, new BucketRing(400));            // last ~13 months
+        dirtyBuckets.put(TimeGranularity.HOUR, ConcurrentHashMap.newKeySet());
+        dirtyBuckets.put(TimeGranularity.DAY, ConcurrentHashMap.newKeySet());
+    }
+
+    @Transactional
+    public void load() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+
+        // Everything before the day of the last flushed hour is durable in the rollup table;
+        // from there on hours and days are rebuilt from the orders themselves, since that day may be partial.
+        LocalDateTime rollupsUntil = orderRollupRepository.findFirstByGranularityOrderByBucketStartDesc(TimeGranularity.HOUR)
+                .map(rollup -> rollup.getBucketStart().toLocalDate().atStartOfDay())
+                .orElse(LocalDateTime.of(1970, 1, 1, 0, 0));
+        // Minutes are never persisted, so the whole minute ring is replayed whatever the rollups hold
+        BucketRing minutes = rings.get(TimeGranularity.MINUTE);
+        LocalDateTime minutesFrom = bucketStart(TimeGranularity.MINUTE,
+                minutes.oldestBucket(bucketOf(TimeGranularity.MINUTE, now)));
+        LocalDateTime replayFrom = rollupsUntil.isBefore(minutesFrom) ? rollupsUntil : minutesFrom;
+
+        for (TimeGranularity granularity : dirtyBuckets.keySet()) {
+            BucketRing ring = rings.get(granularity);
+            LocalDateTime ringStart = bucketStart(granularity, ring.oldestBucket(bucketOf(granularity, now)));
+            if (ringStart.isBefore(rollupsUntil)) {
+                orderRollupRepository
+                        .findByGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                                granularity, ringStart, rollupsUntil)
+                        .forEach(rollup -> ring.set(bucketOf(granularity, rollup.getBucketStart()),
+                                rollup.getOrderCount(), rollup.getRevenue()));
+            }
+        }
+
+        // Hours and days older than the rings (a first start on an existing database, or downtime
+        // longer than a ring) are totalled here and written straight to the table
+        Map<TimeGranularity, Map<Long, OrderRollup>> backfill = new EnumMap<>(TimeGranularity.class);
+        AtomicLong replayed = new AtomicLong();
+        try (Stream<OrderRepository.OrderValue> replay = orderRepository.streamOrderValuesSince(replayFrom)) {
+            replay.forEach(value -> {
+                replay(value, rollupsUntil, now, backfill);
+                replayed.incrementAndGet();
+            });
+        }
+        backfill.forEach(this::saveBackfill);
+
+        log.info("Order time series loaded, replayed {} orders since {} in {} ms",
+                replayed.get(), replayFrom, System.currentTimeMillis() - start);
+    }
+
+    private void replay(OrderRepository.OrderValue value, LocalDateTime rollupsUntil, LocalDateTime now,
+                        Map<TimeGranularity, Map<Long, OrderRollup>> backfill) {
+        if (value.getCreatedAt() == null) {
+            return;
+        }
+        double revenue = value.getTotalPrice() != null ? value.getTotalPrice() : 0.0;
+        for (Map.Entry<TimeGranularity, BucketRing> entry : rings.entrySet()) {
+            TimeGranularity granularity = entry.getKey();
+            Set<Long> dirty = dirtyBuckets.get(granularity);
+            if (dirty != null && value.getCreatedAt().isBefore(rollupsUntil)) {
+                continue; // already in the rollup table, and in the ring if the ring reaches back that far
+            }
+            long bucket = bucketOf(granularity, value.getCreatedAt());
+            if (bucket >= entry.getValue().oldestBucket(bucketOf(granularity, now))) {
+                if (entry.getValue().add(bucket, 1, revenue) && dirty != null) {
+                    dirty.add(bucket);
+                }
+            } else if (dirty != null) {
+                OrderRollup rollup = backfill.computeIfAbsent(granularity, g -> new HashMap<>())
+                        .computeIfAbsent(bucket, b -> newRollup(granularity, bucketStart(granularity, b)));
+                rollup.setOrderCount(rollup.getOrderCount() + 1);
+                rollup.setRevenue(rollup.getRevenue() + revenue);
+            }
+        }
+    }
+
+    // Backfilled buckets all start at or after the replay point, so the replayed totals are complete
+    // and replace whatever an earlier run flushed for them
+    private void saveBackfill(TimeGranularity granularity, Map<Long, OrderRollup> rollups) {
+        long first = rollups.keySet().stream().mapToLong(Long::longValue).min().orElseThrow();
+        long last = rollups.keySet().stream().mapToLong(Long::longValue).max().orElseThrow();
+        orderRollupRepository
+                .findByGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                        granularity, bucketStart(granularity, first), bucketStart(granularity, last + 1))
+                .forEach(existing -> {
+                    OrderRollup replayed = rollups.get(bucketOf(granularity, existing.getBucketStart()));
+                    if (replayed != null) {
+                        existing.setOrderCount(replayed.getOrderCount());
+                        existing.setRevenue(replayed.getRevenue());
+                        rollups.put(bucketOf(granularity, existing.getBucketStart()), existing);
+                    }
+                });
+        orderRollupRepository.saveAll(rollups.values());
+    }
+
+    public void record(Order order) {
+        record(order.getCreatedAt(), order.getTotalPrice());
+    }
+
+    private void record(LocalDateTime createdAt, Double totalPrice) {
+        if (createdAt == null) {
+            return;
+        }
+        double revenue = totalPrice != null ? totalPrice : 0.0;
+        for (Map.Entry<TimeGranularity, BucketRing> entry : rings.entrySet()) {
+            long bucket = bucketOf(entry.getKey(), createdAt);
+            if (entry.getValue().add(bucket, 1, revenue)) {
+                Set<Long> dirty = dirtyBuckets.get(entry.getKey());
+                if (dirty != null) {
+                    dirty.add(bucket);
+                }
+            }
+        }
+    }
+
+    public TimeSeries query(TimeGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        if (granularity == null || from == null || to == null) {
+            throw new IllegalArgumentException("Granularity, from and to are required");
+        }
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+
+        long firstBucket = bucketOf(granularity, from);
+        long lastBucket = bucketOf(granularity, to.minusNanos(1));
+        if (lastBucket - firstBucket + 1 > MAX_POINTS) {
+            throw new IllegalArgumentException("Requested range exceeds " + MAX_POINTS + " " + granularity + " buckets");
+        }
+
+        BucketRing ring = rings.get(granularity);
+        long oldestInMemory = ring.oldestBucket(bucketOf(granularity, LocalDateTime.now()));
+
+        // Buckets that fell out of the ring come from the persisted rollups
+        Map<Long, OrderRollup> persisted = new HashMap<>();
+        if (firstBucket < oldestInMemory) {
+            if (granularity == TimeGranularity.MINUTE) {
+                throw new IllegalArgumentException("Minute resolution is only available for the last "
+                        + ring.capacity() + " minutes");
+            }
+            LocalDateTime persistedTo = bucketStart(granularity, Math.min(oldestInMemory, lastBucket + 1));
+            orderRollupRepository
+                    .findByGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                            granularity, bucketStart(granularity, firstBucket), persistedTo)
+                    .forEach(rollup -> persisted.put(bucketOf(granularity, rollup.getBucketStart()), rollup));
+        }
+
+        List<TimeSeries.Point> points = new ArrayList<>();
+        for (long bucket = firstBucket; bucket <= lastBucket; bucket++) {
+            TimeSeries.Point point = new TimeSeries.Point();
+            point.setBucketStart(bucketStart(granularity, bucket));
+            if (bucket >= oldestInMemory) {
+                point.setOrderCount(ring.count(bucket));
+                point.setRevenue(ring.revenue(bucket));
+            } else {
+                OrderRollup rollup = persisted.get(bucket);
+                point.setOrderCount(rollup != null ? rollup.getOrderCount() : 0L);
+                point.setRevenue(rollup != null ? rollup.getRevenue() : 0.0);
+            }
+            points.add(point);
+        }
+
+        TimeSeries series = new TimeSeries();
+        series.setGranularity(granularity);
+        series.setFrom(bucketStart(granularity, firstBucket));
+        series.setTo(bucketStart(granularity, lastBucket + 1));
+        series.setPoints(points);
+        return series;
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.timeseries.flush-interval-ms:60000}")
+    @Transactional
+    public void flush() {
+        List<OrderRollup> changed = new ArrayList<>();
+        for (Map.Entry<TimeGranularity, Set<Long>> entry : dirtyBuckets.entrySet()) {
+            TimeGranularity granularity = entry.getKey();
+            BucketRing ring = rings.get(granularity);
+            for (Long bucket : List.copyOf(entry.getValue())) {
+                entry.getValue().remove(bucket);
+                LocalDateTime start = bucketStart(granularity, bucket);
+                OrderRollup rollup = orderRollupRepository.findByGranularityAndBucketStart(granularity, start)
+                        .orElseGet(() -> newRollup(granularity, start));
+                rollup.setOrderCount(ring.count(bucket));
+                rollup.setRevenue(ring.revenue(bucket));
+                changed.add(rollup);
+            }
+        }
+        if (!changed.isEmpty()) {
+            orderRollupRepository.saveAll(changed);
+            log.debug("Flushed {} order rollup buckets", changed.size());
+        }
+    }
+
+    private static OrderRollup newRollup(TimeGranularity granularity, LocalDateTime bucketStart) {
+        OrderRollup rollup = new OrderRollup();
+        rollup.setGranularity(granularity);
+        rollup.setBucketStart(bucketStart);
+        rollup.setOrderCount(0L);
+        rollup.setRevenue(0.0);
+        return rollup;
+    }
+
+    private static long bucketOf(TimeGranularity granularity, LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), granularity.getSeconds());
+    }
+
+    private static LocalDateTime bucketStart(TimeGranularity granularity, long bucket) {
+        return LocalDateTime.ofEpochSecond(bucket * granularity.getSeconds(), 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Fixed number of consecutive buckets; a slot is reused once its bucket ages out.
+     */
+    private static class BucketRing {
+        private final long[] bucketIds;
+        private final long[] counts;
+        private final double[] revenues;
+        private long newestBucket = Long.MIN_VALUE;
+
+        BucketRing(int capacity) {
+            this.bucketIds = new long[capacity];
+            this.counts = new long[capacity];
+            this.revenues = new double[capacity];
+            Arrays.fill(bucketIds, Long.MIN_VALUE);
+        }
+
+        int capacity() {
+            return bucketIds.length;
+        }
+
+        synchronized long oldestBucket(long currentBucket) {
+            return Math.max(currentBucket, newestBucket) - bucketIds.length + 1;
+        }
+
+        synchronized boolean add(long bucket, long count, double revenue) {
+            if (newestBucket != Long.MIN_VALUE && bucket <= newestBucket - bucketIds.length) {
+                return false; // older than the ring covers
+            }
+            int slot = slot(bucket);
+            if (bucketIds[slot] != bucket) {
+                bucketIds[slot] = bucket;
+                counts[slot] = 0;
+                revenues[slot] = 0.0;
+            }
+            counts[slot] += count;
+            revenues[slot] += revenue;
+            newestBucket = Math.max(newestBucket, bucket);
+            return true;
+        }
+
+        synchronized void set(long bucket, long count, double revenue) {
+            int slot = slot(bucket);
+            bucketIds[slot] = bucket;
+            counts[slot] = count;
+            revenues[slot] = revenue;
+            newestBucket = Math.max(newestBucket, bucket);
+        }
+
+        synchronized long count(long bucket) {
+            int slot = slot(bucket);
+            return bucketIds[slot] == bucket ? counts[slot] : 0L;
+        }
+
+        synchronized double revenue(long bucket) {
+            int slot = slot(bucket);
+            return bucketIds[slot] == bucket ? revenues[slot] : 0.0;
+        }
+
+        private int slot(long bucket) {
+            return (int) Math.floorMod(bucket, (long) bucketIds.length);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package uz.javachi.devops_assignment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OutboxEvent;
+import uz.javachi.devops_assignment.model.OutboxEventType;
+import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.repository.OutboxRepository;
+
+import java.util.List;
+
+/**
+ * Records farmer notifications as rows of the {@code outbox_events} table inside the caller's
+ * transaction, so they commit or roll back together with the order or price change behind
+ * them. {@link OutboxRelay} creates the notifications and sends the emails afterwards.
+ */
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+public class Outbox {
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    public Outbox(OutboxRepository outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public void orderCreated(Order order) {
+        append(OutboxEventType.ORDER_CREATED, order.getId(), null);
+    }
+
+    public void ordersCreated(List<Order> orders) {
+        append(OutboxEventType.ORDER_BATCH_CREATED, null,
+                new OrderBatch(orders.stream().map(Order::getId).toList()));
+    }
+
+    /**
+     * Both prices are kept, since the product may have changed again by the time the event is relayed.
+     */
+    public void priceChanged(Product product, Double oldPrice) {
+        append(OutboxEventType.PRICE_CHANGED, product.getId(), new PriceChange(oldPrice, product.getPrice()));
+    }
+
+    private void append(OutboxEventType type, Long aggregateId, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(type);
+        event.setAggregateId(aggregateId);
+        if (payload != null) {
+            try {
+                event.setPayload(objectMapper.writeValueAsString(payload));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot serialize " + type + " outbox payload", e);
+            }
+        }
+        outboxRepository.save(event);
+    }
+
+    public record OrderBatch(List<Long> orderIds) {
+    }
+
+    public record PriceChange(Double oldPrice, Double newPrice) {
+    }
+}
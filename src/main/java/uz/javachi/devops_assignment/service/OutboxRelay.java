@@ -0,0 +1,245 @@
+package uz.javachi.devops_assignment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OutboxEvent;
+import uz.javachi.devops_assignment.model.OutboxEventType;
+import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+import uz.javachi.devops_assignment.repository.OutboxRepository;
+import uz.javachi.devops_assignment.repository.ProductRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Carries out the events written by {@link Outbox}. Each poll claims up to a batch of due
+ * events with row locks (SKIP LOCKED where the database has it, so several instances can
+ * relay side by side) and handles each one in its own transaction: the notification rows
+ * and the email succeed or fail together. Failed events are retried with exponential
+ * backoff until {@code outbox.relay.max-attempts}, then parked.
+ *
+ * <p>Delivery is at least once: if the process dies after an event's notification commits
+ * but before the claiming transaction marks it processed, it is relayed again.
+ *
+ * <p>This replaces handing the side effects to a bounded in-process executor after commit.
+ * The batch size bounds the work instead of a queue, the {@code outbox.backlog} gauges show
+ * what the queue depth did, and nothing has to be drained on shutdown: pending rows are
+ * relayed after the restart, by this instance or another.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxRepository outboxRepository;
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate claimTransaction;
+    private final TransactionTemplate handlerTransaction;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long maxRetryBackoffMillis;
+    private final long retentionHours;
+
+    private final Counter deliveredCounter;
+    private final Counter failedCounter;
+    private final Counter parkedCounter;
+    private final Map<OutboxEventType, Timer> lagTimers = new EnumMap<>(OutboxEventType.class);
+    private final Timer batchTimer;
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       OrderRepository orderRepository,
+                       ProductRepository productRepository,
+                       NotificationService notificationService,
+                       ObjectMapper objectMapper,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${outbox.relay.retry-backoff-ms:1000}") long retryBackoffMillis,
+                       @Value("${outbox.relay.max-retry-backoff-ms:300000}") long maxRetryBackoffMillis,
+                       @Value("${outbox.retention-hours:24}") long retentionHours,
+                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.notificationService = notificationService;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.maxRetryBackoffMillis = maxRetryBackoffMillis;
+        this.retentionHours = retentionHours;
+
+        this.claimTransaction = new TransactionTemplate(transactionManager);
+        this.handlerTransaction = new TransactionTemplate(transactionManager);
+        this.handlerTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.deliveredCounter = Counter.builder("outbox.relay.events")
+                .description("Outbox events handled by the relay")
+                .tag("result", "delivered")
+                .register(meterRegistry);
+
+        this.failedCounter = Counter.builder("outbox.relay.events")
+                .description("Outbox events handled by the relay")
+                .tag("result", "failed")
+                .register(meterRegistry);
+
+        this.parkedCounter = Counter.builder("outbox.relay.events")
+                .description("Outbox events handled by the relay")
+                .tag("result", "parked")
+                .register(meterRegistry);
+
+        for (OutboxEventType type : OutboxEventType.values()) {
+            lagTimers.put(type, Timer.builder("outbox.relay.lag")
+                    .description("Time from writing an outbox event to delivering it")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+        }
+
+        // Read on scrape: the lag timer only sees events once they are delivered, these show a stuck relay
+        Gauge.builder("outbox.backlog", outboxRepository, OutboxRepository::countByProcessedAtIsNullAndAvailableAtIsNotNull)
+                .description("Outbox events waiting to be relayed, including ones backing off after a failure")
+                .tag("state", "pending")
+                .register(meterRegistry);
+
+        Gauge.builder("outbox.backlog", outboxRepository, OutboxRepository::countByProcessedAtIsNullAndAvailableAtIsNull)
+                .description("Outbox events the relay gave up on")
+                .tag("state", "parked")
+                .register(meterRegistry);
+
+        Gauge.builder("outbox.backlog.oldest.age", outboxRepository, repository ->
+                        repository.findFirstByProcessedAtIsNullAndAvailableAtIsNotNullOrderByIdAsc()
+                                .map(event -> Duration.between(event.getCreatedAt(), LocalDateTime.now()).toMillis() / 1000.0)
+                                .orElse(0.0))
+                .description("Age in seconds of the oldest outbox event still waiting to be relayed")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        this.batchTimer = Timer.builder("outbox.relay.batch.time")
+                .description("Time taken to claim and relay one batch of outbox events")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:200}")
+    public void relay() {
+        // A full batch means more may be waiting, so keep going instead of sleeping a poll interval
+        Integer claimed;
+        do {
+            claimed = batchTimer.record(() -> claimTransaction.execute(status -> relayBatch()));
+        } while (claimed != null && claimed >= batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.purge-interval-ms:3600000}")
+    @Transactional
+    public void purge() {
+        int deleted = outboxRepository.deleteProcessedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("Purged {} processed outbox events", deleted);
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> events = outboxRepository.claimPending(LocalDateTime.now(), Limit.of(batchSize));
+        for (OutboxEvent event : events) {
+            try {
+                handlerTransaction.executeWithoutResult(status -> handle(event));
+                event.setProcessedAt(LocalDateTime.now());
+                deliveredCounter.increment();
+                lagTimers.get(event.getType()).record(Duration.between(event.getCreatedAt(), event.getProcessedAt()));
+            } catch (RuntimeException e) {
+                scheduleRetry(event, e);
+            }
+        }
+        // Claimed rows are updated when this transaction commits
+        return events.size();
+    }
+
+    private void handle(OutboxEvent event) {
+        switch (event.getType()) {
+            case ORDER_CREATED -> {
+                Order order = orderRepository.findById(event.getAggregateId()).orElse(null);
+                Product product = order != null ? productRepository.findById(order.getProductId()).orElse(null) : null;
+                if (product == null) {
+                    log.warn("Skipping outbox event {}: order {} or its product no longer exists",
+                            event.getId(), event.getAggregateId());
+                    return;
+                }
+                notificationService.sendOrderNotification(order, product);
+            }
+            case ORDER_BATCH_CREATED -> {
+                Outbox.OrderBatch batch = readPayload(event, Outbox.OrderBatch.class);
+                List<Order> orders = new ArrayList<>(orderRepository.findAllById(batch.orderIds()));
+                orders.sort(Comparator.comparing(Order::getId));
+                Set<Long> productIds = orders.stream().map(Order::getProductId).collect(Collectors.toSet());
+                Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                        .collect(Collectors.toMap(Product::getId, Function.identity()));
+                notificationService.sendBatchOrderNotifications(orders, products);
+            }
+            case PRICE_CHANGED -> {
+                Outbox.PriceChange change = readPayload(event, Outbox.PriceChange.class);
+                Product product = productRepository.findById(event.getAggregateId()).orElse(null);
+                if (product == null) {
+                    log.warn("Skipping outbox event {}: product {} no longer exists",
+                            event.getId(), event.getAggregateId());
+                    return;
+                }
+                notificationService.sendPriceUpdateNotification(product, change.oldPrice(), change.newPrice());
+            }
+        }
+    }
+
+    private void scheduleRetry(OutboxEvent event, RuntimeException e) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        String message = String.valueOf(e.getMessage());
+        event.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+
+        if (attempts >= maxAttempts) {
+            // Parked: never claimed again unless available_at is set by hand
+            event.setAvailableAt(null);
+            parkedCounter.increment();
+            log.error("Giving up on {} outbox event {} after {} attempts", event.getType(), event.getId(), attempts, e);
+            return;
+        }
+        long backoff = Math.min(retryBackoffMillis << Math.min(attempts - 1, 20), maxRetryBackoffMillis);
+        event.setAvailableAt(LocalDateTime.now().plus(Duration.ofMillis(backoff)));
+        failedCounter.increment();
+        log.warn("{} outbox event {} failed (attempt {}), retrying in {} ms: {}",
+                event.getType(), event.getId(), attempts, backoff, message);
+    }
+
+    private <T> T readPayload(OutboxEvent event, Class<T> type) {
+        try {
+            return objectMapper.readValue(event.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable payload in outbox event " + event.getId(), e);
+        }
+    }
+}
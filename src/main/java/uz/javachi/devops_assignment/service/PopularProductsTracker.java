@@ -0,0 +1,163 @@
+package uz.javachi.devops_assignment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.PopularityWindow;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming top-K products by order count for the all-time, last-24h and last-hour
+ * windows. Sliding windows are split into sub-window sketches that are merged at
+ * query time, so both updates and reads cost a bounded amount of work.
+ */
+@Slf4j
+@Component
+public class PopularProductsTracker {
+
+    private final OrderRepository orderRepository;
+    private final OrderArchive orderArchive;
+    private final int maxK;
+    private final TopKSketch allTime;
+    private final SlidingTopK lastDay;
+    private final SlidingTopK lastHour;
+
+    public PopularProductsTracker(OrderRepository orderRepository,
+                                  OrderArchive orderArchive,
+                                  @Value("${dashboard.popular.max-k:50}") int maxK,
+                                  @Value("${dashboard.popular.sketch-capacity:200}") int capacity) {
+        this.orderRepository = orderRepository;
+        this.orderArchive = orderArchive;
+        this.maxK = maxK;
+        // Fewer counters than K would make the tail of the answer meaningless
+        int counters = Math.max(capacity, maxK * 2);
+        this.allTime = new TopKSketch(counters);
+        this.lastDay = new SlidingTopK(24, 3600, counters);
+        this.lastHour = new SlidingTopK(12, 300, counters);
+    }
+
+    public void load() {
+        long start = System.currentTimeMillis();
+
+        // Table and archive totals are merged first so each product is offered once
+        Map<Long, OrderArchiveSegment.ProductSummary> totals = new HashMap<>();
+        for (OrderRepository.ProductOrderSummary row : orderRepository.findProductOrderSummaries(Limit.unlimited())) {
+            OrderArchiveSegment.ProductSummary total = totals.computeIfAbsent(row.getProductId(), id -> new OrderArchiveSegment.ProductSummary());
+            total.orderCount += row.getOrderCount();
+            total.revenue += row.getTotalRevenue();
+        }
+        for (OrderArchiveSegment segment : orderArchive.segments()) {
+            segment.products().forEach((productId, summary) -> {
+                OrderArchiveSegment.ProductSummary total = totals.computeIfAbsent(productId, id -> new OrderArchiveSegment.ProductSummary());
+                total.orderCount += summary.orderCount;
+                total.revenue += summary.revenue;
+            });
+        }
+
+        synchronized (allTime) {
+            allTime.clear();
+            totals.forEach((productId, total) -> allTime.offer(productId, total.orderCount, total.revenue));
+        }
+
+        List<OrderRepository.OrderValue> recent = orderRepository.findOrderValuesSince(LocalDateTime.now().minusHours(24));
+        for (OrderRepository.OrderValue value : recent) {
+            recordWindowed(value.getProductId(), value.getCreatedAt(), value.getTotalPrice());
+        }
+
+        log.info("Popular products sketches loaded, replayed {} recent orders in {} ms",
+                recent.size(), System.currentTimeMillis() - start);
+    }
+
+    public void record(Order order) {
+        if (order.getProductId() == null) {
+            return;
+        }
+        double revenue = order.getTotalPrice() != null ? order.getTotalPrice() : 0.0;
+        synchronized (allTime) {
+            allTime.offer(order.getProductId(), 1, revenue);
+        }
+        recordWindowed(order.getProductId(), order.getCreatedAt(), order.getTotalPrice());
+    }
+
+    public int getMaxK() {
+        return maxK;
+    }
+
+    public List<TopKSketch.Estimate> top(PopularityWindow window, int k) {
+        int limit = Math.min(k, maxK);
+        Map<Long, long[]> counts = new HashMap<>();
+        Map<Long, Double> revenues = new HashMap<>();
+        switch (window) {
+            case LAST_24H -> lastDay.mergeInto(counts, revenues);
+            case LAST_HOUR -> lastHour.mergeInto(counts, revenues);
+            default -> {
+                synchronized (allTime) {
+                    allTime.mergeInto(counts, revenues);
+                }
+            }
+        }
+        return TopKSketch.top(counts, revenues, limit);
+    }
+
+    private void recordWindowed(Long productId, LocalDateTime createdAt, Double totalPrice) {
+        if (productId == null || createdAt == null) {
+            return;
+        }
+        double revenue = totalPrice != null ? totalPrice : 0.0;
+        long epochSecond = createdAt.toEpochSecond(ZoneOffset.UTC);
+        lastDay.offer(productId, epochSecond, revenue);
+        lastHour.offer(productId, epochSecond, revenue);
+    }
+
+    /**
+     * A window of {@code slots} consecutive sub-window sketches, each covering
+     * {@code slotSeconds}. A slot is cleared when it is reused for a newer period.
+     */
+    private static class SlidingTopK {
+        private final long slotSeconds;
+        private final TopKSketch[] sketches;
+        private final long[] slotIds;
+        private long newestSlot = Long.MIN_VALUE;
+
+        SlidingTopK(int slots, long slotSeconds, int capacity) {
+            this.slotSeconds = slotSeconds;
+            this.sketches = new TopKSketch[slots];
+            this.slotIds = new long[slots];
+            for (int i = 0; i < slots; i++) {
+                sketches[i] = new TopKSketch(capacity);
+                slotIds[i] = Long.MIN_VALUE;
+            }
+        }
+
+        synchronized void offer(Long productId, long epochSecond, double revenue) {
+            long slot = Math.floorDiv(epochSecond, slotSeconds);
+            if (newestSlot != Long.MIN_VALUE && slot <= newestSlot - sketches.length) {
+                return; // already outside the window
+            }
+            int index = (int) Math.floorMod(slot, (long) sketches.length);
+            if (slotIds[index] != slot) {
+                sketches[index].clear();
+                slotIds[index] = slot;
+            }
+            sketches[index].offer(productId, 1, revenue);
+            newestSlot = Math.max(newestSlot, slot);
+        }
+
+        synchronized void mergeInto(Map<Long, long[]> counts, Map<Long, Double> revenues) {
+            long currentSlot = Math.floorDiv(LocalDateTime.now().toEpochSecond(ZoneOffset.UTC), slotSeconds);
+            for (int i = 0; i < sketches.length; i++) {
+                if (slotIds[i] > currentSlot - sketches.length) {
+                    sketches[i].mergeInto(counts, revenues);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package uz.javachi.devops_assignment.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.repository.ProductRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of products by id in front of {@link ProductRepository}, bounded by
+ * size (W-TinyLFU eviction) and by a time-to-live. Product writes update or evict their
+ * entry once the writing transaction commits; stock write-backs evict the products they
+ * touched. Cached products are shared instances, callers must treat them as read-only.
+ *
+ * <p>A load that races an invalidation is not cached: loads record the invalidation count
+ * before reading the database and only store their result if it has not moved since.
+ */
+@Component
+public class ProductCache {
+
+    private static final String CACHE_NAME = "products";
+    // The hit-ratio gauge keeps the tag the dashboards and the low-hit-ratio alert select on
+    private static final String HIT_RATIO_CACHE_TAG = "main";
+
+    private final ProductRepository productRepository;
+    private final long ttlNanos;
+    private final WTinyLfuCache<Long, Product> entries;
+    private long invalidations;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Counter evictionCounter;
+    private final Counter invalidationCounter;
+    private final Timer loadTimer;
+
+    public ProductCache(ProductRepository productRepository,
+                        @Value("${product-cache.maximum-size:10000}") int maximumSize,
+                        @Value("${product-cache.ttl-seconds:300}") long ttlSeconds,
+                        MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.entries = new WTinyLfuCache<>(maximumSize);
+
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .description("Product cache lookups")
+                .tag("cache", CACHE_NAME)
+                .tag("result", "hit")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .description("Product cache lookups")
+                .tag("cache", CACHE_NAME)
+                .tag("result", "miss")
+                .register(meterRegistry);
+
+        this.evictionCounter = Counter.builder("cache.evictions")
+                .description("Product cache entries evicted to stay within the size bound")
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+
+        this.invalidationCounter = Counter.builder("cache.invalidations")
+                .description("Product cache entries evicted because the product changed")
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+
+        this.loadTimer = Timer.builder("cache.load.time")
+                .description("Time taken to load missed products from the database")
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+
+        Gauge.builder("cache.size", this, ProductCache::size)
+                .description("Products held in the cache")
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+
+        Gauge.builder("application.cache.hit.ratio", this, ProductCache::hitRatio)
+                .description("Fraction of product cache lookups served from memory")
+                .tag("cache", HIT_RATIO_CACHE_TAG)
+                .register(meterRegistry);
+    }
+
+    public Product get(Long id) {
+        long stamp;
+        synchronized (this) {
+            Product cached = entries.get(id, System.nanoTime());
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            stamp = invalidations;
+        }
+        misses.increment();
+
+        Product loaded = loadTimer.record(() -> productRepository.findById(id).orElse(null));
+        if (loaded != null) {
+            store(loaded, stamp);
+        }
+        return loaded;
+    }
+
+    /**
+     * Looks up many products at once; the misses are loaded in a single query. Ids with no
+     * product are absent from the result.
+     */
+    public Map<Long, Product> getAll(Collection<Long> ids) {
+        Map<Long, Product> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        long stamp;
+        synchronized (this) {
+            long now = System.nanoTime();
+            for (Long id : ids) {
+                Product cached = entries.get(id, now);
+                if (cached != null) {
+                    found.put(id, cached);
+                } else {
+                    missing.add(id);
+                }
+            }
+            stamp = invalidations;
+        }
+        hits.add(found.size());
+        misses.add(missing.size());
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        List<Product> loaded = loadTimer.record(() -> productRepository.findAllById(missing));
+        for (Product product : loaded) {
+            store(product, stamp);
+            found.put(product.getId(), product);
+        }
+        return found;
+    }
+
+    /**
+     * Replaces the entry with a product that was just written. Inside a transaction the
+     * entry is evicted straight away and the new value stored only once it commits.
+     */
+    public void put(Product product) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(product.getId());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        update(product);
+                    }
+                }
+            });
+            return;
+        }
+        update(product);
+    }
+
+    /**
+     * Evicts the product. Inside a transaction it is evicted again after completion, so a
+     * read of the old row that slipped in meanwhile does not linger.
+     */
+    public void invalidate(Long id) {
+        evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(id);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll(Collection<Long> ids) {
+        ids.forEach(this::invalidate);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    private synchronized void store(Product product, long stamp) {
+        if (stamp != invalidations) {
+            return;
+        }
+        evictionCounter.increment(entries.put(product.getId(), product, System.nanoTime() + ttlNanos));
+    }
+
+    private synchronized void update(Product product) {
+        // Loads started before this write must not overwrite it
+        invalidations++;
+        evictionCounter.increment(entries.put(product.getId(), product, System.nanoTime() + ttlNanos));
+    }
+
+    private synchronized void evict(Long id) {
+        invalidations++;
+        if (entries.remove(id)) {
+            invalidationCounter.increment();
+        }
+    }
+}
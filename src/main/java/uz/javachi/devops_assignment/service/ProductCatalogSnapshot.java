@@ -0,0 +1,252 @@
+package uz.javachi.devops_assignment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.repository.ProductRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The whole product catalog as ready-to-send JSON: an array of products ordered by id,
+ * optionally also gzip-compressed, with a strong ETag derived from the content.
+ *
+ * <p>Each product's JSON is kept separately. A product write only marks that product stale;
+ * the next read reloads the stale products in one query, re-serializes just those and
+ * splices the array back together. Reads between writes return the same buffers.
+ */
+@Slf4j
+@Component
+public class ProductCatalogSnapshot {
+
+    private static final byte[] OPEN = {'['};
+    private static final byte[] SEPARATOR = {','};
+    private static final byte[] CLOSE = {']'};
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean gzip;
+
+    // Guarded by this
+    private final TreeMap<Long, byte[]> rows = new TreeMap<>();
+    private Set<Long> stale = new HashSet<>();
+    private volatile Snapshot current;
+    private long version;
+
+    private final Counter rebuildCounter;
+    private final Timer rebuildTimer;
+
+    public ProductCatalogSnapshot(ProductRepository productRepository,
+                                  ObjectMapper objectMapper,
+                                  @Value("${catalog.gzip:true}") boolean gzip,
+                                  MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.gzip = gzip;
+
+        this.rebuildCounter = Counter.builder("catalog.snapshot.rebuilds")
+                .description("Catalog snapshots rebuilt after product changes")
+                .register(meterRegistry);
+
+        this.rebuildTimer = Timer.builder("catalog.snapshot.rebuild.time")
+                .description("Time taken to refresh stale products and rebuild the catalog snapshot")
+                .register(meterRegistry);
+
+        Gauge.builder("catalog.snapshot.bytes", this, catalog -> {
+                    Snapshot snapshot = catalog.current;
+                    return snapshot != null ? snapshot.json().length : 0;
+                })
+                .description("Size of the uncompressed catalog snapshot")
+                .register(meterRegistry);
+    }
+
+    @Transactional(readOnly = true)
+    public void load() {
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            rows.clear();
+            try (Stream<Product> products = productRepository.streamAll()) {
+                products.forEach(product -> rows.put(product.getId(), serialize(product)));
+            }
+            current = assemble();
+        }
+        log.info("Catalog snapshot built for {} products ({} bytes) in {} ms",
+                current.productCount(), current.json().length, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Marks a product as changed. Inside a transaction this takes effect once it completes,
+     * so the snapshot never reloads a row ahead of its commit.
+     */
+    public void markStale(Long productId) {
+        markStale(List.of(productId));
+    }
+
+    public void markStale(Collection<Long> productIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<Long> ids = List.copyOf(productIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    addStale(ids);
+                }
+            });
+            return;
+        }
+        addStale(productIds);
+    }
+
+    /**
+     * The current snapshot, first bringing it up to date with any product changes.
+     */
+    public Snapshot current() {
+        Snapshot snapshot = current;
+        if (snapshot != null && !hasStale()) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (current == null || !stale.isEmpty()) {
+                rebuildTimer.record(this::refresh);
+            }
+            return current;
+        }
+    }
+
+    // Caller holds the lock
+    private void refresh() {
+        if (current == null) {
+            // Asked for before the startup load has run
+            stale.clear();
+            for (Product product : productRepository.findAll()) {
+                rows.put(product.getId(), serialize(product));
+            }
+        } else {
+            // Swap first: ids marked while loading are picked up by the next refresh
+            Set<Long> ids = stale;
+            stale = new HashSet<>();
+            Map<Long, byte[]> refreshed = new TreeMap<>();
+            for (Product product : productRepository.findAllById(ids)) {
+                refreshed.put(product.getId(), serialize(product));
+            }
+            for (Long id : ids) {
+                byte[] json = refreshed.get(id);
+                if (json != null) {
+                    rows.put(id, json);
+                } else {
+                    rows.remove(id);
+                }
+            }
+        }
+        current = assemble();
+        rebuildCounter.increment();
+    }
+
+    private Snapshot assemble() {
+        int size = OPEN.length + CLOSE.length + Math.max(0, rows.size() - 1);
+        for (byte[] row : rows.values()) {
+            size += row.length;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        out.writeBytes(OPEN);
+        boolean first = true;
+        for (byte[] row : rows.values()) {
+            if (!first) {
+                out.writeBytes(SEPARATOR);
+            }
+            out.writeBytes(row);
+            first = false;
+        }
+        out.writeBytes(CLOSE);
+        byte[] json = out.toByteArray();
+
+        version++;
+        return new Snapshot(json, gzip ? compress(json) : null, etagOf(json), version, rows.size());
+    }
+
+    private synchronized void addStale(Collection<Long> ids) {
+        stale.addAll(ids);
+    }
+
+    private synchronized boolean hasStale() {
+        return !stale.isEmpty();
+    }
+
+    private byte[] serialize(Product product) {
+        try {
+            return objectMapper.writeValueAsBytes(product);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize product " + product.getId(), e);
+        }
+    }
+
+    private static byte[] compress(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // Derived from the bytes, so every instance serving the same catalog agrees on it
+    private static String etagOf(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * One immutable version of the catalog. {@code gzip} is null when compression is off.
+     */
+    public record Snapshot(byte[] json, byte[] gzip, String etag, long version, int productCount) {
+
+        // Strong ETags must differ between content codings of the same resource
+        public String gzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gzip\"";
+        }
+
+        /**
+         * Whether an If-None-Match header value names the given representation's ETag.
+         * Uses weak comparison, as RFC 9110 prescribes for If-None-Match.
+         */
+        public static boolean matches(String ifNoneMatch, String etag) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            List<String> tags = new ArrayList<>();
+            for (String tag : ifNoneMatch.split(",")) {
+                String trimmed = tag.trim();
+                tags.add(trimmed.startsWith("W/") ? trimmed.substring(2) : trimmed);
+            }
+            return tags.contains("*") || tags.contains(etag);
+        }
+    }
+}
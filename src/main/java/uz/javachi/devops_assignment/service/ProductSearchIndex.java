@@ -0,0 +1,339 @@
+package uz.javachi.devops_assignment.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.model.ProductSearchResult;
+import uz.javachi.devops_assignment.repository.ProductRepository;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over product name, category and description. Text is
+ * lower-cased, stripped of accents and split on anything that is not a letter or digit.
+ *
+ * <p>Every query term must match, in order of preference: exactly, as a prefix of an
+ * indexed term (search-as-you-type), or within one edit (insertion, deletion,
+ * substitution or transposition) for terms of four characters or more. Typo candidates
+ * come from an index of each term's single-character deletions, so no scan of the term
+ * dictionary is needed. Matches are scored by field weight and inverse document frequency,
+ * then boosted by the product's order count.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    public static final int MAX_LIMIT = 100;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final int MAX_TERM_LENGTH = 40;
+    private static final int MAX_QUERY_TERMS = 10;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    // Prefixes like "a" would otherwise pull in a large part of the dictionary
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final float NAME_WEIGHT = 3f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final double PREFIX_FACTOR = 0.6;
+    private static final double FUZZY_FACTOR = 0.4;
+    private static final double POPULARITY_WEIGHT = 0.1;
+
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final DashboardAggregates dashboardAggregates;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> product id -> weight of the term in that product
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    // single-character deletion of a term -> terms producing it
+    private final Map<String, Set<String>> deletions = new HashMap<>();
+    // product id -> its term weights, to take a product out before re-indexing it
+    private final Map<Long, Map<String, Float>> documents = new HashMap<>();
+
+    private final Timer searchTimer;
+
+    public ProductSearchIndex(ProductRepository productRepository,
+                              ProductCache productCache,
+                              DashboardAggregates dashboardAggregates,
+                              MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.dashboardAggregates = dashboardAggregates;
+
+        this.searchTimer = Timer.builder("products.search.time")
+                .description("Time taken to answer a product search from the index")
+                .register(meterRegistry);
+
+        Gauge.builder("products.search.terms", this, index -> index.read(index.postings::size))
+                .description("Distinct terms in the product search index")
+                .register(meterRegistry);
+
+        Gauge.builder("products.search.documents", this, index -> index.read(index.documents::size))
+                .description("Products in the search index")
+                .register(meterRegistry);
+    }
+
+    @Transactional(readOnly = true)
+    public void load() {
+        long start = System.currentTimeMillis();
+        AtomicLong loaded = new AtomicLong();
+        try (Stream<Product> products = productRepository.streamAll()) {
+            products.forEach(product -> {
+                index(product);
+                loaded.incrementAndGet();
+            });
+        }
+        log.info("Product search index built for {} products, {} terms in {} ms",
+                loaded.get(), read(postings::size), System.currentTimeMillis() - start);
+    }
+
+    public void index(Product product) {
+        Map<String, Float> terms = new HashMap<>();
+        addTerms(terms, product.getName(), NAME_WEIGHT);
+        addTerms(terms, product.getCategory(), CATEGORY_WEIGHT);
+        addTerms(terms, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            documents.put(product.getId(), terms);
+            terms.forEach((term, weight) -> {
+                Map<Long, Float> postingList = postings.get(term);
+                if (postingList == null) {
+                    postingList = new HashMap<>();
+                    postings.put(term, postingList);
+                    for (String deletion : deletionsOf(term)) {
+                        deletions.computeIfAbsent(deletion, d -> new HashSet<>()).add(term);
+                    }
+                }
+                postingList.put(product.getId(), weight);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the query has no searchable characters or the
+     *                                  limit is out of range
+     */
+    public ProductSearchResult search(String query, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        List<String> queryTerms = tokenize(query).stream().distinct().limit(MAX_QUERY_TERMS).toList();
+        if (queryTerms.isEmpty()) {
+            throw new IllegalArgumentException("Search query must contain a letter or digit");
+        }
+
+        long start = System.nanoTime();
+        Map<Long, Double> scores;
+        lock.readLock().lock();
+        try {
+            scores = score(queryTerms);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.size());
+        scores.forEach((productId, score) -> ranked.add(Map.entry(productId,
+                score * (1 + POPULARITY_WEIGHT * Math.log1p(dashboardAggregates.getOrderCount(productId))))));
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<Map.Entry<Long, Double>> top = ranked.subList(0, Math.min(limit, ranked.size()));
+
+        Map<Long, Product> products = productCache.getAll(top.stream().map(Map.Entry::getKey).toList());
+        List<ProductSearchResult.Hit> hits = new ArrayList<>(top.size());
+        for (Map.Entry<Long, Double> entry : top) {
+            Product product = products.get(entry.getKey());
+            if (product != null) {
+                ProductSearchResult.Hit hit = new ProductSearchResult.Hit();
+                hit.setProduct(product);
+                hit.setScore(entry.getValue());
+                hits.add(hit);
+            }
+        }
+        long took = System.nanoTime() - start;
+        searchTimer.record(took, TimeUnit.NANOSECONDS);
+
+        ProductSearchResult result = new ProductSearchResult();
+        result.setQuery(query);
+        result.setTotalMatches(ranked.size());
+        result.setTookMicros(TimeUnit.NANOSECONDS.toMicros(took));
+        result.setHits(hits);
+        return result;
+    }
+
+    // Products matching every query term, scored by the sum of their best match per term
+    private Map<Long, Double> score(List<String> queryTerms) {
+        Map<Long, Double> scores = null;
+        for (String queryTerm : queryTerms) {
+            Map<Long, Double> termScores = new HashMap<>();
+            for (Map.Entry<String, Double> match : expand(queryTerm).entrySet()) {
+                Map<Long, Float> postingList = postings.get(match.getKey());
+                double idf = Math.log(1 + (double) documents.size() / postingList.size());
+                postingList.forEach((productId, weight) ->
+                        termScores.merge(productId, idf * weight * match.getValue(), Math::max));
+            }
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                Map<Long, Double> previous = scores;
+                termScores.keySet().retainAll(previous.keySet());
+                termScores.replaceAll((productId, score) -> score + previous.get(productId));
+                scores = termScores;
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    // Indexed terms a query term matches, with the factor each match is worth
+    private Map<String, Double> expand(String queryTerm) {
+        Map<String, Double> matches = new HashMap<>();
+        if (postings.containsKey(queryTerm)) {
+            matches.put(queryTerm, 1.0);
+        }
+
+        int expansions = 0;
+        for (String term : postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).keySet()) {
+            if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            matches.put(term, PREFIX_FACTOR);
+        }
+
+        if (queryTerm.length() >= MIN_FUZZY_LENGTH) {
+            Set<String> candidates = new HashSet<>(deletions.getOrDefault(queryTerm, Set.of()));
+            for (String deletion : deletionsOf(queryTerm)) {
+                if (postings.containsKey(deletion)) {
+                    candidates.add(deletion);
+                }
+                candidates.addAll(deletions.getOrDefault(deletion, Set.of()));
+            }
+            for (String candidate : candidates) {
+                if (!matches.containsKey(candidate) && withinOneEdit(queryTerm, candidate)) {
+                    matches.put(candidate, FUZZY_FACTOR);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private void removeDocument(Long productId) {
+        Map<String, Float> terms = documents.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Long, Float> postingList = postings.get(term);
+            postingList.remove(productId);
+            if (postingList.isEmpty()) {
+                postings.remove(term);
+                for (String deletion : deletionsOf(term)) {
+                    Set<String> owners = deletions.get(deletion);
+                    owners.remove(term);
+                    if (owners.isEmpty()) {
+                        deletions.remove(deletion);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Float> terms, String text, float weight) {
+        for (String term : tokenize(text)) {
+            terms.merge(term, weight, Float::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> terms = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                terms.add(token.length() > MAX_TERM_LENGTH ? token.substring(0, MAX_TERM_LENGTH) : token);
+            }
+        }
+        return terms;
+    }
+
+    private static Set<String> deletionsOf(String term) {
+        Set<String> result = new LinkedHashSet<>();
+        // Shorter terms are only ever matched as deletions of a query term, found in postings
+        if (term.length() < MIN_FUZZY_LENGTH) {
+            return result;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            result.add(term.substring(0, i) + term.substring(i + 1));
+        }
+        return result;
+    }
+
+    // Optimal string alignment distance of at most one
+    static boolean withinOneEdit(String a, String b) {
+        int lengthDifference = a.length() - b.length();
+        if (Math.abs(lengthDifference) > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < a.length() && i < b.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (lengthDifference > 0) {
+            return a.substring(i + 1).equals(b.substring(i));
+        }
+        if (lengthDifference < 0) {
+            return a.substring(i).equals(b.substring(i + 1));
+        }
+        if (i >= a.length() || a.substring(i + 1).equals(b.substring(i + 1))) {
+            return true;
+        }
+        return i + 1 < a.length()
+                && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                && a.substring(i + 2).equals(b.substring(i + 2));
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -5,30 +5,69 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import uz.javachi.devops_assignment.model.CursorPage;
+import uz.javachi.devops_assignment.model.PageCursor;
 import uz.javachi.devops_assignment.model.Product;
 import uz.javachi.devops_assignment.repository.ProductRepository;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
 public class ProductService {
 
+    // Backoff doubles from RETRY_BACKOFF_MILLIS, so the last attempt comes 150-300 ms after the first,
+    // longer than a stock write-back of a full flush batch holds the row
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+    private static final long RETRY_BACKOFF_MILLIS = 10;
+
     private final ProductRepository productRepository;
-    private final NotificationService notificationService;
+    private final ProductCache productCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCatalogSnapshot productCatalogSnapshot;
+    private final Outbox outbox;
+    private final DashboardAggregates dashboardAggregates;
+    private final DashboardStreamPublisher dashboardStreamPublisher;
+    private final OrderColumnStore orderColumnStore;
+    private final InventoryReservations inventoryReservations;
     private final Counter productCreateCounter;
     private final Counter productUpdateCounter;
     private final Counter productDeleteCounter;
     private final Counter productErrorCounter;
     private final Counter productPriceUpdateCounter;
+    private final Counter productVersionConflictCounter;
+    private final TransactionTemplate transactionTemplate;
     private final Timer productQueryTimer;
 
     public ProductService(ProductRepository productRepository, 
-                         NotificationService notificationService,
+                         ProductCache productCache,
+                         ProductSearchIndex productSearchIndex,
+                         ProductCatalogSnapshot productCatalogSnapshot,
+                         Outbox outbox,
+                         DashboardAggregates dashboardAggregates,
+                         DashboardStreamPublisher dashboardStreamPublisher,
+                         OrderColumnStore orderColumnStore,
+                         InventoryReservations inventoryReservations,
+                         TransactionTemplate transactionTemplate,
                          MeterRegistry meterRegistry) {
         this.productRepository = productRepository;
-        this.notificationService = notificationService;
+        this.productCache = productCache;
+        this.productSearchIndex = productSearchIndex;
+        this.productCatalogSnapshot = productCatalogSnapshot;
+        this.outbox = outbox;
+        this.dashboardAggregates = dashboardAggregates;
+        this.dashboardStreamPublisher = dashboardStreamPublisher;
+        this.orderColumnStore = orderColumnStore;
+        this.inventoryReservations = inventoryReservations;
+        this.transactionTemplate = transactionTemplate;
         
         this.productCreateCounter = Counter.builder("products.created.total")
                 .description("Total number of products created")
@@ -50,6 +89,11 @@ public class ProductService {
                 .tag("operation", "price_update")
                 .register(meterRegistry);
                 
+        this.productVersionConflictCounter = Counter.builder("products.version.conflicts.total")
+                .description("Product writes retried after losing an optimistic version check")
+                .tag("api", "products")
+                .register(meterRegistry);
+                
         this.productErrorCounter = Counter.builder("products.errors.total")
                 .description("Total number of product operation errors")
                 .tag("api", "products")
@@ -61,11 +105,20 @@ public class ProductService {
                 .register(meterRegistry);
     }
 
-    @Timed(value = "products.service.getAll", description = "Time to fetch all products")
-    public List<Product> getAllProducts() {
+    @Timed(value = "products.service.getPage", description = "Time to fetch a page of products")
+    public CursorPage<Product> getProductsPage(String cursor, int limit) {
         return productQueryTimer.record(() -> {
-            log.info("Getting all products");
-            return productRepository.findAll();
+            CursorPage.checkLimit(limit);
+            log.info("Getting products page, limit: {}", limit);
+            
+            List<Product> rows;
+            if (cursor == null || cursor.isBlank()) {
+                rows = productRepository.findPage(Limit.of(limit + 1));
+            } else {
+                PageCursor after = PageCursor.decode(cursor);
+                rows = productRepository.findPageBefore(after.createdAt(), after.longId(), Limit.of(limit + 1));
+            }
+            return CursorPage.of(rows, limit, product -> PageCursor.of(product.getCreatedAt(), product.getId()));
         });
     }
 
@@ -77,7 +130,7 @@ public class ProductService {
             }
             
             log.info("Getting product by id: {}", id);
-            return productRepository.findById(id).orElse(null);
+            return productCache.get(id);
         });
     }
 
@@ -93,7 +146,11 @@ public class ProductService {
             product.setId(null);
             // createdAt and updatedAt will be set automatically by @PrePersist
             Product saved = productRepository.save(product);
+            productCache.put(saved);
+            productSearchIndex.index(saved);
+            productCatalogSnapshot.markStale(saved.getId());
             productCreateCounter.increment();
+            dashboardStreamPublisher.markDirty();
             return saved;
         });
     }
@@ -110,19 +167,32 @@ public class ProductService {
             }
             
             log.info("Updating product: {}", id);
-            Product existing = productRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
-            
-            // Update allowed fields only - farmerId cannot be changed
-            existing.setName(product.getName());
-            existing.setDescription(product.getDescription());
-            existing.setPrice(product.getPrice());
-            existing.setQuantity(product.getQuantity());
-            existing.setCategory(product.getCategory());
-            // Note: farmerId is intentionally not updated to maintain data integrity
+            Product updated = withVersionRetry(id, () -> transactionTemplate.execute(status -> {
+                Product existing = productRepository.findById(id)
+                        .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+                
+                // Update allowed fields only - farmerId cannot be changed
+                existing.setName(product.getName());
+                existing.setDescription(product.getDescription());
+                existing.setPrice(product.getPrice());
+                if (!Objects.equals(existing.getQuantity(), product.getQuantity())) {
+                    // Setting the stock outright supersedes orders not yet written back to it
+                    inventoryReservations.resetStock(id, existing.getQuantity(), product.getQuantity());
+                }
+                existing.setQuantity(product.getQuantity());
+                existing.setCategory(product.getCategory());
+                // Note: farmerId is intentionally not updated to maintain data integrity
+                
+                return productRepository.saveAndFlush(existing);
+            }));
             
-            Product updated = productRepository.save(existing);
+            productCache.put(updated);
+            productSearchIndex.index(updated);
+            productCatalogSnapshot.markStale(id);
             productUpdateCounter.increment();
+            dashboardAggregates.recordProductRenamed(id, updated.getName());
+            orderColumnStore.recordProductUpdated(updated);
+            dashboardStreamPublisher.markDirty();
             return updated;
         });
     }
@@ -139,7 +209,13 @@ public class ProductService {
                 throw new RuntimeException("Product not found with id: " + id);
             }
             productRepository.deleteById(id);
+            productCache.invalidate(id);
+            productSearchIndex.remove(id);
+            productCatalogSnapshot.markStale(id);
             productDeleteCounter.increment();
+            dashboardAggregates.forgetProduct(id);
+            inventoryReservations.forgetProduct(id);
+            dashboardStreamPublisher.markDirty();
         });
     }
 
@@ -172,25 +248,53 @@ public class ProductService {
             
             log.info("Updating product price: {} to {}", id, newPrice);
             
-            Product product = productRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
-            
-            Double oldPrice = product.getPrice();
+            AtomicReference<Double> oldPrice = new AtomicReference<>();
+            Product product = withVersionRetry(id, () -> transactionTemplate.execute(status -> {
+                Product existing = productRepository.findById(id)
+                        .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+                oldPrice.set(existing.getPrice());
+                if (oldPrice.get() == null || oldPrice.get().equals(newPrice)) {
+                    return existing;
+                }
+                existing.setPrice(newPrice);
+                Product updated = productRepository.saveAndFlush(existing);
+                // Written in this attempt's transaction, so one that loses its version check notifies nobody
+                outbox.priceChanged(updated, oldPrice.get());
+                return updated;
+            }));
             
-            // Only send notification if price actually changed
-            if (oldPrice != null && !oldPrice.equals(newPrice)) {
-                product.setPrice(newPrice);
-                Product updated = productRepository.save(product);
+            // Only count if price actually changed
+            if (oldPrice.get() != null && !oldPrice.get().equals(newPrice)) {
+                productCache.put(product);
+                productCatalogSnapshot.markStale(id);
                 productPriceUpdateCounter.increment();
-                
-                // Send notification about price change
-                notificationService.sendPriceUpdateNotification(updated, oldPrice);
-                
-                return updated;
-            } else {
-                // Price didn't change, just return existing product
-                return product;
             }
+            return product;
         });
     }
+
+    /**
+     * Re-runs a product write that lost an optimistic version check, e.g. to a stock
+     * write-back or another edit, with exponential backoff and jitter.
+     */
+    private Product withVersionRetry(Long id, Supplier<Product> write) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return write.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_WRITE_ATTEMPTS) {
+                    throw new RuntimeException("Product " + id + " is being modified concurrently, please retry", e);
+                }
+                productVersionConflictCounter.increment();
+                long backoff = RETRY_BACKOFF_MILLIS << (attempt - 1);
+                log.debug("Version conflict on product {}, retrying in ~{} ms", id, backoff);
+                try {
+                    Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while updating product " + id, interrupted);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,88 @@
+package uz.javachi.devops_assignment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds every in-memory view of the orders and products before the application takes
+ * traffic. The views are kept up to date by the writes themselves, so a write served
+ * while they are still loading would be either counted twice or wiped by the load.
+ *
+ * <p>Runs as a lifecycle bean in an early phase: the embedded web server only opens its
+ * connector in a late phase, and scheduled jobs start once the context is refreshed, so
+ * neither can touch orders or products until this has finished.
+ */
+@Slf4j
+@Component
+public class StartupLoader implements SmartLifecycle {
+
+    private static final int PHASE = 0;
+
+    private final OrderArchive orderArchive;
+    private final InventoryReservations inventoryReservations;
+    private final DashboardAggregates dashboardAggregates;
+    private final OrderTimeSeries orderTimeSeries;
+    private final PopularProductsTracker popularProductsTracker;
+    private final UniqueBuyersTracker uniqueBuyersTracker;
+    private final OrderPercentilesTracker orderPercentilesTracker;
+    private final OrderColumnStore orderColumnStore;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCatalogSnapshot productCatalogSnapshot;
+    private volatile boolean running;
+
+    public StartupLoader(OrderArchive orderArchive,
+                         InventoryReservations inventoryReservations,
+                         DashboardAggregates dashboardAggregates,
+                         OrderTimeSeries orderTimeSeries,
+                         PopularProductsTracker popularProductsTracker,
+                         UniqueBuyersTracker uniqueBuyersTracker,
+                         OrderPercentilesTracker orderPercentilesTracker,
+                         OrderColumnStore orderColumnStore,
+                         ProductSearchIndex productSearchIndex,
+                         ProductCatalogSnapshot productCatalogSnapshot) {
+        this.orderArchive = orderArchive;
+        this.inventoryReservations = inventoryReservations;
+        this.dashboardAggregates = dashboardAggregates;
+        this.orderTimeSeries = orderTimeSeries;
+        this.popularProductsTracker = popularProductsTracker;
+        this.uniqueBuyersTracker = uniqueBuyersTracker;
+        this.orderPercentilesTracker = orderPercentilesTracker;
+        this.orderColumnStore = orderColumnStore;
+        this.productSearchIndex = productSearchIndex;
+        this.productCatalogSnapshot = productCatalogSnapshot;
+    }
+
+    @Override
+    public void start() {
+        long start = System.currentTimeMillis();
+        // A segment left unpublished by a crash must be settled before anything counts its orders
+        orderArchive.reconcile();
+        inventoryReservations.load();
+        dashboardAggregates.rebuild();
+        orderTimeSeries.load();
+        popularProductsTracker.load();
+        uniqueBuyersTracker.load();
+        orderPercentilesTracker.load();
+        orderColumnStore.load();
+        productSearchIndex.load();
+        productCatalogSnapshot.load();
+        running = true;
+        log.info("In-memory order and product state loaded in {} ms", System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
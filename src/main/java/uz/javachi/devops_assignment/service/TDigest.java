@@ -0,0 +1,191 @@
+package uz.javachi.devops_assignment.service;
+
+import java.util.Arrays;
+
+/**
+ * Merging t-digest quantile sketch. Incoming values are buffered and periodically
+ * merged into a sorted list of centroids whose size is bounded by the k1 scale
+ * function, so the tails (p1, p99) stay accurate while the middle is compressed
+ * hardest. Digests merge with each other, so a total can be the union of parts.
+ * Not thread-safe, callers synchronize.
+ */
+class TDigest {
+
+    private final double compression;
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+    private int centroidCount;
+    private final double[] buffer;
+    private int bufferCount;
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    TDigest(double compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("t-digest compression must be at least 10");
+        }
+        this.compression = compression;
+        this.buffer = new double[(int) Math.ceil(compression) * 2];
+    }
+
+    void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        buffer[bufferCount++] = value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (bufferCount == buffer.length) {
+            compress();
+        }
+    }
+
+    void merge(TDigest other) {
+        other.compress();
+        if (other.centroidCount == 0) {
+            return;
+        }
+        compress();
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        mergeSorted(other.means, other.weights, other.centroidCount, other.totalWeight);
+    }
+
+    long count() {
+        return Math.round(totalWeight) + bufferCount;
+    }
+
+    double min() {
+        return count() == 0 ? Double.NaN : min;
+    }
+
+    double max() {
+        return count() == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * @param q quantile in [0, 1]
+     * @return the estimated value, or NaN if nothing was added
+     */
+    double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        compress();
+        if (centroidCount == 0) {
+            return Double.NaN;
+        }
+        if (centroidCount == 1) {
+            return means[0];
+        }
+
+        double index = q * totalWeight;
+        // Below the first centroid's center, interpolate from the exact minimum
+        double firstCenter = weights[0] / 2;
+        if (index < firstCenter) {
+            return min + (means[0] - min) * (index / firstCenter);
+        }
+
+        double cumulative = 0;
+        for (int i = 0; i < centroidCount - 1; i++) {
+            double center = cumulative + weights[i] / 2;
+            double nextCenter = cumulative + weights[i] + weights[i + 1] / 2;
+            if (index < nextCenter) {
+                double fraction = (index - center) / (nextCenter - center);
+                return means[i] + (means[i + 1] - means[i]) * fraction;
+            }
+            cumulative += weights[i];
+        }
+
+        // Above the last centroid's center, interpolate towards the exact maximum
+        int last = centroidCount - 1;
+        double lastCenter = totalWeight - weights[last] / 2;
+        double fraction = (index - lastCenter) / (totalWeight - lastCenter);
+        return means[last] + (max - means[last]) * Math.min(1.0, fraction);
+    }
+
+    TDigest copy() {
+        compress();
+        TDigest copy = new TDigest(compression);
+        copy.means = Arrays.copyOf(means, centroidCount);
+        copy.weights = Arrays.copyOf(weights, centroidCount);
+        copy.centroidCount = centroidCount;
+        copy.totalWeight = totalWeight;
+        copy.min = min;
+        copy.max = max;
+        return copy;
+    }
+
+    private void compress() {
+        if (bufferCount == 0) {
+            return;
+        }
+        Arrays.sort(buffer, 0, bufferCount);
+        double[] unitWeights = new double[bufferCount];
+        Arrays.fill(unitWeights, 1.0);
+        int added = bufferCount;
+        bufferCount = 0;
+        mergeSorted(Arrays.copyOf(buffer, added), unitWeights, added, added);
+    }
+
+    /**
+     * Merges a sorted run of (mean, weight) pairs with the current centroids and
+     * re-compresses the result in a single left-to-right pass.
+     */
+    private void mergeSorted(double[] otherMeans, double[] otherWeights, int otherCount, double otherWeight) {
+        int total = centroidCount + otherCount;
+        double[] mergedMeans = new double[total];
+        double[] mergedWeights = new double[total];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < total; k++) {
+            if (j >= otherCount || (i < centroidCount && means[i] <= otherMeans[j])) {
+                mergedMeans[k] = means[i];
+                mergedWeights[k] = weights[i++];
+            } else {
+                mergedMeans[k] = otherMeans[j];
+                mergedWeights[k] = otherWeights[j++];
+            }
+        }
+
+        double newTotal = totalWeight + otherWeight;
+        double[] outMeans = new double[total];
+        double[] outWeights = new double[total];
+        int out = 0;
+        double weightSoFar = 0;
+        double limit = newTotal * kInverse(kScale(0) + 1);
+        outMeans[0] = mergedMeans[0];
+        outWeights[0] = mergedWeights[0];
+        for (int k = 1; k < total; k++) {
+            double proposed = weightSoFar + outWeights[out] + mergedWeights[k];
+            if (proposed <= limit) {
+                // Weighted running mean keeps the centroid exact for its members
+                outWeights[out] += mergedWeights[k];
+                outMeans[out] += (mergedMeans[k] - outMeans[out]) * mergedWeights[k] / outWeights[out];
+            } else {
+                weightSoFar += outWeights[out];
+                limit = newTotal * kInverse(kScale(weightSoFar / newTotal) + 1);
+                out++;
+                outMeans[out] = mergedMeans[k];
+                outWeights[out] = mergedWeights[k];
+            }
+        }
+
+        centroidCount = out + 1;
+        means = Arrays.copyOf(outMeans, centroidCount);
+        weights = Arrays.copyOf(outWeights, centroidCount);
+        totalWeight = newTotal;
+    }
+
+    private double kScale(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * q - 1);
+    }
+
+    private double kInverse(double k) {
+        if (k >= compression / 4) {
+            return 1.0;
+        }
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+}
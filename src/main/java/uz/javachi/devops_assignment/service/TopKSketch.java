@@ -0,0 +1,135 @@
+package uz.javachi.devops_assignment.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitter summary over product ids. Holds at most {@code capacity}
+ * counters in an indexed min-heap, so each update is O(log capacity) and memory is
+ * fixed no matter how many distinct products are seen. Counts may overestimate by
+ * at most the reported error; any product with a true count above N/capacity is kept.
+ * Not thread-safe, callers synchronize.
+ */
+class TopKSketch {
+
+    private final int capacity;
+    private final Map<Long, Entry> entries;
+    private final Entry[] heap;
+    private int size;
+
+    TopKSketch(int capacity) {
+        this.capacity = capacity;
+        this.entries = new HashMap<>(capacity * 2);
+        this.heap = new Entry[capacity];
+    }
+
+    void offer(Long key, long count, double revenue) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (size < capacity) {
+                entry = new Entry(key, size);
+                heap[size++] = entry;
+            } else {
+                // Replace the current minimum; its count becomes the newcomer's error bound
+                entry = heap[0];
+                entries.remove(entry.key);
+                entry.key = key;
+                entry.error = entry.count;
+                entry.revenue = 0.0;
+            }
+            entries.put(key, entry);
+        }
+        entry.count += count;
+        entry.revenue += revenue;
+        // Counts only grow, but a freshly appended leaf may still be smaller than its parent
+        siftUp(entry.index);
+        siftDown(entry.index);
+    }
+
+    void clear() {
+        entries.clear();
+        for (int i = 0; i < size; i++) {
+            heap[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Adds every counter of this sketch into the given maps. Used to combine the
+     * sub-window sketches of a sliding window at query time.
+     */
+    void mergeInto(Map<Long, long[]> counts, Map<Long, Double> revenues) {
+        for (int i = 0; i < size; i++) {
+            Entry entry = heap[i];
+            long[] countAndError = counts.computeIfAbsent(entry.key, k -> new long[2]);
+            countAndError[0] += entry.count;
+            countAndError[1] += entry.error;
+            revenues.merge(entry.key, entry.revenue, Double::sum);
+        }
+    }
+
+    static List<Estimate> top(Map<Long, long[]> counts, Map<Long, Double> revenues, int k) {
+        List<Estimate> estimates = new ArrayList<>(counts.size());
+        counts.forEach((key, countAndError) ->
+                estimates.add(new Estimate(key, countAndError[0], countAndError[1], revenues.getOrDefault(key, 0.0))));
+        estimates.sort(Comparator.comparingLong(Estimate::count).reversed());
+        return estimates.size() > k ? estimates.subList(0, k) : estimates;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].count <= heap[index].count) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            int right = left + 1;
+            int smallest = index;
+            if (left < size && heap[left].count < heap[smallest].count) {
+                smallest = left;
+            }
+            if (right < size && heap[right].count < heap[smallest].count) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Entry tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+        heap[i].index = i;
+        heap[j].index = j;
+    }
+
+    record Estimate(Long productId, long count, long error, double revenue) {
+    }
+
+    private static class Entry {
+        private Long key;
+        private int index;
+        private long count;
+        private long error;
+        private double revenue;
+
+        Entry(Long key, int index) {
+            this.key = key;
+            this.index = index;
+        }
+    }
+}
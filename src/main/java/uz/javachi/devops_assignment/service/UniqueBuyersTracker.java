@@ -0,0 +1,246 @@
+package uz.javachi.devops_assignment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uz.javachi.devops_assignment.model.BuyerSketch;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.model.UniqueBuyersEstimate;
+import uz.javachi.devops_assignment.model.UniqueBuyersScope;
+import uz.javachi.devops_assignment.repository.BuyerSketchRepository;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Approximate unique buyer counts backed by HyperLogLog sketches: one per day, one
+ * per product and one per farmer. Months and arbitrary date ranges are answered by
+ * merging the day sketches. Changed sketches are flushed to the buyer_sketches table
+ * and on startup only orders since the last flush are replayed; adding a buyer twice
+ * is harmless, so the replay window can safely overlap what was already persisted.
+ */
+@Slf4j
+@Component
+public class UniqueBuyersTracker {
+
+    public static final int MAX_RANGE_DAYS = 400;
+
+    private final OrderRepository orderRepository;
+    private final BuyerSketchRepository buyerSketchRepository;
+    private final int precision;
+    private final long flushIntervalMillis;
+    private final Map<SketchKey, HyperLogLog> sketches = new ConcurrentHashMap<>();
+    private final Set<SketchKey> dirty = ConcurrentHashMap.newKeySet();
+
+    public UniqueBuyersTracker(OrderRepository orderRepository,
+                               BuyerSketchRepository buyerSketchRepository,
+                               @Value("${dashboard.unique-buyers.precision:12}") int precision,
+                               @Value("${dashboard.unique-buyers.flush-interval-ms:60000}") long flushIntervalMillis) {
+        if (precision < HyperLogLog.MIN_PRECISION || precision > HyperLogLog.MAX_PRECISION) {
+            throw new IllegalArgumentException("dashboard.unique-buyers.precision must be between "
+                    + HyperLogLog.MIN_PRECISION + " and " + HyperLogLog.MAX_PRECISION);
+        }
+        this.orderRepository = orderRepository;
+        this.buyerSketchRepository = buyerSketchRepository;
+        this.precision = precision;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    @Transactional(readOnly = true)
+    public void load() {
+        long start = System.currentTimeMillis();
+
+        List<SketchKey> stale = new ArrayList<>();
+        for (BuyerSketch stored : buyerSketchRepository.findAll()) {
+            SketchKey key = new SketchKey(stored.getScope(), stored.getSketchKey());
+            if (stored.getPrecision() == precision) {
+                sketches.put(key, HyperLogLog.fromBytes(precision, stored.getRegisters()));
+            } else {
+                stale.add(key);
+            }
+        }
+
+        LocalDateTime lastFlush = buyerSketchRepository.findLastUpdatedAt();
+        LocalDateTime replayFrom;
+        if (lastFlush == null || !stale.isEmpty()) {
+            // Nothing stored yet, or the precision changed since the last run: rebuild everything
+            sketches.clear();
+            replayFrom = LocalDateTime.of(1970, 1, 1, 0, 0);
+        } else {
+            // Orders created while the last flush was running may not be in it
+            replayFrom = lastFlush.minus(flushIntervalMillis, ChronoUnit.MILLIS);
+        }
+        int loaded = sketches.size();
+
+        AtomicLong replayed = new AtomicLong();
+        try (Stream<OrderRepository.OrderFact> facts = orderRepository.streamOrderFactsSince(replayFrom)) {
+            facts.forEach(fact -> {
+                record(fact.getBuyerId(), fact.getCreatedAt(), fact.getProductId(), fact.getFarmerId());
+                replayed.incrementAndGet();
+            });
+        }
+
+        // Rows that the rebuild did not touch are rewritten (empty) at the new precision
+        for (SketchKey key : stale) {
+            sketches.computeIfAbsent(key, k -> new HyperLogLog(precision));
+            dirty.add(key);
+        }
+
+        log.info("Unique buyer sketches loaded: {} from storage, replayed {} orders since {} in {} ms",
+                loaded, replayed.get(), replayFrom, System.currentTimeMillis() - start);
+    }
+
+    public void record(Order order, Product product) {
+        record(order.getBuyerId(), order.getCreatedAt(), order.getProductId(),
+                product != null ? product.getFarmerId() : null);
+    }
+
+    private void record(String buyerId, LocalDateTime createdAt, Long productId, String farmerId) {
+        if (buyerId == null) {
+            return;
+        }
+        if (createdAt != null) {
+            add(new SketchKey(UniqueBuyersScope.DAY, createdAt.toLocalDate().toString()), buyerId);
+        }
+        if (productId != null) {
+            add(new SketchKey(UniqueBuyersScope.PRODUCT, productId.toString()), buyerId);
+        }
+        if (farmerId != null) {
+            add(new SketchKey(UniqueBuyersScope.FARMER, farmerId), buyerId);
+        }
+    }
+
+    private void add(SketchKey key, String buyerId) {
+        HyperLogLog sketch = sketches.computeIfAbsent(key, k -> new HyperLogLog(precision));
+        boolean changed;
+        synchronized (sketch) {
+            changed = sketch.add(buyerId);
+        }
+        if (changed) {
+            dirty.add(key);
+        }
+    }
+
+    public UniqueBuyersEstimate daily(LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date is required");
+        }
+        return estimate(UniqueBuyersScope.DAY, date.toString(), mergeDays(date, date));
+    }
+
+    public UniqueBuyersEstimate monthly(YearMonth month) {
+        if (month == null) {
+            throw new IllegalArgumentException("Month is required");
+        }
+        return estimate(UniqueBuyersScope.MONTH, month.toString(), mergeDays(month.atDay(1), month.atEndOfMonth()));
+    }
+
+    public UniqueBuyersEstimate range(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("From and to are required");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) + 1 > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Requested range exceeds " + MAX_RANGE_DAYS + " days");
+        }
+        return estimate(UniqueBuyersScope.RANGE, from + ".." + to, mergeDays(from, to));
+    }
+
+    public UniqueBuyersEstimate product(Long productId) {
+        if (productId == null) {
+            throw new IllegalArgumentException("Product id is required");
+        }
+        return estimate(UniqueBuyersScope.PRODUCT, productId.toString(),
+                snapshot(new SketchKey(UniqueBuyersScope.PRODUCT, productId.toString())));
+    }
+
+    public UniqueBuyersEstimate farmer(String farmerId) {
+        if (farmerId == null || farmerId.isBlank()) {
+            throw new IllegalArgumentException("Farmer id is required");
+        }
+        return estimate(UniqueBuyersScope.FARMER, farmerId,
+                snapshot(new SketchKey(UniqueBuyersScope.FARMER, farmerId)));
+    }
+
+    private HyperLogLog mergeDays(LocalDate from, LocalDate to) {
+        HyperLogLog union = new HyperLogLog(precision);
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            HyperLogLog sketch = sketches.get(new SketchKey(UniqueBuyersScope.DAY, day.toString()));
+            if (sketch != null) {
+                synchronized (sketch) {
+                    union.merge(sketch);
+                }
+            }
+        }
+        return union;
+    }
+
+    private HyperLogLog snapshot(SketchKey key) {
+        HyperLogLog sketch = sketches.get(key);
+        if (sketch == null) {
+            return new HyperLogLog(precision);
+        }
+        synchronized (sketch) {
+            return sketch.copy();
+        }
+    }
+
+    private UniqueBuyersEstimate estimate(UniqueBuyersScope scope, String key, HyperLogLog sketch) {
+        UniqueBuyersEstimate estimate = new UniqueBuyersEstimate();
+        estimate.setScope(scope);
+        estimate.setKey(key);
+        estimate.setUniqueBuyers(sketch.estimate());
+        estimate.setPrecision(sketch.getPrecision());
+        estimate.setRelativeStandardError(sketch.relativeStandardError());
+        return estimate;
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.unique-buyers.flush-interval-ms:60000}")
+    @Transactional
+    public void flush() {
+        List<BuyerSketch> changed = new ArrayList<>();
+        for (SketchKey key : List.copyOf(dirty)) {
+            dirty.remove(key);
+            HyperLogLog sketch = sketches.get(key);
+            if (sketch == null) {
+                continue;
+            }
+            byte[] registers;
+            synchronized (sketch) {
+                registers = sketch.toBytes();
+            }
+            BuyerSketch stored = buyerSketchRepository.findByScopeAndSketchKey(key.scope(), key.key())
+                    .orElseGet(() -> {
+                        BuyerSketch created = new BuyerSketch();
+                        created.setScope(key.scope());
+                        created.setSketchKey(key.key());
+                        return created;
+                    });
+            stored.setPrecision(precision);
+            stored.setRegisters(registers);
+            changed.add(stored);
+        }
+        if (!changed.isEmpty()) {
+            buyerSketchRepository.saveAll(changed);
+            log.debug("Flushed {} unique buyer sketches", changed.size());
+        }
+    }
+
+    private record SketchKey(UniqueBuyersScope scope, String key) {
+    }
+}
@@ -5,10 +5,15 @@ import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import uz.javachi.devops_assignment.model.CursorPage;
+import uz.javachi.devops_assignment.model.PageCursor;
 import uz.javachi.devops_assignment.model.User;
 import uz.javachi.devops_assignment.repository.UserRepository;
 
+import javax.crypto.SecretKey;
 import java.util.List;
 
 @Slf4j
@@ -16,10 +21,15 @@ import java.util.List;
 public class UserService {
 
     private final UserRepository userRepository;
+    // User uuids are hidden from clients, so page cursors carrying one are encrypted
+    private final SecretKey cursorKey;
     private final Timer databaseQueryTimer;
 
-    public UserService(UserRepository userRepository, MeterRegistry meterRegistry) {
+    public UserService(UserRepository userRepository,
+                       @Value("${users.cursor-secret:}") String cursorSecret,
+                       MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+        this.cursorKey = PageCursor.keyFrom(cursorSecret);
         
         // Gauge metric - real-time user count
         Gauge.builder("users.active.count", userRepository, UserRepository::count)
@@ -34,11 +44,21 @@ public class UserService {
                 .register(meterRegistry);
     }
 
-    @Timed(value = "users.service.getAll", description = "Time to fetch all users")
-    public List<User> getAllUsers() {
+    @Timed(value = "users.service.getPage", description = "Time to fetch a page of users")
+    public CursorPage<User> getUsersPage(String cursor, int limit) {
         return databaseQueryTimer.record(() -> {
-            log.info("Getting all users. Current count: {}", userRepository.count());
-            return userRepository.findAll();
+            CursorPage.checkLimit(limit);
+            log.info("Getting users page, limit: {}", limit);
+            
+            List<User> rows;
+            if (cursor == null || cursor.isBlank()) {
+                rows = userRepository.findPage(Limit.of(limit + 1));
+            } else {
+                PageCursor after = PageCursor.decrypt(cursor, cursorKey);
+                rows = userRepository.findPageBefore(after.createdAt(), after.id(), Limit.of(limit + 1));
+            }
+            return CursorPage.of(rows, limit, user -> PageCursor.of(user.getCreatedAt(), user.getUuid()),
+                    after -> after.encrypt(cursorKey));
         });
     }
 
@@ -0,0 +1,228 @@
+package uz.javachi.devops_assignment.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache with W-TinyLFU eviction. New entries go into a small LRU window (1% of
+ * capacity); the rest is a segmented LRU of probation and protected entries. When the
+ * window overflows, its oldest entry is admitted to the main space only if a count-min
+ * sketch of recent accesses says it is used more often than the probation entry it would
+ * replace. One-off reads therefore cannot flush out the popular entries.
+ *
+ * <p>Entries carry an absolute expiry and are dropped when read after it. Not thread-safe,
+ * callers synchronize.
+ */
+class WTinyLfuCache<K, V> {
+
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final int protectedCapacity;
+    private final FrequencySketch sketch;
+    private final Map<K, Entry<K, V>> entries;
+    // Insertion order is recency order: the first key is the least recently used
+    private final LinkedHashMap<K, Entry<K, V>> window = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Entry<K, V>> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Entry<K, V>> protectedSpace = new LinkedHashMap<>();
+
+    WTinyLfuCache(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.mainCapacity = capacity - windowCapacity;
+        this.protectedCapacity = mainCapacity * 80 / 100;
+        this.sketch = new FrequencySketch(capacity);
+        this.entries = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Returns the live value for the key, or null if absent or expired. Either way the
+     * access counts towards the key's frequency.
+     */
+    V get(K key, long nowNanos) {
+        sketch.increment(key);
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (nowNanos - entry.expiresAtNanos >= 0) {
+            remove(key);
+            return null;
+        }
+        onHit(entry);
+        return entry.value;
+    }
+
+    /**
+     * Inserts or replaces the value. Returns the number of entries evicted to make room.
+     */
+    int put(K key, V value, long expiresAtNanos) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry != null) {
+            entry.value = value;
+            entry.expiresAtNanos = expiresAtNanos;
+            onHit(entry);
+            return 0;
+        }
+        entry = new Entry<>(key, value, expiresAtNanos);
+        entries.put(key, entry);
+        entry.region = Region.WINDOW;
+        window.put(key, entry);
+        return window.size() > windowCapacity ? evictFromWindow() : 0;
+    }
+
+    boolean remove(K key) {
+        Entry<K, V> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        regionOf(entry).remove(key);
+        return true;
+    }
+
+    void clear() {
+        entries.clear();
+        window.clear();
+        probation.clear();
+        protectedSpace.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void onHit(Entry<K, V> entry) {
+        switch (entry.region) {
+            case WINDOW -> moveToEnd(window, entry);
+            case PROTECTED -> moveToEnd(protectedSpace, entry);
+            case PROBATION -> {
+                // A second hit earns a protected slot; the protected LRU steps down to probation
+                probation.remove(entry.key);
+                entry.region = Region.PROTECTED;
+                protectedSpace.put(entry.key, entry);
+                if (protectedSpace.size() > protectedCapacity) {
+                    Entry<K, V> demoted = removeFirst(protectedSpace);
+                    demoted.region = Region.PROBATION;
+                    probation.put(demoted.key, demoted);
+                }
+            }
+        }
+    }
+
+    private int evictFromWindow() {
+        Entry<K, V> candidate = removeFirst(window);
+        candidate.region = Region.PROBATION;
+        probation.put(candidate.key, candidate);
+        if (probation.size() + protectedSpace.size() <= mainCapacity) {
+            return 0;
+        }
+
+        // The candidate is now the probation MRU; duel it against the probation LRU. Protected
+        // holds at most 80% of the main space, so an overflowing main space has another
+        // probation entry to duel with
+        Entry<K, V> victim = probation.values().iterator().next();
+        Entry<K, V> loser = sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+        remove(loser.key);
+        return 1;
+    }
+
+    private Map<K, Entry<K, V>> regionOf(Entry<K, V> entry) {
+        return switch (entry.region) {
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            case PROTECTED -> protectedSpace;
+        };
+    }
+
+    private static <K, V> void moveToEnd(LinkedHashMap<K, Entry<K, V>> region, Entry<K, V> entry) {
+        region.remove(entry.key);
+        region.put(entry.key, entry);
+    }
+
+    private static <K, V> Entry<K, V> removeFirst(LinkedHashMap<K, Entry<K, V>> region) {
+        Iterator<Entry<K, V>> iterator = region.values().iterator();
+        Entry<K, V> first = iterator.next();
+        iterator.remove();
+        return first;
+    }
+
+    private enum Region { WINDOW, PROBATION, PROTECTED }
+
+    private static class Entry<K, V> {
+        final K key;
+        V value;
+        long expiresAtNanos;
+        Region region;
+
+        Entry(K key, V value, long expiresAtNanos) {
+            this.key = key;
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    /**
+     * Count-min sketch of access frequencies with four rows of counters capped at 15. Every
+     * 10 * capacity increments all counters are halved, so the history favours recent use.
+     */
+    private static class FrequencySketch {
+        private static final int ROWS = 4;
+        private static final int MAX_COUNT = 15;
+        private static final long[] SEEDS = {
+                0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+        };
+
+        private final int[][] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int width = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+            this.counters = new int[ROWS][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * capacity;
+        }
+
+        void increment(Object key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int row = 0; row < ROWS; row++) {
+                int index = index(hash, row);
+                if (counters[row][index] < MAX_COUNT) {
+                    counters[row][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = key.hashCode();
+            int min = MAX_COUNT;
+            for (int row = 0; row < ROWS; row++) {
+                min = Math.min(min, counters[row][index(hash, row)]);
+            }
+            return min;
+        }
+
+        private int index(int hash, int row) {
+            long mixed = (hash + SEEDS[row]) * SEEDS[(row + 1) % ROWS];
+            return (int) (mixed ^ (mixed >>> 32)) & mask;
+        }
+
+        private void reset() {
+            for (int[] row : counters) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package uz.javachi.devops_assignment.model;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000);
+    private static final String UUID = "5f0c8a52-3a0e-4a57-9f5c-0c4b2b0e6f11";
+
+    @Test
+    void encodedCursorRoundTrips() {
+        PageCursor cursor = PageCursor.of(CREATED_AT, 42L);
+
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.longId()).isEqualTo(42L);
+    }
+
+    @Test
+    void windowStartRoundTrips() {
+        PageCursor cursor = PageCursor.of(CREATED_AT, 42L, CREATED_AT.minusDays(30));
+
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.windowStart()).isEqualTo(CREATED_AT.minusDays(30));
+        assertThat(PageCursor.decode(PageCursor.of(CREATED_AT, 42L).encode()).windowStart()).isNull();
+    }
+
+    @Test
+    void encryptedCursorRoundTripsWithoutRevealingTheId() {
+        SecretKey key = PageCursor.keyFrom("page-cursor-test");
+        PageCursor cursor = PageCursor.of(CREATED_AT, UUID);
+
+        String sealed = cursor.encrypt(key);
+
+        assertThat(PageCursor.decrypt(sealed, key)).isEqualTo(cursor);
+        assertThat(new String(Base64.getUrlDecoder().decode(sealed), StandardCharsets.ISO_8859_1)).doesNotContain(UUID);
+        // A fresh IV each time, so the same position does not give a recognisable cursor
+        assertThat(cursor.encrypt(key)).isNotEqualTo(sealed);
+        // The same secret gives the same key, so other instances accept the cursor
+        assertThat(PageCursor.decrypt(sealed, PageCursor.keyFrom("page-cursor-test"))).isEqualTo(cursor);
+    }
+
+    @Test
+    void malformedCursorsAreClientErrors() {
+        SecretKey key = PageCursor.keyFrom("page-cursor-test");
+        String sealed = PageCursor.of(CREATED_AT, UUID).encrypt(key);
+        // A character inside the ciphertext; the last one may only carry padding bits
+        char flipped = sealed.charAt(20) == 'A' ? 'B' : 'A';
+        String tampered = sealed.substring(0, 20) + flipped + sealed.substring(21);
+        String plain = PageCursor.of(CREATED_AT, UUID).encode();
+
+        for (String value : List.of("", "not a cursor", "%%%", "AAAA", tampered, plain)) {
+            assertThatThrownBy(() -> PageCursor.decrypt(value, key))
+                    .as("decrypt %s", value)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThatThrownBy(() -> PageCursor.decrypt(sealed, PageCursor.keyFrom("another-secret")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.decrypt(sealed, PageCursor.keyFrom("")))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        for (String value : List.of("%%%", "bm8tc2VwYXJhdG9y", "bm90LWEtZGF0ZXwx")) {
+            assertThatThrownBy(() -> PageCursor.decode(value))
+                    .as("decode %s", value)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThatThrownBy(() -> PageCursor.of(CREATED_AT, UUID).longId()).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void pageKeepsTheExtraRowOut() {
+        List<Integer> rows = List.of(5, 4, 3, 2);
+
+        CursorPage<Integer> full = CursorPage.of(rows, 3, row -> PageCursor.of(CREATED_AT, row));
+        assertThat(full.getItems()).containsExactly(5, 4, 3);
+        assertThat(PageCursor.decode(full.getNext()).longId()).isEqualTo(3L);
+
+        CursorPage<Integer> last = CursorPage.of(rows, 4, row -> PageCursor.of(CREATED_AT, row));
+        assertThat(last.getItems()).containsExactly(5, 4, 3, 2);
+        assertThat(last.getNext()).isNull();
+
+        CursorPage<Integer> sealed = CursorPage.of(rows, 1, row -> PageCursor.of(CREATED_AT, row), after -> "sealed-" + after.id());
+        assertThat(sealed.getNext()).isEqualTo("sealed-5");
+    }
+
+    @Test
+    void limitMustBeWithinBounds() {
+        assertThatCode(() -> CursorPage.checkLimit(1)).doesNotThrowAnyException();
+        assertThatCode(() -> CursorPage.checkLimit(CursorPage.MAX_LIMIT)).doesNotThrowAnyException();
+        for (int limit : new int[]{0, -1, CursorPage.MAX_LIMIT + 1, Integer.MAX_VALUE}) {
+            assertThatThrownBy(() -> CursorPage.checkLimit(limit))
+                    .as("limit %d", limit)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
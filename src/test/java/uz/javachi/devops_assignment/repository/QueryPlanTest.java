@@ -0,0 +1,214 @@
+package uz.javachi.devops_assignment.repository;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uz.javachi.devops_assignment.model.Notification;
+import uz.javachi.devops_assignment.model.NotificationType;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OrderStatus;
+import uz.javachi.devops_assignment.model.Product;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs each lookup through its repository, captures the SQL Hibernate issues and checks
+ * H2's EXPLAIN for it: a lookup that falls back to a table scan fails the build.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plans;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "archive.directory=target/query-plans-archive"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    private static final int PRODUCTS = 200;
+    private static final int ORDERS = 5000;
+    private static final int NOTIFICATIONS = 2000;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SqlCapture sqlCapture;
+
+    @BeforeAll
+    void seed() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setName("product-" + i);
+            product.setPrice(1.0 + i);
+            product.setQuantity(100);
+            product.setCategory("category-" + (i % 20));
+            product.setFarmerId("farmer-" + (i % 40));
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+
+        OrderStatus[] statuses = OrderStatus.values();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setProductId(products.get(i % PRODUCTS).getId());
+            order.setBuyerId("buyer-" + (i % 250));
+            order.setQuantity(1 + i % 5);
+            order.setTotalPrice(10.0 + i % 100);
+            order.setStatus(statuses[i % statuses.length]);
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < NOTIFICATIONS; i++) {
+            Notification notification = new Notification();
+            notification.setUserId("user-" + (i % 100));
+            notification.setOrderId((long) i);
+            notification.setMessage("notification " + i);
+            notification.setType(NotificationType.values()[i % NotificationType.values().length]);
+            notification.setRead(i % 3 == 0);
+            notifications.add(notification);
+        }
+        notificationRepository.saveAll(notifications);
+
+        // Give the optimizer real selectivity figures rather than its defaults
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void ordersByBuyerUseAnIndex() {
+        String sql = sqlCapture.capture(() -> orderRepository.findByBuyerId("buyer-7"));
+        assertUsesIndex(sql, "buyer-7");
+    }
+
+    @Test
+    void ordersByProductUseAnIndex() {
+        Long productId = productRepository.findByFarmerId("farmer-3").get(0).getId();
+        String sql = sqlCapture.capture(() -> orderRepository.findByProductId(productId));
+        assertUsesIndex(sql, productId);
+    }
+
+    @Test
+    void ordersByStatusUseAnIndex() {
+        String sql = sqlCapture.capture(() -> orderRepository.findByStatus(OrderStatus.SHIPPED));
+        assertUsesIndex(sql, OrderStatus.SHIPPED.name());
+    }
+
+    @Test
+    void buyerHistoryIsAnIndexRangeScan() {
+        LocalDateTime from = LocalDateTime.now().minusDays(30);
+        String sql = sqlCapture.capture(() -> orderRepository.findBuyerPage("buyer-7", from, Limit.of(51)));
+        assertUsesIndex(sql, "buyer-7", from, 51);
+    }
+
+    @Test
+    void productHistoryIsAnIndexRangeScan() {
+        Long productId = productRepository.findByFarmerId("farmer-3").get(0).getId();
+        LocalDateTime from = LocalDateTime.now().minusDays(30);
+        String sql = sqlCapture.capture(() -> orderRepository.findProductPage(productId, from, Limit.of(51)));
+        assertUsesIndex(sql, productId, from, 51);
+    }
+
+    @Test
+    void notificationsByUserUseAnIndex() {
+        String sql = sqlCapture.capture(() -> notificationRepository.findByUserId("user-42"));
+        assertUsesIndex(sql, "user-42");
+    }
+
+    @Test
+    void unreadNotificationsByUserUseAnIndex() {
+        String sql = sqlCapture.capture(() -> notificationRepository.findByUserIdAndRead("user-42", false));
+        assertUsesIndex(sql, "user-42", false);
+    }
+
+    @Test
+    void notificationsByOrderUseAnIndex() {
+        String sql = sqlCapture.capture(() -> notificationRepository.findByOrderId(42L));
+        assertUsesIndex(sql, 42L);
+    }
+
+    @Test
+    void productsByFarmerUseAnIndex() {
+        String sql = sqlCapture.capture(() -> productRepository.findByFarmerId("farmer-3"));
+        assertUsesIndex(sql, "farmer-3");
+    }
+
+    @Test
+    void productsByCategoryUseAnIndex() {
+        String sql = sqlCapture.capture(() -> productRepository.findByCategory("category-5"));
+        assertUsesIndex(sql, "category-5");
+    }
+
+    private void assertUsesIndex(String sql, Object... parameters) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters);
+        // H2 annotates every table access with the index it reads: IDX_* or tableScan
+        assertThat(plan).as("plan for %s:%n%s", sql, plan)
+                .doesNotContain("tableScan")
+                .containsPattern("/\\* PUBLIC\\.IDX_");
+    }
+
+    /**
+     * Records the SQL of statements prepared on the calling thread, so the schedulers
+     * running in the background do not get mixed in.
+     */
+    static class SqlCapture implements StatementInspector {
+        private final ThreadLocal<List<String>> captured = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            List<String> statements = captured.get();
+            if (statements != null) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+
+        String capture(Runnable query) {
+            List<String> statements = new ArrayList<>();
+            captured.set(statements);
+            try {
+                query.run();
+            } finally {
+                captured.remove();
+            }
+            assertThat(statements).hasSize(1);
+            return statements.get(0);
+        }
+    }
+
+    @TestConfiguration
+    static class SqlCaptureConfiguration {
+        @Bean
+        SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer sqlCaptureCustomizer(SqlCapture sqlCapture) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlCapture);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package uz.javachi.devops_assignment.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    private static final int PRECISION = 12;
+
+    @Test
+    void estimateIsWithinFourStandardErrors() {
+        for (int distinct : new int[]{100, 1_000, 10_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog(PRECISION);
+            for (int i = 0; i < distinct; i++) {
+                sketch.add("buyer-" + i);
+            }
+            double bound = 4 * sketch.relativeStandardError();
+            assertThat((double) sketch.estimate())
+                    .as("estimate of %d distinct buyers", distinct)
+                    .isCloseTo(distinct, within(distinct * bound));
+        }
+    }
+
+    @Test
+    void repeatedValuesDoNotChangeTheSketch() {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add("buyer-" + i);
+        }
+        long estimate = sketch.estimate();
+
+        for (int i = 0; i < 5_000; i++) {
+            assertThat(sketch.add("buyer-" + i)).isFalse();
+        }
+        assertThat(sketch.estimate()).isEqualTo(estimate);
+    }
+
+    @Test
+    void mergeIsTheUnion() {
+        HyperLogLog monday = new HyperLogLog(PRECISION);
+        HyperLogLog tuesday = new HyperLogLog(PRECISION);
+        HyperLogLog week = new HyperLogLog(PRECISION);
+        // 30k distinct buyers, 10k of them on both days
+        for (int i = 0; i < 20_000; i++) {
+            monday.add("buyer-" + i);
+            week.add("buyer-" + i);
+        }
+        for (int i = 10_000; i < 30_000; i++) {
+            tuesday.add("buyer-" + i);
+            week.add("buyer-" + i);
+        }
+
+        HyperLogLog merged = monday.copy();
+        merged.merge(tuesday);
+
+        assertThat(merged.toBytes()).isEqualTo(week.toBytes());
+        assertThat(merged.estimate()).isEqualTo(week.estimate());
+        assertThat(monday.estimate()).isLessThan(merged.estimate());
+    }
+
+    @Test
+    void registersRoundTrip() {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 50_000; i++) {
+            sketch.add("buyer-" + i);
+        }
+
+        HyperLogLog restored = HyperLogLog.fromBytes(PRECISION, sketch.toBytes());
+
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+        assertThat(restored.toBytes()).isEqualTo(sketch.toBytes());
+        assertThat(restored.getPrecision()).isEqualTo(PRECISION);
+    }
+
+    @Test
+    void rejectsMismatchedPrecision() {
+        assertThatThrownBy(() -> new HyperLogLog(HyperLogLog.MAX_PRECISION + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(PRECISION, new byte[16]))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HyperLogLog(PRECISION).merge(new HyperLogLog(PRECISION + 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
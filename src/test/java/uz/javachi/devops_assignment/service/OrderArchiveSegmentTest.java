@@ -0,0 +1,99 @@
+package uz.javachi.devops_assignment.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OrderStatus;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderArchiveSegmentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rowsSurviveTheRoundTripExactly() throws Exception {
+        List<Order> orders = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2024, 3, 9, 23, 59, 59, 999_999_999);
+        OrderStatus[] statuses = OrderStatus.values();
+        for (int i = 0; i < 500; i++) {
+            // Unsorted, sparse ids and timestamps that go backwards as well as forwards
+            long id = 1_000_000L - 7L * i;
+            orders.add(order(id, i % 13 == 0 ? null : (long) (i % 17), i % 11 == 0 ? null : "buyer-" + (i % 29),
+                    1 + i % 5, i * 1.25, i % 19 == 0 ? null : statuses[i % statuses.length],
+                    base.minusNanos(123_456_789L * ((i * 31) % 97))));
+        }
+
+        OrderArchiveSegment written = OrderArchiveSegment.write(directory.resolve("orders-1.oseg"), orders);
+        written.publish();
+        List<Order> read = OrderArchiveSegment.readHeader(written.file()).readOrders();
+
+        List<Order> expected = new ArrayList<>(orders);
+        expected.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+        assertThat(read).hasSize(expected.size());
+        for (int i = 0; i < read.size(); i++) {
+            assertThat(read.get(i)).usingRecursiveComparison().isEqualTo(expected.get(i));
+        }
+    }
+
+    @Test
+    void headerSummarizesTheRows() throws Exception {
+        List<Order> orders = List.of(
+                order(5L, 1L, "a", 1, 10.0, OrderStatus.DELIVERED, LocalDateTime.of(2024, 1, 1, 10, 0)),
+                order(3L, 1L, "b", 2, 20.0, OrderStatus.CANCELLED, LocalDateTime.of(2024, 1, 1, 23, 59)),
+                order(9L, 2L, "a", 3, 30.5, OrderStatus.DELIVERED, LocalDateTime.of(2024, 1, 2, 0, 0)));
+
+        OrderArchiveSegment written = OrderArchiveSegment.write(directory.resolve("orders-2.oseg"), orders);
+        written.publish();
+        OrderArchiveSegment segment = OrderArchiveSegment.readHeader(written.file());
+
+        assertThat(segment.rowCount()).isEqualTo(3);
+        assertThat(segment.minId()).isEqualTo(3L);
+        assertThat(segment.maxId()).isEqualTo(9L);
+        assertThat(segment.mayContain(4L)).isTrue();
+        assertThat(segment.mayContain(10L)).isFalse();
+        assertThat(segment.revenue()).isEqualTo(60.5);
+        assertThat(segment.statusCount(OrderStatus.DELIVERED)).isEqualTo(2);
+        assertThat(segment.statusCount(OrderStatus.CANCELLED)).isEqualTo(1);
+        assertThat(segment.products().get(1L).orderCount).isEqualTo(2);
+        assertThat(segment.products().get(2L).revenue).isEqualTo(30.5);
+        assertThat(segment.dailyCounts())
+                .containsEntry(LocalDate.of(2024, 1, 1), 2L)
+                .containsEntry(LocalDate.of(2024, 1, 2), 1L);
+    }
+
+    @Test
+    void nothingIsVisibleUntilPublished() throws Exception {
+        Path file = directory.resolve("orders-3.oseg");
+        OrderArchiveSegment segment = OrderArchiveSegment.write(file,
+                List.of(order(1L, 1L, "a", 1, 1.0, OrderStatus.DELIVERED, LocalDateTime.now())));
+
+        assertThat(file).doesNotExist();
+        assertThat(OrderArchiveSegment.tempFile(file)).exists();
+
+        segment.publish();
+
+        assertThat(file).exists();
+        assertThat(OrderArchiveSegment.tempFile(file)).doesNotExist();
+    }
+
+    static Order order(Long id, Long productId, String buyerId, Integer quantity, Double totalPrice,
+                       OrderStatus status, LocalDateTime createdAt) {
+        Order order = new Order();
+        order.setId(id);
+        order.setProductId(productId);
+        order.setBuyerId(buyerId);
+        order.setQuantity(quantity);
+        order.setTotalPrice(totalPrice);
+        order.setStatus(status);
+        order.setCreatedAt(createdAt);
+        return order;
+    }
+}
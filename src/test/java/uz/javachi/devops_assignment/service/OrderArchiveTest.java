@@ -0,0 +1,130 @@
+package uz.javachi.devops_assignment.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OrderStatus;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The archiver against a stubbed orders table, failing between writing a segment and
+ * deleting its rows.
+ */
+class OrderArchiveTest {
+
+    private static final int SEGMENT_SIZE = 10;
+
+    @TempDir
+    Path directory;
+
+    private OrderRepository orderRepository;
+    private TransactionTemplate transactionTemplate;
+    private List<Order> batch;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        LocalDateTime old = LocalDateTime.now().minusDays(90);
+        batch = List.of(
+                OrderArchiveSegmentTest.order(1L, 1L, "a", 1, 10.0, OrderStatus.DELIVERED, old),
+                OrderArchiveSegmentTest.order(2L, 1L, "b", 2, 20.0, OrderStatus.CANCELLED, old),
+                OrderArchiveSegmentTest.order(3L, 2L, "a", 1, 15.0, OrderStatus.DELIVERED, old));
+    }
+
+    @Test
+    void failedDeleteIsNotArchivedTwice() throws Exception {
+        when(orderRepository.findArchivable(anyCollection(), any(), any())).thenReturn(batch);
+        when(orderRepository.deleteByIdIn(anyCollection()))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"))
+                .thenReturn(batch.size());
+        // The failed delete rolled back, so the rows are still there on the next run
+        when(orderRepository.existsByIdIn(anyCollection())).thenReturn(true);
+        OrderArchive archive = newArchive();
+
+        assertThatThrownBy(archive::archive).isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(archive.segments()).isEmpty();
+        assertThat(archive.orderCount()).isZero();
+        assertThat(archive.findById(1L)).isEmpty();
+
+        archive.archive();
+
+        assertThat(archive.segments()).hasSize(1);
+        assertThat(archive.orderCount()).isEqualTo(batch.size());
+        assertThat(archive.stream().map(Order::getId)).containsExactly(1L, 2L, 3L);
+        assertThat(segmentFiles()).hasSize(1);
+        assertThat(tempFiles()).isEmpty();
+    }
+
+    @Test
+    void segmentIsPublishedWhenTheFailedCommitDeletedTheRows() throws Exception {
+        when(orderRepository.findArchivable(anyCollection(), any(), any()))
+                .thenReturn(batch)
+                .thenReturn(List.of());
+        when(orderRepository.deleteByIdIn(anyCollection()))
+                .thenThrow(new DataAccessResourceFailureException("commit outcome unknown"));
+        when(orderRepository.existsByIdIn(anyCollection())).thenReturn(false);
+        OrderArchive archive = newArchive();
+
+        assertThatThrownBy(archive::archive).isInstanceOf(DataAccessResourceFailureException.class);
+        archive.archive();
+
+        assertThat(archive.orderCount()).isEqualTo(batch.size());
+        assertThat(archive.findById(2L)).get().extracting(Order::getBuyerId).isEqualTo("b");
+        assertThat(segmentFiles()).hasSize(1);
+        assertThat(tempFiles()).isEmpty();
+    }
+
+    @Test
+    void restartSettlesASegmentLeftUnpublished() throws Exception {
+        when(orderRepository.findArchivable(anyCollection(), any(), any())).thenReturn(batch);
+        when(orderRepository.deleteByIdIn(anyCollection()))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+        assertThatThrownBy(newArchive()::archive).isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(tempFiles()).hasSize(1);
+
+        // The rows are still in the table, so the restarted archive drops the file
+        when(orderRepository.existsByIdIn(anyCollection())).thenReturn(true);
+        OrderArchive restarted = newArchive();
+        restarted.reconcile();
+
+        assertThat(restarted.orderCount()).isZero();
+        assertThat(segmentFiles()).isEmpty();
+        assertThat(tempFiles()).isEmpty();
+    }
+
+    private OrderArchive newArchive() throws Exception {
+        return new OrderArchive(orderRepository, transactionTemplate, directory.toString(),
+                30, SEGMENT_SIZE, 4, new SimpleMeterRegistry());
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".oseg")).toList();
+        }
+    }
+
+    private List<Path> tempFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".tmp")).toList();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package uz.javachi.devops_assignment.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import uz.javachi.devops_assignment.model.BulkStatusResult;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OrderStatus;
+import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-bulk-status;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "archive.directory=target/order-bulk-status-archive/${random.uuid}",
+        "archive.initial-delay-ms=3600000"
+})
+class OrderBulkStatusTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void byIdsRejectsIllegalTransitionsAndMissingOrders() {
+        Product product = productService.createProduct(newProduct("bulk-ids"));
+        Order pending = orderService.createOrder(newOrder(product.getId(), "bulk-ids-buyer"));
+        Order cancelled = orderService.createOrder(newOrder(product.getId(), "bulk-ids-buyer"));
+        Order shipped = orderService.createOrder(newOrder(product.getId(), "bulk-ids-buyer"));
+        orderService.updateOrderStatus(cancelled.getId(), OrderStatus.CANCELLED);
+        orderService.updateOrderStatus(shipped.getId(), OrderStatus.CONFIRMED);
+        orderService.updateOrderStatus(shipped.getId(), OrderStatus.SHIPPED);
+        long missing = Long.MAX_VALUE;
+
+        // Duplicates count once
+        BulkStatusResult result = orderService.updateOrderStatuses(
+                List.of(pending.getId(), cancelled.getId(), shipped.getId(), missing, pending.getId()),
+                null, null, null, OrderStatus.CONFIRMED);
+
+        assertResult(result, 4, 1);
+        assertThat(statusOf(pending)).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(statusOf(cancelled)).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(statusOf(shipped)).isEqualTo(OrderStatus.SHIPPED);
+
+        // fromStatus narrows the ids: only the shipped one may be delivered, and it is not CONFIRMED
+        BulkStatusResult narrowed = orderService.updateOrderStatuses(List.of(pending.getId(), shipped.getId()),
+                OrderStatus.CONFIRMED, null, null, OrderStatus.DELIVERED);
+        assertResult(narrowed, 2, 0);
+        assertThat(statusOf(shipped)).isEqualTo(OrderStatus.SHIPPED);
+
+        // Nothing moves out of a final status
+        BulkStatusResult fromFinal = orderService.updateOrderStatuses(List.of(cancelled.getId()),
+                null, null, null, OrderStatus.PENDING);
+        assertResult(fromFinal, 1, 0);
+    }
+
+    @Test
+    void idsCannotBeCombinedWithAFilter() {
+        Product product = productService.createProduct(newProduct("bulk-combined"));
+        Order order = orderService.createOrder(newOrder(product.getId(), "bulk-combined-buyer"));
+
+        assertThatThrownBy(() -> orderService.updateOrderStatuses(List.of(order.getId()), null,
+                product.getId(), null, OrderStatus.CONFIRMED))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> orderService.updateOrderStatuses(List.of(order.getId()), null,
+                null, "bulk-combined-buyer", OrderStatus.CONFIRMED))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> orderService.updateOrderStatuses(List.of(), null, null, null, OrderStatus.CONFIRMED))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(statusOf(order)).isEqualTo(OrderStatus.PENDING);
+    }
+
+    @Test
+    void filterRunsInChunksAndCountsWhatItChanged() {
+        Product product = productService.createProduct(newProduct("bulk-filter"));
+        String buyerId = "bulk-filter-buyer";
+        // More than one chunk; every tenth order is delivered and cannot be cancelled
+        int total = OrderService.MAX_STATUS_IDS + 25;
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            Order order = newOrder(product.getId(), buyerId);
+            order.setTotalPrice(4.0);
+            order.setStatus(i % 10 == 0 ? OrderStatus.DELIVERED : i % 10 == 1 ? OrderStatus.CONFIRMED : OrderStatus.PENDING);
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+        Map<OrderStatus, Long> before = countByStatus(buyerId);
+
+        BulkStatusResult result = orderService.updateOrderStatuses(null, null, null, buyerId, OrderStatus.CANCELLED);
+
+        long cancellable = before.get(OrderStatus.PENDING) + before.get(OrderStatus.CONFIRMED);
+        assertResult(result, total, cancellable);
+        Map<OrderStatus, Long> after = countByStatus(buyerId);
+        assertThat(after).containsOnlyKeys(OrderStatus.CANCELLED, OrderStatus.DELIVERED);
+        assertThat(after.get(OrderStatus.CANCELLED)).isEqualTo(cancellable);
+        assertThat(after.get(OrderStatus.DELIVERED)).isEqualTo(before.get(OrderStatus.DELIVERED));
+
+        // Matched and applied come from the same selection, so a repeat matches the same orders and changes none
+        BulkStatusResult repeat = orderService.updateOrderStatuses(null, null, null, buyerId, OrderStatus.CANCELLED);
+        assertResult(repeat, total, 0);
+        BulkStatusResult none = orderService.updateOrderStatuses(null, OrderStatus.PENDING, product.getId(), buyerId,
+                OrderStatus.CANCELLED);
+        assertResult(none, 0, 0);
+    }
+
+    private static void assertResult(BulkStatusResult result, long matched, long applied) {
+        assertThat(result.getMatched()).as("matched").isEqualTo(matched);
+        assertThat(result.getApplied()).as("applied").isEqualTo(applied);
+        assertThat(result.getRejected()).as("rejected").isEqualTo(matched - applied);
+    }
+
+    private OrderStatus statusOf(Order order) {
+        return orderRepository.findById(order.getId()).orElseThrow().getStatus();
+    }
+
+    private Map<OrderStatus, Long> countByStatus(String buyerId) {
+        return orderRepository.findByBuyerId(buyerId).stream()
+                .collect(Collectors.groupingBy(Order::getStatus, Collectors.counting()));
+    }
+
+    private static Product newProduct(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(4.0);
+        product.setQuantity(1_000);
+        product.setCategory("test");
+        product.setFarmerId("farmer-1");
+        return product;
+    }
+
+    private static Order newOrder(Long productId, String buyerId) {
+        Order order = new Order();
+        order.setProductId(productId);
+        order.setBuyerId(buyerId);
+        order.setQuantity(1);
+        return order;
+    }
+}
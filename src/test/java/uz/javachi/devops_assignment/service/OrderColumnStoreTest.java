@@ -0,0 +1,254 @@
+package uz.javachi.devops_assignment.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import uz.javachi.devops_assignment.model.AnalyticsQuery;
+import uz.javachi.devops_assignment.model.AnalyticsResult;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OrderStatus;
+import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Queries against the column store compared with the same aggregation computed from the
+ * orders table, after creates, status changes and product updates.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-column-store;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "archive.directory=target/order-column-store-archive/${random.uuid}",
+        "archive.initial-delay-ms=3600000"
+})
+class OrderColumnStoreTest {
+
+    @Autowired
+    private OrderColumnStore orderColumnStore;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void groupByMatchesTheTable() {
+        List<Product> products = List.of(
+                productService.createProduct(newProduct("column-apples", 2.5, "column-fruit")),
+                productService.createProduct(newProduct("column-carrots", 1.25, "column-veg")));
+        List<Long> orderIds = createOrders(products);
+        orderService.updateOrderStatus(orderIds.get(0), OrderStatus.CONFIRMED);
+        orderService.updateOrderStatus(orderIds.get(1), OrderStatus.CANCELLED);
+
+        AnalyticsQuery query = query(List.of("productId", "status"),
+                filter("productId", "in", ids(products)));
+        query.setMetrics(List.of(metric("count", null), metric("sum", "quantity"), metric("sum", "revenue"),
+                metric("avg", "quantity"), metric("max", "revenue")));
+        AnalyticsResult result = orderColumnStore.query(query);
+
+        Map<List<Object>, List<Order>> expected = new HashMap<>();
+        tableOrders(products).forEach(order -> expected
+                .computeIfAbsent(List.of(order.getProductId(), order.getStatus()), key -> new ArrayList<>())
+                .add(order));
+        assertThat(result.getRows()).hasSameSizeAs(expected.keySet());
+        for (AnalyticsResult.Row row : result.getRows()) {
+            List<Order> group = expected.get(List.of(row.getGroup().get("productId"), row.getGroup().get("status")));
+            assertThat(group).as("group %s", row.getGroup()).isNotNull();
+            Map<String, Double> values = row.getValues();
+            assertThat(values.get("count")).isEqualTo((double) group.size());
+            assertThat(values.get("sum_quantity")).isEqualTo((double) group.stream().mapToInt(Order::getQuantity).sum());
+            assertThat(values.get("sum_revenue"))
+                    .isCloseTo(group.stream().mapToDouble(Order::getTotalPrice).sum(), within(1e-9));
+            assertThat(values.get("avg_quantity"))
+                    .isCloseTo(group.stream().mapToInt(Order::getQuantity).average().orElseThrow(), within(1e-9));
+            assertThat(values.get("max_revenue"))
+                    .isEqualTo(group.stream().mapToDouble(Order::getTotalPrice).max().orElseThrow());
+        }
+        // Ordered by the first metric, descending
+        assertThat(result.getRows()).extracting(row -> row.getValues().get("count"))
+                .isSortedAccordingTo((left, right) -> Double.compare(right, left));
+    }
+
+    @Test
+    void filtersMatchTheTable() {
+        List<Product> products = List.of(
+                productService.createProduct(newProduct("column-pears", 3.0, "column-filters")),
+                productService.createProduct(newProduct("column-beets", 0.5, "column-filters")));
+        List<Long> orderIds = createOrders(products);
+        orderService.updateOrderStatus(orderIds.get(2), OrderStatus.CONFIRMED);
+
+        assertCount(products, order -> "column-buyer-1".equals(order.getBuyerId()),
+                filter("buyerId", "eq", "column-buyer-1"));
+        assertCount(products, order -> order.getQuantity() >= 3,
+                filter("quantity", "gte", "3"));
+        assertCount(products, order -> order.getTotalPrice() <= 4.0,
+                filter("revenue", "lte", "4.0"));
+        assertCount(products, order -> order.getStatus() != OrderStatus.PENDING,
+                filter("status", "ne", "pending"));
+        assertCount(products, order -> order.getProductId().equals(products.get(1).getId()) && order.getQuantity() <= 2,
+                filter("productId", "eq", products.get(1).getId().toString()), filter("quantity", "lte", "2"));
+        // A value no row carries matches nothing rather than failing
+        assertCount(products, order -> false, filter("buyerId", "eq", "column-nobody"));
+    }
+
+    @Test
+    void nullFiltersAreRejectedOrIgnored() {
+        List<Product> products = List.of(productService.createProduct(newProduct("column-plums", 2.0, "column-nulls")));
+        createOrders(products);
+        long total = tableOrders(products).count();
+
+        AnalyticsQuery noFilters = query(List.of("category"));
+        noFilters.setFilters(null);
+        assertThat(categoryCount(orderColumnStore.query(noFilters), "column-nulls")).isEqualTo(total);
+
+        // A null entry filters nothing, like an absent list
+        AnalyticsQuery nullEntry = query(List.of("category"), filter("category", "eq", "column-nulls"));
+        nullEntry.getFilters().add(null);
+        assertThat(categoryCount(orderColumnStore.query(nullEntry), "column-nulls")).isEqualTo(total);
+
+        // A null value is a client error, which the controller turns into a 400
+        AnalyticsQuery nullValue = query(List.of(), filter("buyerId", "in", "column-buyer-1", null));
+        assertThatThrownBy(() -> orderColumnStore.query(nullValue))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("null value");
+        AnalyticsQuery noValues = query(List.of(), filter("buyerId", "in"));
+        assertThatThrownBy(() -> orderColumnStore.query(noValues)).isInstanceOf(IllegalArgumentException.class);
+        AnalyticsQuery unknownField = query(List.of("colour"));
+        assertThatThrownBy(() -> orderColumnStore.query(unknownField)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void productUpdatesMoveExistingOrders() {
+        Product product = productService.createProduct(newProduct("column-kale", 2.0, "column-before"));
+        createOrders(List.of(product));
+        long total = tableOrders(List.of(product)).count();
+
+        Product renamed = newProduct("column-kale", 2.0, "column-after");
+        productService.updateProduct(product.getId(), renamed);
+
+        AnalyticsResult result = orderColumnStore.query(query(List.of("category"),
+                filter("productId", "eq", product.getId().toString())));
+        assertThat(result.getRows()).hasSize(1);
+        assertThat(categoryCount(result, "column-after")).isEqualTo(total);
+        AnalyticsResult before = orderColumnStore.query(query(List.of(),
+                filter("category", "eq", "column-before")));
+        assertThat(before.getRows()).isEmpty();
+    }
+
+    @Test
+    void statusChangesMatchTheTable() {
+        List<Product> products = List.of(productService.createProduct(newProduct("column-leeks", 1.0, "column-status")));
+        List<Long> orderIds = createOrders(products);
+
+        orderService.updateOrderStatus(orderIds.get(0), OrderStatus.CANCELLED);
+        // By ids, including one the target cannot be reached from
+        orderService.updateOrderStatuses(List.of(orderIds.get(0), orderIds.get(1), orderIds.get(2)),
+                null, null, null, OrderStatus.CONFIRMED);
+        // By filter, moving the confirmed ones on
+        orderService.updateOrderStatuses(null, OrderStatus.CONFIRMED, products.get(0).getId(), null,
+                OrderStatus.SHIPPED);
+
+        AnalyticsResult result = orderColumnStore.query(query(List.of("status"),
+                filter("productId", "eq", products.get(0).getId().toString())));
+        Map<Object, Double> byStatus = new HashMap<>();
+        result.getRows().forEach(row -> byStatus.put(row.getGroup().get("status"), row.getValues().get("count")));
+
+        Map<Object, Double> expected = new HashMap<>();
+        tableOrders(products).forEach(order -> expected.merge(order.getStatus(), 1.0, Double::sum));
+        assertThat(byStatus).isEqualTo(expected);
+        assertThat(byStatus).containsEntry(OrderStatus.CANCELLED, 1.0).containsEntry(OrderStatus.SHIPPED, 2.0);
+    }
+
+    // Six orders per product, spread over three buyers and quantities 1 to 6
+    private List<Long> createOrders(List<Product> products) {
+        List<Long> orderIds = new ArrayList<>();
+        for (Product product : products) {
+            for (int i = 0; i < 6; i++) {
+                Order order = new Order();
+                order.setProductId(product.getId());
+                order.setBuyerId("column-buyer-" + (i % 3));
+                order.setQuantity(i + 1);
+                orderIds.add(orderService.createOrder(order).getId());
+            }
+        }
+        return orderIds;
+    }
+
+    private Stream<Order> tableOrders(List<Product> products) {
+        return products.stream().flatMap(product -> orderRepository.findByProductId(product.getId()).stream());
+    }
+
+    // Restricted to the given products, so orders other tests created do not count
+    private void assertCount(List<Product> products, Predicate<Order> expected, AnalyticsQuery.Filter... filters) {
+        AnalyticsQuery query = query(List.of(), filters);
+        query.getFilters().add(filter("productId", "in", ids(products)));
+        AnalyticsResult result = orderColumnStore.query(query);
+        long count = result.getRows().isEmpty() ? 0 : result.getRows().get(0).getValues().get("count").longValue();
+        assertThat(count).as("count for %s", describe(filters)).isEqualTo(tableOrders(products).filter(expected).count());
+    }
+
+    private static long categoryCount(AnalyticsResult result, String category) {
+        return result.getRows().stream()
+                .filter(row -> category.equals(row.getGroup().get("category")))
+                .mapToLong(row -> row.getValues().get("count").longValue())
+                .sum();
+    }
+
+    private static String describe(AnalyticsQuery.Filter... filters) {
+        return Arrays.stream(filters)
+                .map(filter -> filter.getField() + " " + filter.getOp() + " " + filter.getValues())
+                .toList()
+                .toString();
+    }
+
+    private static String[] ids(List<Product> products) {
+        return products.stream().map(product -> product.getId().toString()).toArray(String[]::new);
+    }
+
+    private static AnalyticsQuery query(List<String> groupBy, AnalyticsQuery.Filter... filters) {
+        AnalyticsQuery query = new AnalyticsQuery();
+        query.setGroupBy(groupBy);
+        query.setFilters(new ArrayList<>(Arrays.asList(filters)));
+        return query;
+    }
+
+    private static AnalyticsQuery.Filter filter(String field, String op, String... values) {
+        AnalyticsQuery.Filter filter = new AnalyticsQuery.Filter();
+        filter.setField(field);
+        filter.setOp(op);
+        filter.setValues(new ArrayList<>(Arrays.asList(values)));
+        return filter;
+    }
+
+    private static AnalyticsQuery.Metric metric(String op, String field) {
+        AnalyticsQuery.Metric metric = new AnalyticsQuery.Metric();
+        metric.setOp(op);
+        metric.setField(field);
+        return metric;
+    }
+
+    private static Product newProduct(String name, double price, String category) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setQuantity(1_000);
+        product.setCategory(category);
+        product.setFarmerId("column-farmer");
+        return product;
+    }
+}
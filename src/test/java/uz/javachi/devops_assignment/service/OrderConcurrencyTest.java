@@ -0,0 +1,163 @@
+package uz.javachi.devops_assignment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+import uz.javachi.devops_assignment.repository.ProductRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-concurrency;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        // The test drives the stock write-back itself
+        "inventory.flush-interval-ms=3600000"
+})
+@Slf4j
+class OrderConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InventoryReservations inventoryReservations;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void hotProductIsNeverOversold() throws Exception {
+        int stock = 500;
+        int attempts = 2000;
+        Product product = productService.createProduct(newProduct("hot-product", stock));
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        long start = System.nanoTime();
+        runConcurrently(attempts, i -> {
+            try {
+                orderService.createOrder(newOrder(product.getId(), "buyer-" + i));
+                created.incrementAndGet();
+            } catch (RuntimeException e) {
+                assertThat(e.getMessage()).startsWith("Insufficient product quantity");
+                rejected.incrementAndGet();
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info("Hot product: {} orders accepted, {} rejected in {} s ({} attempts/s)",
+                created.get(), rejected.get(), String.format("%.2f", seconds), Math.round(attempts / seconds));
+
+        assertThat(created.get()).isEqualTo(stock);
+        assertThat(rejected.get()).isEqualTo(attempts - stock);
+        assertThat(inventoryReservations.available(product.getId())).isZero();
+        assertThat(orderRepository.findByProductId(product.getId())).hasSize(stock);
+
+        inventoryReservations.flush();
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getQuantity()).isZero();
+        assertThat(orderRepository.findPendingStock(Limit.unlimited())).isEmpty();
+    }
+
+    @Test
+    void priceUpdatesRetryAroundStockWriteBacks() throws Exception {
+        int stock = 10_000;
+        int orders = 2000;
+        int priceUpdates = 50;
+        Product product = productService.createProduct(newProduct("contended-product", stock));
+
+        // Each price update hands the flusher one write-back, which then races the next update
+        // for the product row while the order threads keep stock pending. The next write-back
+        // waits for that update, so an update loses its version check at most once however the
+        // threads are scheduled, and the test does not depend on timing
+        Semaphore writeBacks = new Semaphore(0);
+        ExecutorService background = Executors.newFixedThreadPool(2);
+        Future<?> flusher = background.submit(() -> {
+            for (int i = 0; i < priceUpdates; i++) {
+                writeBacks.acquire();
+                inventoryReservations.flush();
+            }
+            return null;
+        });
+        Future<?> editor = background.submit(() -> {
+            for (int i = 0; i < priceUpdates; i++) {
+                productService.updateProductPrice(product.getId(), 3.0 + i);
+                writeBacks.release();
+            }
+            return null;
+        });
+
+        runConcurrently(orders, i -> orderService.createOrder(newOrder(product.getId(), "buyer-" + i)));
+        editor.get(60, TimeUnit.SECONDS);
+        flusher.get(60, TimeUnit.SECONDS);
+        background.shutdown();
+        inventoryReservations.flush();
+
+        Product result = productRepository.findById(product.getId()).orElseThrow();
+        assertThat(result.getQuantity()).isEqualTo(stock - orders);
+        assertThat(result.getPrice()).isEqualTo(3.0 + priceUpdates - 1);
+    }
+
+    private void runConcurrently(int tasks, TaskBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                body.run(index);
+                return null;
+            }));
+        }
+        startGate.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private static Product newProduct(String name, int quantity) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(2.0);
+        product.setQuantity(quantity);
+        product.setCategory("test");
+        product.setFarmerId("farmer-1");
+        return product;
+    }
+
+    private static Order newOrder(Long productId, String buyerId) {
+        Order order = new Order();
+        order.setProductId(productId);
+        order.setBuyerId(buyerId);
+        order.setQuantity(1);
+        return order;
+    }
+
+    @FunctionalInterface
+    private interface TaskBody {
+        void run(int index) throws Exception;
+    }
+}
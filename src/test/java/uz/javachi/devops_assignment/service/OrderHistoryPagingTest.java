@@ -0,0 +1,106 @@
+package uz.javachi.devops_assignment.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uz.javachi.devops_assignment.model.CursorPage;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.PageCursor;
+import uz.javachi.devops_assignment.model.Product;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-history-paging;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "archive.directory=target/order-history-paging-archive/${random.uuid}",
+        "archive.initial-delay-ms=3600000"
+})
+class OrderHistoryPagingTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void defaultWindowStaysFixedAcrossPages() throws InterruptedException {
+        Product product = productService.createProduct(newProduct());
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            orderIds.add(orderService.createOrder(newOrder(product.getId(), "history-window-buyer")).getId());
+        }
+
+        LocalDateTime before = LocalDateTime.now().minusDays(OrderService.DEFAULT_HISTORY_DAYS);
+        CursorPage<Order> first = orderService.getOrdersByBuyer("history-window-buyer", null, null, null, 2);
+        LocalDateTime after = LocalDateTime.now().minusDays(OrderService.DEFAULT_HISTORY_DAYS);
+
+        assertThat(first.getItems()).extracting(Order::getId).containsExactly(orderIds.get(2), orderIds.get(1));
+        LocalDateTime windowStart = PageCursor.decode(first.getNext()).windowStart();
+        assertThat(windowStart).isBetween(before, after);
+
+        // The oldest order moves to just inside the first page's window; a window recomputed
+        // from the clock on the next request would already have passed it
+        LocalDateTime edge = windowStart.truncatedTo(ChronoUnit.MICROS).plus(1, ChronoUnit.MICROS);
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", Timestamp.valueOf(edge), orderIds.get(0));
+        Thread.sleep(20);
+
+        CursorPage<Order> second = orderService.getOrdersByBuyer("history-window-buyer", null, null, first.getNext(), 2);
+        assertThat(second.getItems()).extracting(Order::getId).containsExactly(orderIds.get(0));
+        assertThat(second.getNext()).isNull();
+
+        // The same holds for the product history, with the window of its own first page
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(1)), orderIds.get(0));
+        CursorPage<Order> byProduct = orderService.getOrdersByProduct(product.getId(), null, null, null, 2);
+        LocalDateTime productEdge = PageCursor.decode(byProduct.getNext()).windowStart()
+                .truncatedTo(ChronoUnit.MICROS).plus(1, ChronoUnit.MICROS);
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", Timestamp.valueOf(productEdge), orderIds.get(0));
+        Thread.sleep(20);
+        CursorPage<Order> byProductNext = orderService.getOrdersByProduct(product.getId(), null, null, byProduct.getNext(), 2);
+        assertThat(byProductNext.getItems()).extracting(Order::getId).containsExactly(orderIds.get(0));
+    }
+
+    @Test
+    void explicitFromWinsOverTheCursorWindow() {
+        Product product = productService.createProduct(newProduct());
+        for (int i = 0; i < 3; i++) {
+            orderService.createOrder(newOrder(product.getId(), "history-from-buyer"));
+        }
+        CursorPage<Order> first = orderService.getOrdersByBuyer("history-from-buyer", null, null, null, 1);
+
+        CursorPage<Order> narrowed = orderService.getOrdersByBuyer("history-from-buyer",
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), first.getNext(), 10);
+
+        assertThat(narrowed.getItems()).isEmpty();
+    }
+
+    private static Product newProduct() {
+        Product product = new Product();
+        product.setName("history");
+        product.setPrice(2.0);
+        product.setQuantity(100);
+        product.setCategory("test");
+        product.setFarmerId("farmer-1");
+        return product;
+    }
+
+    private static Order newOrder(Long productId, String buyerId) {
+        Order order = new Order();
+        order.setProductId(productId);
+        order.setBuyerId(buyerId);
+        order.setQuantity(1);
+        return order;
+    }
+}
@@ -0,0 +1,176 @@
+package uz.javachi.devops_assignment.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OrderStatus;
+import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-idempotency;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        // One remembered key, so a second key pushes the first out to the database row
+        "idempotency.cache-size=1",
+        "inventory.flush-interval-ms=3600000",
+        "archive.directory=target/order-idempotency-archive/${random.uuid}",
+        "archive.min-age-days=0",
+        "archive.initial-delay-ms=3600000"
+})
+class OrderIdempotencyTest {
+
+    @Autowired
+    private OrderIdempotency orderIdempotency;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InventoryReservations inventoryReservations;
+
+    @Autowired
+    private OrderArchive orderArchive;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void replayReturnsTheSameOrder() {
+        Product product = productService.createProduct(newProduct("replay", 10));
+
+        OrderIdempotency.Result first = orderIdempotency.createOrder("replay-key", newOrder(product.getId(), 2));
+        OrderIdempotency.Result second = orderIdempotency.createOrder("replay-key", newOrder(product.getId(), 2));
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(second.replayed()).isTrue();
+        assertThat(second.order().getId()).isEqualTo(first.order().getId());
+        assertThat(orderRepository.findByProductId(product.getId())).hasSize(1);
+        assertThat(inventoryReservations.available(product.getId())).isEqualTo(8);
+    }
+
+    @Test
+    void sameKeyWithADifferentBodyConflicts() {
+        Product product = productService.createProduct(newProduct("conflict", 10));
+        orderIdempotency.createOrder("conflict-key", newOrder(product.getId(), 1));
+
+        assertThatThrownBy(() -> orderIdempotency.createOrder("conflict-key", newOrder(product.getId(), 3)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("different order");
+        assertThat(orderRepository.findByProductId(product.getId())).hasSize(1);
+    }
+
+    @Test
+    void concurrentRequestsWithOneKeyCreateOneOrder() throws Exception {
+        Product product = productService.createProduct(newProduct("concurrent", 100));
+        int threads = 16;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<OrderIdempotency.Result>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                return orderIdempotency.createOrder("concurrent-key", newOrder(product.getId(), 1));
+            }));
+        }
+        startGate.countDown();
+        List<OrderIdempotency.Result> results = new ArrayList<>();
+        for (Future<OrderIdempotency.Result> future : futures) {
+            results.add(future.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertThat(results).extracting(result -> result.order().getId()).containsOnly(results.get(0).order().getId());
+        assertThat(results).filteredOn(result -> !result.replayed()).hasSize(1);
+        assertThat(orderRepository.findByProductId(product.getId())).hasSize(1);
+        assertThat(inventoryReservations.available(product.getId())).isEqualTo(99);
+    }
+
+    @Test
+    void replayAfterEvictionIsServedFromTheStoredKey() {
+        Product product = productService.createProduct(newProduct("evicted", 10));
+        Order first = orderIdempotency.createOrder("evicted-key", newOrder(product.getId(), 1)).order();
+        orderIdempotency.createOrder("evicting-key", newOrder(product.getId(), 1));
+        double stored = storedReplays();
+
+        OrderIdempotency.Result replay = orderIdempotency.createOrder("evicted-key", newOrder(product.getId(), 1));
+
+        assertThat(replay.replayed()).isTrue();
+        assertThat(replay.order().getId()).isEqualTo(first.getId());
+        assertThat(storedReplays()).isEqualTo(stored + 1);
+        assertThat(orderRepository.findByProductId(product.getId())).hasSize(2);
+    }
+
+    @Test
+    void archivedOrderIsReplayedFromTheArchive() {
+        Product product = productService.createProduct(newProduct("archived", 10));
+        Order first = orderIdempotency.createOrder("archived-key", newOrder(product.getId(), 1)).order();
+        orderIdempotency.createOrder("archived-evicting-key", newOrder(product.getId(), 1));
+        for (OrderStatus status : List.of(OrderStatus.CONFIRMED, OrderStatus.SHIPPED, OrderStatus.DELIVERED)) {
+            orderService.updateOrderStatus(first.getId(), status);
+        }
+        inventoryReservations.flush();
+        orderArchive.archive();
+        assertThat(orderRepository.findById(first.getId())).isEmpty();
+
+        OrderIdempotency.Result replay = orderIdempotency.createOrder("archived-key", newOrder(product.getId(), 1));
+
+        assertThat(replay.replayed()).isTrue();
+        assertThat(replay.order().getId()).isEqualTo(first.getId());
+        assertThat(replay.order().getStatus()).isEqualTo(OrderStatus.DELIVERED);
+    }
+
+    @Test
+    void deletedOrderConflictsInsteadOfFailing() {
+        Product product = productService.createProduct(newProduct("deleted", 10));
+        Order first = orderIdempotency.createOrder("deleted-key", newOrder(product.getId(), 1)).order();
+        orderIdempotency.createOrder("deleted-evicting-key", newOrder(product.getId(), 1));
+        orderRepository.deleteById(first.getId());
+
+        assertThatThrownBy(() -> orderIdempotency.createOrder("deleted-key", newOrder(product.getId(), 1)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("no longer exists");
+        assertThat(orderRepository.findByProductId(product.getId())).hasSize(1);
+    }
+
+    private double storedReplays() {
+        return meterRegistry.get("idempotency.requests").tag("result", "stored").counter().count();
+    }
+
+    private static Product newProduct(String name, int quantity) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(5.0);
+        product.setQuantity(quantity);
+        product.setCategory("test");
+        product.setFarmerId("farmer-1");
+        return product;
+    }
+
+    private static Order newOrder(Long productId, int quantity) {
+        Order order = new Order();
+        order.setProductId(productId);
+        order.setBuyerId("buyer-1");
+        order.setQuantity(quantity);
+        return order;
+    }
+}
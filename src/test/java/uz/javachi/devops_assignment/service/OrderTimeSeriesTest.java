@@ -0,0 +1,231 @@
+package uz.javachi.devops_assignment.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OrderRollup;
+import uz.javachi.devops_assignment.model.TimeGranularity;
+import uz.javachi.devops_assignment.model.TimeSeries;
+import uz.javachi.devops_assignment.repository.OrderRepository;
+import uz.javachi.devops_assignment.repository.OrderRollupRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Restarts of the time series against an in-memory orders and rollups table: rollups
+ * replayed from the table, orders replayed since the last flushed day and live writes
+ * on both sides of an hour boundary must add up to the orders themselves.
+ */
+class OrderTimeSeriesTest {
+
+    private final List<Order> orders = new ArrayList<>();
+    private final List<OrderRollup> rollups = new ArrayList<>();
+    private OrderRepository orderRepository;
+    private OrderRollupRepository orderRollupRepository;
+
+    private LocalDateTime today;
+    private LocalDateTime boundary;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        when(orderRepository.streamOrderValuesSince(any())).thenAnswer(invocation -> {
+            LocalDateTime since = invocation.getArgument(0);
+            return List.copyOf(orders).stream()
+                    .filter(order -> !order.getCreatedAt().isBefore(since))
+                    .map(OrderTimeSeriesTest::valueOf);
+        });
+
+        orderRollupRepository = mock(OrderRollupRepository.class);
+        when(orderRollupRepository.findFirstByGranularityOrderByBucketStartDesc(any())).thenAnswer(invocation ->
+                rollups.stream()
+                        .filter(rollup -> rollup.getGranularity() == invocation.getArgument(0))
+                        .max(Comparator.comparing(OrderRollup::getBucketStart)));
+        when(orderRollupRepository.findByGranularityAndBucketStart(any(), any())).thenAnswer(invocation ->
+                rollups.stream()
+                        .filter(rollup -> rollup.getGranularity() == invocation.getArgument(0))
+                        .filter(rollup -> rollup.getBucketStart().equals(invocation.getArgument(1)))
+                        .findFirst());
+        when(orderRollupRepository.findByGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                any(), any(), any())).thenAnswer(invocation -> {
+            LocalDateTime from = invocation.getArgument(1);
+            LocalDateTime to = invocation.getArgument(2);
+            return rollups.stream()
+                    .filter(rollup -> rollup.getGranularity() == invocation.getArgument(0))
+                    .filter(rollup -> !rollup.getBucketStart().isBefore(from) && rollup.getBucketStart().isBefore(to))
+                    .sorted(Comparator.comparing(OrderRollup::getBucketStart))
+                    .toList();
+        });
+        when(orderRollupRepository.saveAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<OrderRollup> saved = invocation.getArgument(0);
+            for (OrderRollup rollup : saved) {
+                if (rollups.stream().noneMatch(existing -> existing == rollup)) {
+                    rollups.add(rollup);
+                }
+            }
+            return List.copyOf(saved);
+        });
+
+        LocalDateTime now = LocalDateTime.now();
+        today = now.truncatedTo(ChronoUnit.DAYS);
+        boundary = now.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @Test
+    void restartsAddUpAcrossAnHourBoundary() {
+        LocalDateTime twoDaysAgo = today.minusDays(2);
+        LocalDateTime yesterday = today.minusDays(1);
+        // Flushed before the stop: everything up to the 10:00 hour of yesterday
+        for (int i = 0; i < 5; i++) {
+            orders.add(order(twoDaysAgo.plusHours(9).plusMinutes(15 + i), 10.0));
+        }
+        orders.add(order(yesterday.plusHours(10).plusMinutes(15), 10.0));
+        orders.add(order(yesterday.plusHours(10).plusMinutes(45), 10.0));
+        rollups.add(rollup(TimeGranularity.HOUR, twoDaysAgo.plusHours(9), 5, 50.0));
+        rollups.add(rollup(TimeGranularity.DAY, twoDaysAgo, 5, 50.0));
+        rollups.add(rollup(TimeGranularity.HOUR, yesterday.plusHours(10), 2, 20.0));
+        rollups.add(rollup(TimeGranularity.DAY, yesterday, 2, 20.0));
+        // Committed but never flushed, either side of the current hour
+        orders.add(order(boundary.minusSeconds(30), 3.0));
+        orders.add(order(boundary, 4.0));
+
+        OrderTimeSeries first = new OrderTimeSeries(orderRepository, orderRollupRepository);
+        first.load();
+        // Live writes after the start, on both sides of the boundary again
+        for (Order live : List.of(order(boundary.minusSeconds(1), 5.0), order(boundary, 6.0))) {
+            orders.add(live);
+            first.record(live);
+        }
+        assertTotals(first, twoDaysAgo, yesterday);
+
+        first.flush();
+        OrderTimeSeries second = new OrderTimeSeries(orderRepository, orderRollupRepository);
+        second.load();
+        assertTotals(second, twoDaysAgo, yesterday);
+
+        // A second flush of an unchanged series writes the same totals
+        second.flush();
+        assertThat(rollupOf(TimeGranularity.HOUR, boundary).getOrderCount()).isEqualTo(expectedCount(TimeGranularity.HOUR, boundary));
+        assertThat(rollupOf(TimeGranularity.DAY, today).getOrderCount()).isEqualTo(expectedCount(TimeGranularity.DAY, today));
+    }
+
+    @Test
+    void firstStartBackfillsHoursOlderThanTheRing() {
+        LocalDateTime old = today.minusDays(40);
+        // An earlier, partial flush of a bucket the replay will total again
+        rollups.add(rollup(TimeGranularity.HOUR, old.plusHours(9), 7, 70.0));
+        orders.add(order(old.plusHours(9).plusMinutes(10), 10.0));
+        orders.add(order(old.plusHours(9).plusMinutes(50), 12.5));
+        orders.add(order(boundary, 1.0));
+
+        OrderTimeSeries series = new OrderTimeSeries(orderRepository, orderRollupRepository);
+        series.load();
+
+        assertThat(rollups).filteredOn(rollup -> rollup.getGranularity() == TimeGranularity.HOUR
+                && rollup.getBucketStart().equals(old.plusHours(9))).hasSize(1);
+        assertPoint(series, TimeGranularity.HOUR, old.plusHours(9), 2, 22.5);
+        assertPoint(series, TimeGranularity.DAY, old, 2, 22.5);
+        assertPoint(series, TimeGranularity.HOUR, boundary, 1, 1.0);
+    }
+
+    private void assertTotals(OrderTimeSeries series, LocalDateTime twoDaysAgo, LocalDateTime yesterday) {
+        for (LocalDateTime hour : List.of(twoDaysAgo.plusHours(9), yesterday.plusHours(10),
+                boundary.minusHours(1), boundary)) {
+            assertExpected(series, TimeGranularity.HOUR, hour);
+        }
+        for (LocalDateTime day : List.of(twoDaysAgo, yesterday, today)) {
+            assertExpected(series, TimeGranularity.DAY, day);
+        }
+        for (LocalDateTime minute : List.of(boundary.minusMinutes(1), boundary)) {
+            assertExpected(series, TimeGranularity.MINUTE, minute);
+        }
+        assertThat(pointOf(series, TimeGranularity.MINUTE, boundary.minusMinutes(1)).getOrderCount()).isEqualTo(2);
+        assertThat(pointOf(series, TimeGranularity.MINUTE, boundary).getOrderCount()).isEqualTo(2);
+    }
+
+    private void assertExpected(OrderTimeSeries series, TimeGranularity granularity, LocalDateTime bucketStart) {
+        assertPoint(series, granularity, bucketStart, expectedCount(granularity, bucketStart),
+                orders.stream().filter(order -> inBucket(order, granularity, bucketStart))
+                        .mapToDouble(Order::getTotalPrice).sum());
+    }
+
+    private static void assertPoint(OrderTimeSeries series, TimeGranularity granularity, LocalDateTime bucketStart,
+                                    long count, double revenue) {
+        TimeSeries.Point point = pointOf(series, granularity, bucketStart);
+        assertThat(point.getOrderCount()).as("%s orders at %s", granularity, bucketStart).isEqualTo(count);
+        assertThat(point.getRevenue()).as("%s revenue at %s", granularity, bucketStart).isCloseTo(revenue, within(1e-9));
+    }
+
+    private static TimeSeries.Point pointOf(OrderTimeSeries series, TimeGranularity granularity, LocalDateTime bucketStart) {
+        TimeSeries result = series.query(granularity, bucketStart, bucketStart.plusSeconds(granularity.getSeconds()));
+        assertThat(result.getPoints()).hasSize(1);
+        return result.getPoints().get(0);
+    }
+
+    private long expectedCount(TimeGranularity granularity, LocalDateTime bucketStart) {
+        return orders.stream().filter(order -> inBucket(order, granularity, bucketStart)).count();
+    }
+
+    private static boolean inBucket(Order order, TimeGranularity granularity, LocalDateTime bucketStart) {
+        long seconds = order.getCreatedAt().toEpochSecond(ZoneOffset.UTC) - bucketStart.toEpochSecond(ZoneOffset.UTC);
+        return seconds >= 0 && seconds < granularity.getSeconds();
+    }
+
+    private OrderRollup rollupOf(TimeGranularity granularity, LocalDateTime bucketStart) {
+        Optional<OrderRollup> rollup = rollups.stream()
+                .filter(candidate -> candidate.getGranularity() == granularity)
+                .filter(candidate -> candidate.getBucketStart().equals(bucketStart))
+                .findFirst();
+        assertThat(rollup).as("%s rollup at %s", granularity, bucketStart).isPresent();
+        return rollup.get();
+    }
+
+    private static Order order(LocalDateTime createdAt, double totalPrice) {
+        Order order = new Order();
+        order.setCreatedAt(createdAt);
+        order.setTotalPrice(totalPrice);
+        return order;
+    }
+
+    private static OrderRollup rollup(TimeGranularity granularity, LocalDateTime bucketStart, long count, double revenue) {
+        OrderRollup rollup = new OrderRollup();
+        rollup.setGranularity(granularity);
+        rollup.setBucketStart(bucketStart);
+        rollup.setOrderCount(count);
+        rollup.setRevenue(revenue);
+        return rollup;
+    }
+
+    private static OrderRepository.OrderValue valueOf(Order order) {
+        return new OrderRepository.OrderValue() {
+            @Override
+            public Long getProductId() {
+                return order.getProductId();
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return order.getCreatedAt();
+            }
+
+            @Override
+            public Double getTotalPrice() {
+                return order.getTotalPrice();
+            }
+        };
+    }
+}
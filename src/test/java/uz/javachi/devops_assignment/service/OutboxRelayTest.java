@@ -0,0 +1,187 @@
+package uz.javachi.devops_assignment.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+import uz.javachi.devops_assignment.model.BatchOrderResult;
+import uz.javachi.devops_assignment.model.Order;
+import uz.javachi.devops_assignment.model.OutboxEvent;
+import uz.javachi.devops_assignment.model.OutboxEventType;
+import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.repository.NotificationRepository;
+import uz.javachi.devops_assignment.repository.OutboxRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+        // Long enough for one relay to wait out the other's row locks where SKIP LOCKED is unavailable
+        "spring.datasource.url=jdbc:h2:mem:outbox-relay;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.show-sql=false",
+        "archive.directory=target/outbox-relay-archive/${random.uuid}",
+        // The test drives the relay itself
+        "outbox.relay.poll-interval-ms=3600000",
+        "outbox.relay.batch-size=5",
+        "outbox.relay.max-attempts=3",
+        "outbox.relay.retry-backoff-ms=0"
+})
+class OutboxRelayTest {
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    @BeforeEach
+    void drain() {
+        // Leftovers of earlier tests must not be counted against this one
+        outboxRelay.relay();
+    }
+
+    @Test
+    void eventCommitsAndRollsBackWithTheOrder() {
+        Product product = productService.createProduct(newProduct("outbox-tx", "tx"));
+        long eventsBefore = outboxRepository.count();
+
+        Order created = orderService.createOrder(newOrder(product.getId()));
+
+        List<OutboxEvent> events = outboxRepository.findAll().stream()
+                .filter(event -> event.getType() == OutboxEventType.ORDER_CREATED)
+                .filter(event -> created.getId().equals(event.getAggregateId()))
+                .toList();
+        assertThat(events).hasSize(1);
+        assertThat(outboxRepository.count()).isEqualTo(eventsBefore + 1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            orderService.createOrder(newOrder(product.getId()));
+            status.setRollbackOnly();
+        });
+        assertThat(outboxRepository.count()).isEqualTo(eventsBefore + 1);
+
+        // Writing an event outside a transaction would let it commit without its order
+        assertThatThrownBy(() -> outbox.orderCreated(created)).isInstanceOf(IllegalTransactionStateException.class);
+    }
+
+    @Test
+    void concurrentRelaysDeliverEachEventOnce() throws Exception {
+        Product product = productService.createProduct(newProduct("outbox-relay", "relay"));
+        int orders = 40;
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            orderIds.add(orderService.createOrder(newOrder(product.getId())).getId());
+        }
+        BatchOrderResult batch = orderService.createOrders(List.of(newOrder(product.getId()), newOrder(product.getId())));
+        batch.getLines().forEach(line -> orderIds.add(line.getOrder().getId()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<?>> relays = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            relays.add(executor.submit(() -> {
+                startGate.await();
+                outboxRelay.relay();
+                return null;
+            }));
+        }
+        startGate.countDown();
+        for (Future<?> relay : relays) {
+            relay.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        // Anything a relay skipped because the other held it is picked up here, and nothing twice
+        outboxRelay.relay();
+
+        for (Long orderId : orderIds) {
+            assertThat(notificationRepository.findByOrderId(orderId)).as("notifications of order %d", orderId).hasSize(1);
+        }
+        // One email per single order, one for the whole batch
+        verify(emailService, times(orders + 1)).sendEmail(eq("farmer-relay@example.com"), anyString(), anyString());
+        assertThat(outboxRepository.countByProcessedAtIsNullAndAvailableAtIsNotNull()).isZero();
+    }
+
+    @Test
+    void failingEmailIsRetriedThenParked() {
+        doThrow(new IllegalStateException("SMTP unavailable"))
+                .when(emailService).sendEmail(eq("farmer-parked@example.com"), any(), any());
+        Product product = productService.createProduct(newProduct("outbox-parked", "parked"));
+        productService.updateProductPrice(product.getId(), 9.0);
+        OutboxEvent event = outboxRepository.findAll().stream()
+                .filter(candidate -> candidate.getType() == OutboxEventType.PRICE_CHANGED)
+                .filter(candidate -> product.getId().equals(candidate.getAggregateId()))
+                .findFirst()
+                .orElseThrow();
+
+        outboxRelay.relay();
+        OutboxEvent retrying = outboxRepository.findById(event.getId()).orElseThrow();
+        assertThat(retrying.getAttempts()).isEqualTo(1);
+        assertThat(retrying.getAvailableAt()).isNotNull();
+        assertThat(retrying.getLastError()).isEqualTo("SMTP unavailable");
+
+        outboxRelay.relay();
+        outboxRelay.relay();
+        OutboxEvent parked = outboxRepository.findById(event.getId()).orElseThrow();
+        assertThat(parked.getAttempts()).isEqualTo(3);
+        assertThat(parked.getAvailableAt()).isNull();
+        assertThat(parked.getProcessedAt()).isNull();
+
+        // Parked events are not claimed again, and each failed attempt rolled back its notification
+        outboxRelay.relay();
+        verify(emailService, times(3)).sendEmail(eq("farmer-parked@example.com"), anyString(), anyString());
+        assertThat(notificationRepository.findByUserId("parked")).isEmpty();
+    }
+
+    private static Product newProduct(String name, String farmerId) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(4.0);
+        product.setQuantity(1_000);
+        product.setCategory("test");
+        product.setFarmerId(farmerId);
+        return product;
+    }
+
+    private static Order newOrder(Long productId) {
+        Order order = new Order();
+        order.setProductId(productId);
+        order.setBuyerId("buyer-1");
+        order.setQuantity(1);
+        return order;
+    }
+}
@@ -0,0 +1,163 @@
+package uz.javachi.devops_assignment.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import uz.javachi.devops_assignment.controller.ProductController;
+import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.repository.ProductRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-catalog;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "archive.directory=target/product-catalog-archive/${random.uuid}",
+        "catalog.gzip=true"
+})
+class ProductCatalogSnapshotTest {
+
+    private static final String ETAG = "\"0123456789abcdef\"";
+
+    @Autowired
+    private ProductCatalogSnapshot productCatalogSnapshot;
+
+    @Autowired
+    private ProductController productController;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void ifNoneMatchUsesWeakComparison() {
+        assertThat(ProductCatalogSnapshot.Snapshot.matches(ETAG, ETAG)).isTrue();
+        assertThat(ProductCatalogSnapshot.Snapshot.matches("W/" + ETAG, ETAG)).isTrue();
+        assertThat(ProductCatalogSnapshot.Snapshot.matches("*", ETAG)).isTrue();
+        assertThat(ProductCatalogSnapshot.Snapshot.matches("\"other\", W/" + ETAG, ETAG)).isTrue();
+        assertThat(ProductCatalogSnapshot.Snapshot.matches(" \"other\" ,  " + ETAG + " ", ETAG)).isTrue();
+
+        assertThat(ProductCatalogSnapshot.Snapshot.matches(null, ETAG)).isFalse();
+        assertThat(ProductCatalogSnapshot.Snapshot.matches("\"other\"", ETAG)).isFalse();
+        assertThat(ProductCatalogSnapshot.Snapshot.matches("0123456789abcdef", ETAG)).as("unquoted").isFalse();
+        assertThat(ProductCatalogSnapshot.Snapshot.matches("\"0123456789abcdef-gzip\"", ETAG)).isFalse();
+    }
+
+    @Test
+    void gzipHasItsOwnEtag() throws IOException {
+        productService.createProduct(newProduct("catalog-gzip", 2.0));
+        ProductCatalogSnapshot.Snapshot snapshot = productCatalogSnapshot.current();
+
+        assertThat(snapshot.gzipEtag()).isNotEqualTo(snapshot.etag()).endsWith("-gzip\"");
+
+        ResponseEntity<?> plain = productController.getCatalog(null, null);
+        assertThat(plain.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(plain.getHeaders().getETag()).isEqualTo(snapshot.etag());
+        assertThat(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(plain.getHeaders().getVary()).contains(HttpHeaders.ACCEPT_ENCODING);
+        assertThat((byte[]) plain.getBody()).isEqualTo(snapshot.json());
+
+        ResponseEntity<?> compressed = productController.getCatalog(null, "deflate, gzip");
+        assertThat(compressed.getHeaders().getETag()).isEqualTo(snapshot.gzipEtag());
+        assertThat(compressed.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gunzip((byte[]) compressed.getBody())).isEqualTo(snapshot.json());
+
+        // Refused with q=0, so the plain representation is sent
+        ResponseEntity<?> refused = productController.getCatalog(null, "gzip;q=0");
+        assertThat(refused.getHeaders().getETag()).isEqualTo(snapshot.etag());
+    }
+
+    @Test
+    void currentCopyIsNotModified() {
+        productService.createProduct(newProduct("catalog-304", 2.0));
+        ProductCatalogSnapshot.Snapshot snapshot = productCatalogSnapshot.current();
+
+        ResponseEntity<?> notModified = productController.getCatalog(snapshot.etag(), null);
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getBody()).isNull();
+        assertThat(notModified.getHeaders().getETag()).isEqualTo(snapshot.etag());
+
+        assertThat(productController.getCatalog("W/" + snapshot.gzipEtag(), "gzip").getStatusCode())
+                .isEqualTo(HttpStatus.NOT_MODIFIED);
+        // The plain ETag does not validate the gzip representation, or the other way round
+        assertThat(productController.getCatalog(snapshot.etag(), "gzip").getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(productController.getCatalog(snapshot.gzipEtag(), null).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void updateAndDeleteAreSplicedIn() throws IOException {
+        Product kept = productService.createProduct(newProduct("catalog-kept", 2.0));
+        Product changed = productService.createProduct(newProduct("catalog-changed", 3.0));
+        Product deleted = productService.createProduct(newProduct("catalog-deleted", 4.0));
+        ProductCatalogSnapshot.Snapshot before = productCatalogSnapshot.current();
+        assertThat(productCatalogSnapshot.current()).as("unchanged between writes").isSameAs(before);
+        assertMatchesTable(before);
+
+        productService.updateProductPrice(changed.getId(), 7.5);
+        ProductCatalogSnapshot.Snapshot updated = productCatalogSnapshot.current();
+
+        assertThat(updated.version()).isGreaterThan(before.version());
+        assertThat(updated.etag()).isNotEqualTo(before.etag());
+        assertThat(productOf(updated, changed.getId()).get("price").asDouble()).isEqualTo(7.5);
+        assertThat(productOf(updated, kept.getId()).get("price").asDouble()).isEqualTo(2.0);
+        assertMatchesTable(updated);
+        assertThat(productController.getCatalog(before.etag(), null).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        productService.deleteProduct(deleted.getId());
+        ProductCatalogSnapshot.Snapshot afterDelete = productCatalogSnapshot.current();
+
+        assertThat(afterDelete.productCount()).isEqualTo(updated.productCount() - 1);
+        assertThat(productOf(afterDelete, deleted.getId())).isNull();
+        assertMatchesTable(afterDelete);
+        assertThat(gunzip(afterDelete.gzip())).isEqualTo(afterDelete.json());
+    }
+
+    // Same products, same order and same JSON as serializing the table afresh
+    private void assertMatchesTable(ProductCatalogSnapshot.Snapshot snapshot) throws IOException {
+        List<Product> table = new ArrayList<>(productRepository.findAll());
+        table.sort((left, right) -> Long.compare(left.getId(), right.getId()));
+        assertThat(objectMapper.readTree(snapshot.json())).isEqualTo(objectMapper.valueToTree(table));
+        assertThat(snapshot.productCount()).isEqualTo(table.size());
+    }
+
+    private JsonNode productOf(ProductCatalogSnapshot.Snapshot snapshot, Long id) throws IOException {
+        for (JsonNode product : objectMapper.readTree(snapshot.json())) {
+            if (product.get("id").asLong() == id) {
+                return product;
+            }
+        }
+        return null;
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static Product newProduct(String name, double price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setQuantity(100);
+        product.setCategory("test");
+        product.setFarmerId("farmer-1");
+        return product;
+    }
+}
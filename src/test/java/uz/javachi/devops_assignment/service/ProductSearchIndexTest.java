@@ -0,0 +1,163 @@
+package uz.javachi.devops_assignment.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uz.javachi.devops_assignment.model.Product;
+import uz.javachi.devops_assignment.model.ProductSearchResult;
+import uz.javachi.devops_assignment.repository.ProductRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The search index on its own, with the product cache and order counts stubbed.
+ */
+class ProductSearchIndexTest {
+
+    private final Map<Long, Product> products = new HashMap<>();
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ProductCache productCache = mock(ProductCache.class);
+        when(productCache.getAll(anyCollection())).thenAnswer(invocation -> {
+            Map<Long, Product> found = new HashMap<>();
+            for (Object id : invocation.getArgument(0, Collection.class)) {
+                if (products.containsKey(id)) {
+                    found.put((Long) id, products.get(id));
+                }
+            }
+            return found;
+        });
+        index = new ProductSearchIndex(mock(ProductRepository.class), productCache,
+                mock(DashboardAggregates.class), new SimpleMeterRegistry());
+
+        add(1L, "Tomato", "Vegetables", "Fresh red tomatoes");
+        add(2L, "Potato", "Vegetables", null);
+        add(3L, "Apple", "Fruit", "Crisp and sweet");
+        add(4L, "Tea", "Drinks", "Green leaves");
+    }
+
+    @Test
+    void oneEditCoversEveryKind() {
+        assertThat(ProductSearchIndex.withinOneEdit("tomato", "tomato")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("tomato", "tomatp")).as("substitution").isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("tomato", "otmato")).as("transposition").isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("tomato", "tomaot")).as("transposition at the end").isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("tomato", "tomatoe")).as("insertion").isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("tomato", "xtomato")).as("insertion at the start").isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("tomato", "tmato")).as("deletion").isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("tomato", "tomat")).as("deletion at the end").isTrue();
+
+        assertThat(ProductSearchIndex.withinOneEdit("tomato", "potatp")).as("two substitutions").isFalse();
+        assertThat(ProductSearchIndex.withinOneEdit("tomato", "otmaot")).as("two transpositions").isFalse();
+        assertThat(ProductSearchIndex.withinOneEdit("tomato", "omtao")).isFalse();
+        assertThat(ProductSearchIndex.withinOneEdit("tomato", "tomatoes")).as("two insertions").isFalse();
+        assertThat(ProductSearchIndex.withinOneEdit("abc", "cab")).isFalse();
+    }
+
+    @Test
+    void typosFindTheProduct() {
+        assertThat(ids("tomatp")).containsExactly(1L);
+        assertThat(ids("otmato")).containsExactly(1L);
+        assertThat(ids("tomatto")).containsExactly(1L);
+        assertThat(ids("tomto")).containsExactly(1L);
+        assertThat(ids("ptoato")).containsExactly(2L);
+        // Candidates reached only through the deletion index, in both directions
+        assertThat(ids("aple")).containsExactly(3L);
+        assertThat(ids("applle")).containsExactly(3L);
+        assertThat(ids("appel")).containsExactly(3L);
+        // Every term has to match, typo or not
+        assertThat(ids("tomatp vegetbles")).containsExactly(1L);
+        assertThat(ids("tomatp fruit")).isEmpty();
+    }
+
+    @Test
+    void exactBeatsPrefixBeatsTypo() {
+        double exact = topScore("apple");
+        double prefix = topScore("appl");
+        double typo = topScore("appel");
+
+        assertThat(exact).isGreaterThan(prefix);
+        assertThat(prefix).isGreaterThan(typo);
+        assertThat(ids("vegetables")).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void shortTermsDoNotMatchFuzzily() {
+        assertThat(ids("tae")).isEmpty();
+        assertThat(ids("te")).containsExactly(4L);
+        assertThat(ids("tep")).isEmpty();
+        // Accents and case are folded before matching
+        assertThat(ids("TOMÁTO")).containsExactly(1L);
+    }
+
+    @Test
+    void prefixExpansionIsCapped() {
+        for (long id = 100; id < 200; id++) {
+            add(id, "berry" + id, null, null);
+        }
+
+        ProductSearchResult result = index.search("berry", ProductSearchIndex.MAX_LIMIT);
+
+        assertThat(result.getTotalMatches()).isEqualTo(64);
+        // The dictionary is sorted, so the first expansions are kept
+        assertThat(result.getHits()).extracting(hit -> hit.getProduct().getId()).contains(100L, 163L).doesNotContain(164L);
+    }
+
+    @Test
+    void reindexedProductStopsMatchingItsOldTerms() {
+        add(5L, "Mango", "Fruit", "Ripe");
+        assertThat(ids("mango")).containsExactly(5L);
+
+        add(5L, "Papaya", "Fruit", "Ripe");
+
+        assertThat(ids("mango")).isEmpty();
+        assertThat(ids("mangoo")).as("typo of the old name").isEmpty();
+        assertThat(ids("mang")).as("prefix of the old name").isEmpty();
+        assertThat(ids("papaya")).containsExactly(5L);
+        assertThat(ids("papya")).containsExactly(5L);
+        assertThat(ids("fruit")).containsExactlyInAnyOrder(3L, 5L);
+
+        index.remove(5L);
+        assertThat(ids("papaya")).isEmpty();
+        assertThat(ids("fruit")).containsExactly(3L);
+    }
+
+    @Test
+    void rejectsBadQueriesAndLimits() {
+        assertThatThrownBy(() -> index.search("  ,;  ", 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> index.search("apple", 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> index.search("apple", ProductSearchIndex.MAX_LIMIT + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void add(Long id, String name, String category, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(category);
+        product.setDescription(description);
+        products.put(id, product);
+        index.index(product);
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, ProductSearchIndex.MAX_LIMIT).getHits().stream()
+                .map(hit -> hit.getProduct().getId())
+                .toList();
+    }
+
+    private double topScore(String query) {
+        return index.search(query, 1).getHits().get(0).getScore();
+    }
+}
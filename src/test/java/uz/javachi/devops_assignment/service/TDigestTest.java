@@ -0,0 +1,113 @@
+package uz.javachi.devops_assignment.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class TDigestTest {
+
+    private static final double COMPRESSION = 100;
+    private static final double[] QUANTILES = {0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999};
+
+    @Test
+    void quantilesAreAccurateInRank() {
+        Random random = new Random(7);
+        double[] values = new double[100_000];
+        TDigest digest = new TDigest(COMPRESSION);
+        for (int i = 0; i < values.length; i++) {
+            // Log-normal, like order values: a long right tail
+            values[i] = Math.exp(3 + random.nextGaussian());
+            digest.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertThat(digest.count()).isEqualTo(values.length);
+        assertThat(digest.min()).isEqualTo(values[0]);
+        assertThat(digest.max()).isEqualTo(values[values.length - 1]);
+        for (double q : QUANTILES) {
+            assertRankError(values, q, digest.quantile(q));
+        }
+    }
+
+    @Test
+    void mergedDigestMatchesTheWhole() {
+        Random random = new Random(11);
+        double[] values = new double[60_000];
+        TDigest[] parts = {new TDigest(COMPRESSION), new TDigest(COMPRESSION), new TDigest(COMPRESSION)};
+        for (int i = 0; i < values.length; i++) {
+            // Each part sees a different range, so the merge has to interleave them
+            values[i] = (i % 3) * 100 + random.nextDouble() * 150;
+            parts[i % 3].add(values[i]);
+        }
+        Arrays.sort(values);
+
+        TDigest total = new TDigest(COMPRESSION);
+        for (TDigest part : parts) {
+            total.merge(part);
+        }
+
+        assertThat(total.count()).isEqualTo(values.length);
+        assertThat(total.min()).isEqualTo(values[0]);
+        assertThat(total.max()).isEqualTo(values[values.length - 1]);
+        for (double q : QUANTILES) {
+            assertRankError(values, q, total.quantile(q));
+        }
+    }
+
+    @Test
+    void copyIsIndependent() {
+        TDigest digest = new TDigest(COMPRESSION);
+        for (int i = 1; i <= 1_000; i++) {
+            digest.add(i);
+        }
+        TDigest copy = digest.copy();
+        double median = copy.quantile(0.5);
+
+        digest.add(1_000_000);
+
+        assertThat(copy.count()).isEqualTo(1_000);
+        assertThat(copy.quantile(0.5)).isEqualTo(median);
+        assertThat(copy.max()).isEqualTo(1_000);
+        assertThat(median).isCloseTo(500.5, within(5.0));
+    }
+
+    @Test
+    void smallAndEmptyDigests() {
+        TDigest digest = new TDigest(COMPRESSION);
+        assertThat(digest.count()).isZero();
+        assertThat(digest.quantile(0.5)).isNaN();
+        assertThat(digest.min()).isNaN();
+
+        digest.add(Double.NaN);
+        digest.add(42);
+
+        assertThat(digest.count()).isEqualTo(1);
+        assertThat(digest.quantile(0)).isEqualTo(42);
+        assertThat(digest.quantile(1)).isEqualTo(42);
+        assertThatThrownBy(() -> digest.quantile(1.5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TDigest(5)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // The k1 scale bounds the error in rank, tightest at the tails
+    private static void assertRankError(double[] sorted, double q, double estimate) {
+        double rank = (double) lowerBound(sorted, estimate) / sorted.length;
+        double bound = Math.max(0.001, 4 * q * (1 - q) * 0.01);
+        assertThat(rank).as("rank of the p%s estimate %s", q * 100, estimate).isCloseTo(q, within(bound));
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && sorted[index - 1] == value) {
+            index--;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,93 @@
+package uz.javachi.devops_assignment.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKSketchTest {
+
+    @Test
+    void estimatesStayWithinTheSpaceSavingBounds() {
+        int capacity = 50;
+        TopKSketch sketch = new TopKSketch(capacity);
+        Map<Long, Long> truth = new HashMap<>();
+        Random random = new Random(42);
+        long added = 0;
+        for (int i = 0; i < 200_000; i++) {
+            // Skewed: a few products dominate, with a long tail of 5000 others
+            long productId = (long) Math.floor(Math.pow(5000, random.nextDouble()));
+            long count = 1 + random.nextInt(3);
+            sketch.offer(productId, count, count * 2.0);
+            truth.merge(productId, count, Long::sum);
+            added += count;
+        }
+        long total = added;
+
+        Map<Long, long[]> counts = new HashMap<>();
+        Map<Long, Double> revenues = new HashMap<>();
+        sketch.mergeInto(counts, revenues);
+        assertThat(counts).hasSizeLessThanOrEqualTo(capacity);
+
+        long maxError = total / capacity;
+        counts.forEach((productId, countAndError) -> {
+            long actual = truth.get(productId);
+            assertThat(countAndError[0]).as("count of %d", productId).isGreaterThanOrEqualTo(actual);
+            assertThat(countAndError[0] - countAndError[1]).as("guaranteed count of %d", productId).isLessThanOrEqualTo(actual);
+            assertThat(countAndError[1]).as("error of %d", productId).isLessThanOrEqualTo(maxError);
+        });
+        truth.forEach((productId, actual) -> {
+            if (actual > maxError) {
+                assertThat(counts).as("heavy hitter %d (%d of %d)", productId, actual, total).containsKey(productId);
+            }
+        });
+    }
+
+    @Test
+    void exactWhileEveryKeyFits() {
+        TopKSketch sketch = new TopKSketch(10);
+        for (long productId = 1; productId <= 5; productId++) {
+            for (int i = 0; i < productId; i++) {
+                sketch.offer(productId, 1, 1.5);
+            }
+        }
+
+        Map<Long, long[]> counts = new HashMap<>();
+        Map<Long, Double> revenues = new HashMap<>();
+        sketch.mergeInto(counts, revenues);
+        List<TopKSketch.Estimate> top = TopKSketch.top(counts, revenues, 3);
+
+        assertThat(top).extracting(TopKSketch.Estimate::productId).containsExactly(5L, 4L, 3L);
+        assertThat(top).extracting(TopKSketch.Estimate::count).containsExactly(5L, 4L, 3L);
+        assertThat(top).extracting(TopKSketch.Estimate::error).containsOnly(0L);
+        assertThat(top.get(0).revenue()).isEqualTo(7.5);
+    }
+
+    @Test
+    void mergedSubWindowsAddUp() {
+        TopKSketch first = new TopKSketch(4);
+        TopKSketch second = new TopKSketch(4);
+        first.offer(1L, 3, 3.0);
+        first.offer(2L, 1, 1.0);
+        second.offer(1L, 2, 2.0);
+        second.offer(3L, 4, 4.0);
+
+        Map<Long, long[]> counts = new HashMap<>();
+        Map<Long, Double> revenues = new HashMap<>();
+        first.mergeInto(counts, revenues);
+        second.mergeInto(counts, revenues);
+
+        assertThat(counts.get(1L)[0]).isEqualTo(5);
+        assertThat(revenues.get(1L)).isEqualTo(5.0);
+        assertThat(TopKSketch.top(counts, revenues, 1)).extracting(TopKSketch.Estimate::productId).containsExactly(1L);
+
+        first.clear();
+        Map<Long, long[]> cleared = new HashMap<>();
+        first.mergeInto(cleared, new HashMap<>());
+        assertThat(cleared).isEmpty();
+    }
+}
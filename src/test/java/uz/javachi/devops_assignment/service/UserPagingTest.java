@@ -0,0 +1,99 @@
+package uz.javachi.devops_assignment.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uz.javachi.devops_assignment.controller.UserController;
+import uz.javachi.devops_assignment.model.CursorPage;
+import uz.javachi.devops_assignment.model.PageCursor;
+import uz.javachi.devops_assignment.model.User;
+import uz.javachi.devops_assignment.model.UserRole;
+import uz.javachi.devops_assignment.repository.UserRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-paging;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "archive.directory=target/user-paging-archive/${random.uuid}",
+        "users.cursor-secret=user-paging-test"
+})
+class UserPagingTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserController userController;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void walkWithTiedTimestampsReturnsEveryUserOnce() {
+        // Three timestamps shared by seven users each, so most page boundaries fall inside a tie
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < 21; i++) {
+            User user = userService.createUser(newUser("paging-" + i + "@example.com"));
+            jdbcTemplate.update("UPDATE users SET created_at = ? WHERE uuid = ?",
+                    Timestamp.valueOf(base.plusMinutes(i % 3)), user.getUuid());
+        }
+
+        List<String> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<User> page = userService.getUsersPage(cursor, 4);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(4);
+            page.getItems().forEach(user -> walked.add(user.getUuid()));
+            cursor = page.getNext();
+            if (cursor != null) {
+                assertThat(cursor).doesNotContain(page.getItems().get(3).getUuid());
+            }
+            pages++;
+        } while (cursor != null && pages < 100);
+
+        List<String> all = userRepository.findAll().stream().map(User::getUuid).toList();
+        assertThat(walked).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(all);
+    }
+
+    @Test
+    void badCursorsAndLimitsAreRejected() {
+        userService.createUser(newUser("paging-bad@example.com"));
+        String next = userService.getUsersPage(null, 1).getNext();
+        assertThat(next).isNotNull();
+        // Plain cursors of the other endpoints would expose the uuid, so they are not accepted here
+        String plain = PageCursor.of(LocalDateTime.now(), "some-uuid").encode();
+
+        for (String cursor : List.of("garbage", "%%%", plain, next.substring(1))) {
+            assertThatThrownBy(() -> userService.getUsersPage(cursor, 10))
+                    .as("cursor %s", cursor)
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(userController.getAllUsers(cursor, 10).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+        for (int limit : new int[]{0, CursorPage.MAX_LIMIT + 1}) {
+            assertThat(userController.getAllUsers(null, limit).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+        assertThat(userController.getAllUsers(next, CursorPage.MAX_LIMIT).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    private static User newUser(String email) {
+        User user = new User();
+        user.setName("Paging");
+        user.setEmail(email);
+        user.setPassword("secret");
+        user.setRole(UserRole.FARMER);
+        return user;
+    }
+}
@@ -0,0 +1,116 @@
+package uz.javachi.devops_assignment.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WTinyLfuCacheTest {
+
+    private static final long NOW = 0;
+    private static final long NEVER = Long.MAX_VALUE;
+
+    @Test
+    void neverHoldsMoreThanItsCapacity() {
+        int capacity = 100;
+        WTinyLfuCache<Long, String> cache = new WTinyLfuCache<>(capacity);
+        Random random = new Random(3);
+        int inserted = 0;
+        int evicted = 0;
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(1_000);
+            if (cache.get(key, NOW) == null) {
+                evicted += cache.put(key, "product-" + key, NEVER);
+                inserted++;
+            }
+            assertThat(cache.size()).isLessThanOrEqualTo(capacity);
+        }
+        assertThat(cache.size()).isEqualTo(inserted - evicted).isEqualTo(capacity);
+    }
+
+    @Test
+    void scanDoesNotFlushPopularEntries() {
+        WTinyLfuCache<String, String> cache = new WTinyLfuCache<>(100);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                read(cache, "hot-" + i);
+            }
+        }
+
+        // Each scanned key is read once, many times more of them than the cache holds. The
+        // popular entries are still read, but too rarely for an LRU of this size to keep them
+        for (int i = 0; i < 10_000; i++) {
+            read(cache, "scan-" + i);
+            if (i % 2 == 0) {
+                read(cache, "hot-" + (i / 2) % 50);
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(cache.get("hot-" + i, NOW)).as("hot-%d", i).isEqualTo("hot-" + i);
+        }
+    }
+
+    @Test
+    void beatsLruOnSkewedReadsMixedWithScans() {
+        int capacity = 200;
+        WTinyLfuCache<Long, Long> cache = new WTinyLfuCache<>(capacity);
+        Map<Long, Long> lru = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > capacity;
+            }
+        };
+        Random random = new Random(5);
+        int cacheHits = 0;
+        int lruHits = 0;
+        long scanKey = 1_000_000;
+        for (int i = 0; i < 200_000; i++) {
+            // Every other read is a one-off key, the rest are skewed over 2000 products
+            long key = i % 2 == 0 ? scanKey++ : (long) Math.floor(Math.pow(2_000, random.nextDouble()));
+            if (cache.get(key, NOW) != null) {
+                cacheHits++;
+            } else {
+                cache.put(key, key, NEVER);
+            }
+            if (lru.get(key) != null) {
+                lruHits++;
+            } else {
+                lru.put(key, key);
+            }
+        }
+        assertThat(cacheHits).isGreaterThan(lruHits);
+    }
+
+    @Test
+    void expiredEntriesAreDroppedOnRead() {
+        WTinyLfuCache<String, String> cache = new WTinyLfuCache<>(10);
+        cache.put("a", "1", 100);
+        cache.put("b", "2", NEVER);
+
+        assertThat(cache.get("a", 99)).isEqualTo("1");
+        assertThat(cache.get("a", 100)).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+
+        cache.put("b", "3", NEVER);
+        assertThat(cache.get("b", 100)).isEqualTo("3");
+        assertThat(cache.remove("b")).isTrue();
+        assertThat(cache.remove("b")).isFalse();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void rejectsTinyCapacity() {
+        assertThatThrownBy(() -> new WTinyLfuCache<>(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void read(WTinyLfuCache<String, String> cache, String key) {
+        if (cache.get(key, NOW) == null) {
+            cache.put(key, key, NEVER);
+        }
+    }
+}